@@ -0,0 +1,160 @@
+package com.dingdong.common.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BitmapKernels 与原逐位循环的耗时对比（一年的用户打卡位图）
+ * 逐位实现照搬替换前的 CheckInBitmapService：范围计数、连续天数（每天一个 LocalDate）、最长连续天数
+ *
+ * 运行: mvn -Pjmh test-compile exec:exec -Djmh.args="BitmapKernels"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitmapKernelsBenchmark {
+
+    private static final int DAYS_IN_YEAR = 366;
+
+    /**
+     * 打卡概率：稀疏、一般、几乎每天（连续段很长，逐位循环最慢）
+     */
+    @Param({"0.3", "0.8", "0.98"})
+    private double density;
+
+    private byte[] bitmap;
+
+    private LocalDate today;
+
+    /**
+     * 统计范围：最近 30 天
+     */
+    private int monthFrom;
+
+    private int monthTo;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(20261018L);
+        bitmap = new byte[(DAYS_IN_YEAR + 7) / 8];
+        for (int day = 0; day < DAYS_IN_YEAR; day++) {
+            if (random.nextDouble() < density) {
+                bitmap[day >>> 3] |= (byte) (0x80 >>> (day & 7));
+            }
+        }
+        // 保证最后一天已打卡，连续天数从今天往前数
+        today = LocalDate.of(2024, 12, 31);
+        int last = today.getDayOfYear() - 1;
+        bitmap[last >>> 3] |= (byte) (0x80 >>> (last & 7));
+        monthTo = last;
+        monthFrom = last - 29;
+    }
+
+    // ==================== 范围计数 ====================
+
+    @Benchmark
+    public int countMonthKernel() {
+        return BitmapKernels.countRange(bitmap, monthFrom, monthTo);
+    }
+
+    @Benchmark
+    public int countMonthPerBit() {
+        int count = 0;
+        for (int i = monthFrom; i <= monthTo; i++) {
+            if (getBit(bitmap, i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int countYearKernel() {
+        return BitmapKernels.countRange(bitmap, 0, DAYS_IN_YEAR - 1);
+    }
+
+    @Benchmark
+    public int countYearPerBit() {
+        int count = 0;
+        for (int i = 0; i < DAYS_IN_YEAR; i++) {
+            if (getBit(bitmap, i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // ==================== 连续天数 ====================
+
+    @Benchmark
+    public int streakKernel() {
+        return BitmapKernels.trailingRun(bitmap, today.getDayOfYear() - 1);
+    }
+
+    @Benchmark
+    public int streakPerBit() {
+        int streak = 0;
+        for (int i = 0; i < 365; i++) {
+            LocalDate checkDate = today.minusDays(i);
+            if (checkDate.getYear() != today.getYear()) {
+                break;
+            }
+            if (getBit(bitmap, checkDate.getDayOfYear() - 1)) {
+                streak++;
+            } else {
+                break;
+            }
+        }
+        return streak;
+    }
+
+    // ==================== 最长连续天数 ====================
+
+    @Benchmark
+    public int maxStreakKernel() {
+        return BitmapKernels.longestRun(bitmap, 0, DAYS_IN_YEAR - 1);
+    }
+
+    @Benchmark
+    public int maxStreakPerBit() {
+        int maxStreak = 0;
+        int currentStreak = 0;
+        for (int i = 0; i < DAYS_IN_YEAR; i++) {
+            if (getBit(bitmap, i)) {
+                currentStreak++;
+                maxStreak = Math.max(maxStreak, currentStreak);
+            } else {
+                currentStreak = 0;
+            }
+        }
+        return maxStreak;
+    }
+
+    /**
+     * 替换前 CheckInBitmapService.getBit 的实现
+     */
+    private static boolean getBit(byte[] bytes, int offset) {
+        int byteIndex = offset / 8;
+        int bitIndex = 7 - (offset % 8);
+        if (byteIndex >= bytes.length) {
+            return false;
+        }
+        return (bytes[byteIndex] & (1 << bitIndex)) != 0;
+    }
+}
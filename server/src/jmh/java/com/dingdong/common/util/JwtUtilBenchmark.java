@@ -0,0 +1,97 @@
+package com.dingdong.common.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个请求的认证耗时对比
+ * 原实现：AuthInterceptor 依次调用 validateToken、getUserIdFromToken、getNicknameFromToken，
+ * 每次都重新构建密钥和解析器并校验签名（共 3 次）；现实现：JwtUtil.authenticate 解析一次并缓存结果
+ *
+ * 运行: mvn -Pjmh test-compile exec:exec -Djmh.args="JwtUtil"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    /**
+     * 与 application.yml 相同长度的密钥（HS256）
+     */
+    private static final String SECRET = "81e5b1e6c30e0e92118a8eb8a005d4a8001162db217d9a505393434cd178b024";
+
+    private JwtUtil jwtUtil;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", TimeUnit.DAYS.toMillis(7));
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", TimeUnit.DAYS.toMillis(30));
+        ReflectionTestUtils.setField(jwtUtil, "cacheSeconds", 60L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 10000L);
+        jwtUtil.init();
+        token = jwtUtil.generateToken(10001L, "叮咚");
+        jwtUtil.authenticate(token);
+    }
+
+    /**
+     * 原实现：校验、取用户ID、取昵称各解析一次，每次新建密钥和解析器
+     */
+    @Benchmark
+    public String legacyThreeParses() {
+        legacyParse(token);
+        Long userId = Long.parseLong(legacyParse(token).getSubject());
+        String nickname = legacyParse(token).get("nickname", String.class);
+        return userId + nickname;
+    }
+
+    /**
+     * 缓存未命中：共享解析器解析一次
+     */
+    @Benchmark
+    public JwtPrincipal parseOnce() {
+        return jwtUtil.parsePrincipal(token);
+    }
+
+    /**
+     * 缓存命中：计算 Token 摘要并读取缓存
+     */
+    @Benchmark
+    public JwtPrincipal authenticateCached() {
+        return jwtUtil.authenticate(token);
+    }
+
+    /**
+     * 替换前 JwtUtil.parseToken 的实现
+     */
+    private static Claims legacyParse(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parser()
+                .verifyWith(key)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
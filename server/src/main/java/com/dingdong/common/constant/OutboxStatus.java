@@ -0,0 +1,48 @@
+package com.dingdong.common.constant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 通知发件箱状态枚举
+ */
+@Getter
+@AllArgsConstructor
+public enum OutboxStatus {
+
+    /** 待发送 - 新入队或等待重试 */
+    PENDING(0, "待发送"),
+
+    /** 发送中 - 已被投递线程领取，租约到期未完成则重新领取 */
+    SENDING(1, "发送中"),
+
+    /** 已发送 */
+    SENT(2, "已发送"),
+
+    /** 永久失败 - 用户未订阅、openid 或模板无效等，不再重试 */
+    FAILED_PERMANENT(3, "永久失败"),
+
+    /** 重试耗尽 - 临时错误重试达到上限 */
+    RETRY_EXHAUSTED(4, "重试耗尽");
+
+    private final Integer code;
+    private final String desc;
+
+    /**
+     * 根据code获取枚举值
+     *
+     * @param code 状态码
+     * @return 对应的枚举值，未找到返回null
+     */
+    public static OutboxStatus fromCode(Integer code) {
+        if (code == null) {
+            return null;
+        }
+        for (OutboxStatus status : values()) {
+            if (status.getCode().equals(code)) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
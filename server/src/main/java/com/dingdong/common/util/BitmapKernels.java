@@ -0,0 +1,229 @@
+package com.dingdong.common.util;
+
+/**
+ * 位图计算工具类
+ * 直接在 Redis 位图（GET 返回的 byte[]）上按 64 位字计算，不逐位遍历、不分配对象
+ *
+ * Redis 位序: 偏移量 0 为第 0 个字节的最高位。按大端序把每 8 个字节拼成一个 long 后，
+ * 偏移量 i 对应第 i / 64 个字的第 (63 - i % 64) 位，即字内偏移越小位越高
+ *
+ * 超出字节数组长度的位视为 0（与 Redis GETBIT 一致）
+ */
+public final class BitmapKernels {
+
+    private static final int WORD_BITS = 64;
+
+    private BitmapKernels() {
+    }
+
+    /**
+     * 判断指定偏移量的位是否为 1
+     *
+     * @param bitmap 位图
+     * @param offset 偏移量
+     * @return 是否为 1
+     */
+    public static boolean get(byte[] bitmap, int offset) {
+        int byteIndex = offset >>> 3;
+        if (bitmap == null || offset < 0 || byteIndex >= bitmap.length) {
+            return false;
+        }
+        return (bitmap[byteIndex] & (0x80 >>> (offset & 7))) != 0;
+    }
+
+    /**
+     * 统计 [from, to] 范围内为 1 的位数（闭区间）
+     *
+     * @param bitmap 位图
+     * @param from   起始偏移量
+     * @param to     结束偏移量
+     * @return 为 1 的位数
+     */
+    public static int countRange(byte[] bitmap, int from, int to) {
+        if (bitmap == null || from > to) {
+            return 0;
+        }
+        from = Math.max(from, 0);
+        to = Math.min(to, bitmap.length * 8 - 1);
+        if (from > to) {
+            return 0;
+        }
+
+        int firstWord = from / WORD_BITS;
+        int lastWord = to / WORD_BITS;
+        if (firstWord == lastWord) {
+            return Long.bitCount(word(bitmap, firstWord) & rangeMask(from % WORD_BITS, to % WORD_BITS));
+        }
+
+        int count = Long.bitCount(word(bitmap, firstWord) & rangeMask(from % WORD_BITS, WORD_BITS - 1));
+        for (int w = firstWord + 1; w < lastWord; w++) {
+            count += Long.bitCount(word(bitmap, w));
+        }
+        count += Long.bitCount(word(bitmap, lastWord) & rangeMask(0, to % WORD_BITS));
+        return count;
+    }
+
+    /**
+     * 统计 [from, to] 范围内在 a 中为 1、在 b 中为 0 的位数（闭区间，用于比较两个位图的差异）
+     *
+     * @param a    位图
+     * @param b    被比较的位图（null 视为全 0）
+     * @param from 起始偏移量
+     * @param to   结束偏移量
+     * @return 仅在 a 中为 1 的位数
+     */
+    public static int countAndNot(byte[] a, byte[] b, int from, int to) {
+        if (a == null || from > to) {
+            return 0;
+        }
+        from = Math.max(from, 0);
+        to = Math.min(to, a.length * 8 - 1);
+        if (from > to) {
+            return 0;
+        }
+
+        int firstWord = from / WORD_BITS;
+        int lastWord = to / WORD_BITS;
+        int count = 0;
+        for (int w = firstWord; w <= lastWord; w++) {
+            int lo = w == firstWord ? from % WORD_BITS : 0;
+            int hi = w == lastWord ? to % WORD_BITS : WORD_BITS - 1;
+            long other = b != null ? word(b, w) : 0L;
+            count += Long.bitCount(word(a, w) & ~other & rangeMask(lo, hi));
+        }
+        return count;
+    }
+
+    /**
+     * 统计整个位图中为 1 的位数
+     *
+     * @param bitmap 位图
+     * @return 为 1 的位数
+     */
+    public static int count(byte[] bitmap) {
+        if (bitmap == null || bitmap.length == 0) {
+            return 0;
+        }
+        return countRange(bitmap, 0, bitmap.length * 8 - 1);
+    }
+
+    /**
+     * 计算以 end 结尾、向偏移量减小方向连续为 1 的位数（用于连续打卡天数）
+     *
+     * @param bitmap 位图
+     * @param end    结束偏移量（包含）
+     * @return 连续为 1 的位数，end 位为 0 时返回 0
+     */
+    public static int trailingRun(byte[] bitmap, int end) {
+        if (bitmap == null || end < 0) {
+            return 0;
+        }
+
+        int w = end / WORD_BITS;
+        int bitsInWord = end % WORD_BITS + 1;
+        // 把 end 位移到最低位，高位补 0，低位方向为偏移量减小方向
+        long x = word(bitmap, w) >>> (WORD_BITS - bitsInWord);
+        int run = Long.numberOfTrailingZeros(~x);
+        if (run < bitsInWord) {
+            return run;
+        }
+
+        for (w--; w >= 0; w--) {
+            long current = word(bitmap, w);
+            if (current == -1L) {
+                run += WORD_BITS;
+                continue;
+            }
+            return run + Long.numberOfTrailingZeros(~current);
+        }
+        return run;
+    }
+
+    /**
+     * 计算 [from, to] 范围内最长连续为 1 的位数（闭区间）
+     *
+     * @param bitmap 位图
+     * @param from   起始偏移量
+     * @param to     结束偏移量
+     * @return 最长连续为 1 的位数
+     */
+    public static int longestRun(byte[] bitmap, int from, int to) {
+        if (bitmap == null || from > to) {
+            return 0;
+        }
+        from = Math.max(from, 0);
+        to = Math.min(to, bitmap.length * 8 - 1);
+        if (from > to) {
+            return 0;
+        }
+
+        int firstWord = from / WORD_BITS;
+        int lastWord = to / WORD_BITS;
+        int max = 0;
+        // 上一个字末尾（偏移量最大一端）延续过来的连续长度
+        int carry = 0;
+        for (int w = firstWord; w <= lastWord; w++) {
+            int lo = w == firstWord ? from % WORD_BITS : 0;
+            int hi = w == lastWord ? to % WORD_BITS : WORD_BITS - 1;
+            long x = word(bitmap, w) & rangeMask(lo, hi);
+
+            if (x == -1L) {
+                carry += WORD_BITS;
+                continue;
+            }
+
+            // 字首（偏移量最小一端）的连续位与上一个字末尾相连
+            max = Math.max(max, carry + Long.numberOfLeadingZeros(~x));
+            max = Math.max(max, longestRunInWord(x));
+            carry = Long.numberOfTrailingZeros(~x);
+        }
+        return Math.max(max, carry);
+    }
+
+    /**
+     * 单个字内最长连续为 1 的位数（每次迭代把所有连续段缩短 1 位）
+     */
+    private static int longestRunInWord(long x) {
+        int run = 0;
+        while (x != 0) {
+            x &= x << 1;
+            run++;
+        }
+        return run;
+    }
+
+    /**
+     * 字内偏移 [lo, hi] 对应的掩码（字内偏移 0 为最高位）
+     */
+    private static long rangeMask(int lo, int hi) {
+        long fromLo = -1L >>> lo;
+        long toHi = hi == WORD_BITS - 1 ? -1L : ~(-1L >>> (hi + 1));
+        return fromLo & toHi;
+    }
+
+    /**
+     * 按大端序读取第 w 个 64 位字，超出数组部分补 0
+     */
+    private static long word(byte[] bitmap, int w) {
+        int start = w * 8;
+        if (start + 8 <= bitmap.length) {
+            return ((long) (bitmap[start] & 0xFF) << 56)
+                    | ((long) (bitmap[start + 1] & 0xFF) << 48)
+                    | ((long) (bitmap[start + 2] & 0xFF) << 40)
+                    | ((long) (bitmap[start + 3] & 0xFF) << 32)
+                    | ((long) (bitmap[start + 4] & 0xFF) << 24)
+                    | ((long) (bitmap[start + 5] & 0xFF) << 16)
+                    | ((long) (bitmap[start + 6] & 0xFF) << 8)
+                    | ((long) (bitmap[start + 7] & 0xFF));
+        }
+
+        long value = 0L;
+        for (int i = 0; i < 8; i++) {
+            value <<= 8;
+            if (start + i < bitmap.length) {
+                value |= bitmap[start + i] & 0xFF;
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,45 @@
+package com.dingdong.common.util;
+
+import lombok.Getter;
+
+/**
+ * Token 解析结果（不可变，可在请求间共享）
+ */
+@Getter
+public class JwtPrincipal {
+
+    /** 用户ID */
+    private final Long userId;
+
+    /** 用户昵称（Refresh Token 中为 null） */
+    private final String nickname;
+
+    /** Token 类型: access / refresh */
+    private final String type;
+
+    /** 过期时间（毫秒时间戳） */
+    private final long expiresAt;
+
+    public JwtPrincipal(Long userId, String nickname, String type, long expiresAt) {
+        this.userId = userId;
+        this.nickname = nickname;
+        this.type = type;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * 是否为 Refresh Token
+     */
+    public boolean isRefresh() {
+        return "refresh".equals(type);
+    }
+
+    /**
+     * 是否已过期
+     *
+     * @param now 当前毫秒时间戳
+     */
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
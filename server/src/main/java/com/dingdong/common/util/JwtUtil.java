@@ -1,17 +1,25 @@
 package com.dingdong.common.util;
 
+import cn.hutool.crypto.digest.DigestUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Date;
 
 /**
  * JWT Token 工具类
+ * 签名密钥和解析器在启动时构建一次；请求认证走 {@link #authenticate(String)}，
+ * 每个 Token 只解析一次，验证通过的结果按 Token 摘要短时间缓存，重复请求不再做签名校验
  */
 @Component
 public class JwtUtil {
@@ -25,6 +33,31 @@ public class JwtUtil {
     @Value("${jwt.refresh-expiration:2592000000}") // Refresh Token 有效期，默认30天 (30 * 24 * 60 * 60 * 1000)
     private Long refreshExpiration;
 
+    @Value("${jwt.cache-seconds:60}") // 认证结果缓存时间（秒）
+    private Long cacheSeconds;
+
+    @Value("${jwt.cache-max-size:10000}") // 认证结果缓存最大条数
+    private Long cacheMaxSize;
+
+    private SecretKey key;
+
+    private JwtParser parser;
+
+    /**
+     * Token 摘要 -> 认证结果
+     */
+    private Cache<String, JwtPrincipal> principalCache;
+
+    @PostConstruct
+    public void init() {
+        key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(key).build();
+        principalCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheSeconds))
+                .build();
+    }
+
     /**
      * 生成 Access Token
      *
@@ -50,8 +83,6 @@ public class JwtUtil {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expireTime);
 
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-
         var builder = Jwts.builder()
                 .subject(String.valueOf(userId))
                 .claim("type", type)
@@ -67,63 +98,53 @@ public class JwtUtil {
     }
 
     /**
-     * 从 Token 中获取用户ID
+     * 认证请求 Token（优先读取缓存，未命中时解析并校验签名）
      *
      * @param token JWT Token
-     * @return 用户ID
+     * @return 认证结果，Token 无效或已过期时返回 null
      */
-    public Long getUserIdFromToken(String token) {
-        Claims claims = parseToken(token);
-        return Long.parseLong(claims.getSubject());
-    }
+    public JwtPrincipal authenticate(String token) {
+        String digest = DigestUtil.sha256Hex(token);
+        long now = System.currentTimeMillis();
+        JwtPrincipal principal = principalCache.getIfPresent(digest);
+        if (principal != null) {
+            if (!principal.isExpired(now)) {
+                return principal;
+            }
+            principalCache.invalidate(digest);
+            return null;
+        }
 
-    /**
-     * 从 Token 中获取用户昵称
-     *
-     * @param token JWT Token
-     * @return 用户昵称
-     */
-    public String getNicknameFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims.get("nickname", String.class);
+        principal = parsePrincipal(token);
+        if (principal != null) {
+            principalCache.put(digest, principal);
+        }
+        return principal;
     }
 
     /**
-     * 验证 Token 是否有效
+     * 解析并校验 Token（不使用缓存）
      *
      * @param token JWT Token
-     * @return 是否有效
-     */
-    public boolean validateToken(String token) {
-        try {
-            parseToken(token);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
-    /**
-     * 验证是否为 Refresh Token
+     * @return 解析结果，Token 无效或已过期时返回 null
      */
-    public boolean isRefreshToken(String token) {
+    public JwtPrincipal parsePrincipal(String token) {
+        Claims claims;
         try {
-            Claims claims = parseToken(token);
-            return "refresh".equals(claims.get("type", String.class));
+            claims = parseToken(token);
         } catch (Exception e) {
-            return false;
+            return null;
         }
+        return new JwtPrincipal(Long.parseLong(claims.getSubject()),
+                claims.get("nickname", String.class),
+                claims.get("type", String.class),
+                claims.getExpiration().getTime());
     }
 
     /**
      * 解析 Token
      */
     private Claims parseToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 }
@@ -6,9 +6,14 @@ import org.springframework.data.redis.connection.RedisStringCommands;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -93,6 +98,18 @@ public class RedisUtil {
         return redisTemplate.delete(keys);
     }
 
+    /**
+     * 执行 Lua 脚本（键和参数均按字符串序列化）
+     *
+     * @param script 脚本
+     * @param keys   键列表
+     * @param args   参数
+     * @return 脚本返回值
+     */
+    public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+        return stringRedisTemplate.execute(script, keys, args);
+    }
+
     // ========== String 操作 ==========
 
     /**
@@ -125,6 +142,29 @@ public class RedisUtil {
         }
     }
 
+    /**
+     * 批量设置字符串值（仅在 key 不存在时设置），单次管道提交
+     *
+     * @param keys    键集合
+     * @param value   值
+     * @param timeout 过期时间
+     * @param unit    时间单位
+     */
+    public void setIfAbsentBatch(Collection<String> keys, String value, long timeout, TimeUnit unit) {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        Expiration expiration = Expiration.from(timeout, unit);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.stringCommands().set(key.getBytes(StandardCharsets.UTF_8), valueBytes, expiration,
+                        RedisStringCommands.SetOption.SET_IF_ABSENT);
+            }
+            return null;
+        });
+    }
+
     /**
      * 获取值
      *
@@ -155,6 +195,58 @@ public class RedisUtil {
         return redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(key));
     }
 
+    /**
+     * 设置原始字节数组值 (用于序列化后的位图等二进制数据)
+     *
+     * @param key   键
+     * @param value 值
+     */
+    public void set(byte[] key, byte[] value) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> connection.stringCommands().set(key, value));
+    }
+
+    /**
+     * 批量获取原始字节数组值 (MGET，用于一次读取多个 Bitmap)
+     *
+     * @param keys 键列表
+     * @return 值列表（与键顺序一致，不存在的键为 null）
+     */
+    public List<byte[]> mGet(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        byte[][] keyBytes = new byte[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            keyBytes[i] = keys.get(i).getBytes();
+        }
+        List<byte[]> values = redisTemplate
+                .execute((RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(keyBytes));
+        return values != null ? values : Collections.emptyList();
+    }
+
+    /**
+     * 获取原始字节数组的子串 (GETRANGE，用于只读取 Bitmap 的部分字节)
+     *
+     * @param key   键
+     * @param start 起始字节位置
+     * @param end   结束字节位置（包含）
+     * @return 值，超出长度的部分不返回
+     */
+    public byte[] getRange(String key, long start, long end) {
+        return redisTemplate.execute(
+                (RedisCallback<byte[]>) connection -> connection.stringCommands().getRange(key.getBytes(), start, end));
+    }
+
+    /**
+     * 管道批量执行命令，结果按原始字节返回（不经过值序列化器）
+     *
+     * @param action 管道内执行的命令
+     * @return 各命令结果（字节数组 / Long 等）
+     */
+    public List<Object> executePipelined(RedisCallback<?> action) {
+        return redisTemplate.executePipelined(action, RedisSerializer.byteArray());
+    }
+
     /**
      * 递增
      *
@@ -221,6 +313,26 @@ public class RedisUtil {
         redisTemplate.opsForHash().putAll(key, map);
     }
 
+    /**
+     * 批量设置 Hash 字段（仅在字段不存在时设置），单次管道提交
+     *
+     * @param key    键
+     * @param fields 字段 -> 值
+     */
+    public void hSetIfAbsentBatch(String key, Map<String, String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, String> entry : fields.entrySet()) {
+                connection.hashCommands().hSetNX(keyBytes, entry.getKey().getBytes(StandardCharsets.UTF_8),
+                        entry.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+    }
+
     /**
      * 删除 Hash 中的字段
      *
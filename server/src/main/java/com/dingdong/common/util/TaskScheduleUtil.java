@@ -0,0 +1,140 @@
+package com.dingdong.common.util;
+
+import com.dingdong.common.constant.RepeatType;
+import com.dingdong.entity.checkin.CheckInTask;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 任务时间计算工具类
+ * 统一计算任务在某天是否生效、当天目标时间以及下一次提醒/漏打卡触发时间
+ */
+public final class TaskScheduleUtil {
+
+    /** 提前提醒时间（分钟）：目标时间前30分钟通知被叮咚者 */
+    public static final int REMIND_ADVANCE_MINUTES = 30;
+
+    /** 打卡时限（分钟）：目标时间后30分钟仍未打卡视为漏打卡 */
+    public static final int CHECK_IN_LIMIT_MINUTES = 30;
+
+    /** 重复任务向后查找的最大天数（一周内必然命中） */
+    private static final int MAX_LOOKAHEAD_DAYS = 8;
+
+    private TaskScheduleUtil() {
+    }
+
+    /**
+     * 判断任务在指定日期是否生效
+     */
+    public static boolean isActiveOnDate(CheckInTask task, LocalDate date) {
+        LocalDateTime remindTime = task.getRemindTime();
+        if (remindTime == null) {
+            return false;
+        }
+
+        RepeatType repeatType = RepeatType.fromCode(task.getRepeatType());
+        if (repeatType == RepeatType.ONCE) {
+            return remindTime.toLocalDate().equals(date);
+        }
+        return repeatType.matchesDayOfWeek(date.getDayOfWeek().getValue());
+    }
+
+    /**
+     * 统计任务在 [start, end] 内生效的次数（按星期算术计算，不逐天遍历）
+     */
+    public static int countOccurrences(CheckInTask task, LocalDate start, LocalDate end) {
+        LocalDateTime remindTime = task.getRemindTime();
+        if (remindTime == null || start.isAfter(end)) {
+            return 0;
+        }
+
+        switch (RepeatType.fromCode(task.getRepeatType())) {
+            case DAILY:
+                return (int) (end.toEpochDay() - start.toEpochDay() + 1);
+            case WEEKDAYS:
+                return countDaysOfWeek(start, end, 1, 5);
+            case WEEKENDS:
+                return countDaysOfWeek(start, end, 6, 7);
+            case ONCE:
+            default:
+                LocalDate date = remindTime.toLocalDate();
+                return date.isBefore(start) || date.isAfter(end) ? 0 : 1;
+        }
+    }
+
+    /**
+     * 计算任务在指定日期的目标时间（不判断当天是否生效）
+     */
+    public static LocalDateTime targetTimeOn(CheckInTask task, LocalDate date) {
+        LocalDateTime remindTime = task.getRemindTime();
+        if (remindTime == null) {
+            return null;
+        }
+        if (RepeatType.ONCE.getCode().equals(task.getRepeatType())) {
+            return remindTime;
+        }
+        return LocalDateTime.of(date, remindTime.toLocalTime());
+    }
+
+    /**
+     * 统计 [start, end] 内星期几在 [fromDow, toDow] 范围内的天数
+     */
+    private static int countDaysOfWeek(LocalDate start, LocalDate end, int fromDow, int toDow) {
+        return (int) (daysOfWeekBefore(end.plusDays(1), fromDow, toDow) - daysOfWeekBefore(start, fromDow, toDow));
+    }
+
+    /**
+     * 1969-12-29（周一）至 date（不包含）之间星期几在 [fromDow, toDow] 范围内的天数
+     */
+    private static long daysOfWeekBefore(LocalDate date, int fromDow, int toDow) {
+        long days = date.toEpochDay() + 3; // 1970-01-01 为周四
+        long perWeek = toDow - fromDow + 1;
+        long dayInWeek = Math.floorMod(days, 7L); // 本周已过去的天数（0 为周一）
+        return Math.floorDiv(days, 7L) * perWeek + Math.min(Math.max(dayInWeek - (fromDow - 1), 0), perWeek);
+    }
+
+    /**
+     * 计算不早于 from 的下一次目标时间
+     *
+     * @return 目标时间，单次任务已过期时返回 null
+     */
+    public static LocalDateTime nextTargetTime(CheckInTask task, LocalDateTime from) {
+        LocalDateTime remindTime = task.getRemindTime();
+        if (remindTime == null) {
+            return null;
+        }
+
+        if (RepeatType.ONCE.getCode().equals(task.getRepeatType())) {
+            return remindTime.isBefore(from) ? null : remindTime;
+        }
+
+        LocalDate date = from.toLocalDate();
+        for (int i = 0; i < MAX_LOOKAHEAD_DAYS; i++) {
+            LocalDate candidate = date.plusDays(i);
+            if (isActiveOnDate(task, candidate)) {
+                LocalDateTime target = LocalDateTime.of(candidate, remindTime.toLocalTime());
+                if (!target.isBefore(from)) {
+                    return target;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 计算不早于 from 的下一次叮咚提醒触发时间（目标时间前30分钟）
+     */
+    public static LocalDateTime nextRemindTriggerTime(CheckInTask task, LocalDateTime from) {
+        LocalDateTime target = nextTargetTime(task, from.plusMinutes(REMIND_ADVANCE_MINUTES));
+        return target != null ? target.minusMinutes(REMIND_ADVANCE_MINUTES) : null;
+    }
+
+    /**
+     * 计算不早于 from 的下一次漏打卡检查触发时间（目标时间后30分钟）
+     */
+    public static LocalDateTime nextMissedTriggerTime(CheckInTask task, LocalDateTime from) {
+        LocalDateTime target = nextTargetTime(task, from.minusMinutes(CHECK_IN_LIMIT_MINUTES));
+        return target != null ? target.plusMinutes(CHECK_IN_LIMIT_MINUTES) : null;
+    }
+}
@@ -0,0 +1,20 @@
+package com.dingdong.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 管理后台配置属性
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dingdong.admin")
+public class AdminProperties {
+
+    /** 允许访问管理接口的用户ID */
+    private Set<Long> userIds = new HashSet<>();
+}
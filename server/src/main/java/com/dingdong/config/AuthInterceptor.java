@@ -2,6 +2,7 @@ package com.dingdong.config;
 
 import com.dingdong.common.ErrorCode;
 import com.dingdong.common.context.SystemContextHolder;
+import com.dingdong.common.util.JwtPrincipal;
 import com.dingdong.common.util.JwtUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
@@ -46,17 +47,16 @@ public class AuthInterceptor implements HandlerInterceptor {
             return false;
         }
 
-        if (!jwtUtil.validateToken(token)) {
+        // 只解析一次 Token，重复请求直接读取认证缓存；Refresh Token 只能用于刷新，不能访问接口
+        JwtPrincipal principal = jwtUtil.authenticate(token);
+        if (principal == null || principal.isRefresh()) {
             sendError(response, ErrorCode.UNAUTHORIZED);
             return false;
         }
 
-        // 获取用户ID并存入上下文
-        Long userId = jwtUtil.getUserIdFromToken(token);
-        SystemContextHolder.setUserId(userId);
-
-        String username = jwtUtil.getNicknameFromToken(token);
-        SystemContextHolder.setUsername(username);
+        // 用户ID和昵称存入上下文
+        SystemContextHolder.setUserId(principal.getUserId());
+        SystemContextHolder.setUsername(principal.getNickname());
 
         return true;
     }
@@ -0,0 +1,44 @@
+package com.dingdong.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 打卡位图配置属性
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dingdong.bitmap")
+public class CheckInBitmapProperties {
+
+    /** 是否启用位图批量写入（合并短时间内多次打卡的写入，一次管道提交） */
+    private boolean batchWriteEnabled = false;
+
+    /** 批量写入等待时间（毫秒），收到第一条写入后最多等待该时间再提交 */
+    private long batchLingerMillis = 5;
+
+    /** 单批最大写入数 */
+    private int batchMaxSize = 500;
+
+    /** 待写入队列容量，队列满时直接同步写入 */
+    private int queueCapacity = 10000;
+
+    /** 是否同时写入用户滚动位图（checkin:user:{userId}:days），迁移历史数据前需先开启 */
+    private boolean rollingWriteEnabled = false;
+
+    /** 用户维度的查询是否读取滚动位图（需迁移完成后开启，开启后同时写入滚动位图） */
+    private boolean rollingReadEnabled = false;
+
+    /** 滚动位图迁移每批处理的用户数 */
+    private int migrationBatchSize = 200;
+
+    /** 是否启用位图对账任务（以 check_in_log 为准修复年度位图） */
+    private boolean reconcileEnabled = true;
+
+    /** 对账每批处理的用户数 */
+    private int reconcileBatchSize = 100;
+
+    /** 对账批次间暂停时间（毫秒），限制对打卡链路的影响 */
+    private long reconcilePauseMillis = 200;
+}
@@ -0,0 +1,20 @@
+package com.dingdong.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 集群配置属性
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dingdong.cluster")
+public class ClusterProperties {
+
+    /** 部署的节点数，为 1 时无法获取分片信息（Redis 不可用）也可以按单节点处理全部任务 */
+    private int size = 1;
+
+    /** 无法获取分片信息时沿用上一次分片信息的最长时间（秒），超过后跳过本次任务 */
+    private int shardStaleSeconds = 120;
+}
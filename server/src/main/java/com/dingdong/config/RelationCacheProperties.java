@@ -0,0 +1,32 @@
+package com.dingdong.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户关系配置属性（关系缓存、关系边表核对）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dingdong.relation")
+public class RelationCacheProperties {
+
+    /** 是否启用本地近端缓存（Redis 之前的一级缓存） */
+    private boolean localCacheEnabled = true;
+
+    /** 本地缓存过期时间（秒），兜底丢失的失效通知 */
+    private long localCacheSeconds = 60;
+
+    /** 本地缓存最大用户数 */
+    private long localCacheMaxSize = 10000;
+
+    /** Redis 伙伴集合过期时间（小时） */
+    private long redisExpireHours = 24;
+
+    /** 是否启用关系边表核对任务（以 user_relation 为准修复 user_relation_edge） */
+    private boolean edgeCheckEnabled = true;
+
+    /** 边表核对每批扫描的关系数 */
+    private int edgeCheckBatchSize = 500;
+}
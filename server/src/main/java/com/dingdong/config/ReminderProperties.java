@@ -0,0 +1,23 @@
+package com.dingdong.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 叮咚提醒处理配置属性
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dingdong.reminder")
+public class ReminderProperties {
+
+    /** 处理通道数（按用户ID哈希分配），小于等于0时使用 CPU 核数 */
+    private int lanes = 0;
+
+    /** 每个通道的待处理队列容量 */
+    private int laneQueueCapacity = 20000;
+
+    /** 单次提醒任务等待处理完成的最长时间（秒），需小于执行周期60秒 */
+    private int tickTimeoutSeconds = 50;
+}
@@ -0,0 +1,56 @@
+package com.dingdong.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 订阅消息分发配置属性
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "dingdong.message")
+public class SubscribeMessageProperties {
+
+    /** 并发发送线程数 */
+    private int concurrency = 8;
+
+    /** 待发送队列容量，队列满时拒绝入队并记录失败 */
+    private int queueCapacity = 2000;
+
+    /** 每个模板默认每秒最大发送数（所有节点合计），0 表示不限流 */
+    private int defaultRatePerSecond = 20;
+
+    /** 按模板ID单独配置的每秒最大发送数（所有节点合计） */
+    private Map<String, Integer> templateRatePerSecond = new HashMap<>();
+
+    /** 因限流延迟发送的最长累计时间（秒），超过后返回限流失败，由发件箱退避重试 */
+    private int maxThrottleDelaySeconds = 60;
+
+    /** 停机时等待队列中消息发送完成的最长时间（秒） */
+    private int awaitTerminationSeconds = 30;
+
+    /** 发件箱投递配置 */
+    private Outbox outbox = new Outbox();
+
+    @Data
+    public static class Outbox {
+        /** 每次领取的最大消息数 */
+        private int batchSize = 200;
+        /** 最大发送次数（含首次），超过后标记为重试耗尽 */
+        private int maxAttempts = 6;
+        /** 首次重试间隔（秒），之后按 2 的幂次递增 */
+        private long initialBackoffSeconds = 30;
+        /** 最大重试间隔（秒） */
+        private long maxBackoffSeconds = 1800;
+        /** 领取后的租约时长（秒），超时未完成则允许重新领取 */
+        private long leaseSeconds = 600;
+        /** 已结束（已发送、永久失败、重试耗尽）的消息保留天数，之后由清理任务删除 */
+        private int retentionDays = 7;
+        /** 清理时每批删除的消息数 */
+        private int purgeBatchSize = 1000;
+    }
+}
@@ -42,4 +42,23 @@ public class ThreadPoolConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * 订阅消息发送线程池
+     * 有界队列，队列满时直接拒绝（由分发器记录为发送失败），避免阻塞定时任务线程
+     */
+    @Bean("messageExecutor")
+    public ThreadPoolTaskExecutor messageExecutor(SubscribeMessageProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getConcurrency());
+        executor.setMaxPoolSize(properties.getConcurrency());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("dingdong-msg-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(properties.getAwaitTerminationSeconds());
+        executor.initialize();
+        return executor;
+    }
 }
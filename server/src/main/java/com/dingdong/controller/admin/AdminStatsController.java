@@ -0,0 +1,87 @@
+package com.dingdong.controller.admin;
+
+import com.dingdong.common.ErrorCode;
+import com.dingdong.common.Result;
+import com.dingdong.common.context.SystemContextHolder;
+import com.dingdong.common.exception.ServiceException;
+import com.dingdong.config.AdminProperties;
+import com.dingdong.dto.analytics.DailyCheckInRateDTO;
+import com.dingdong.entity.user.SysUser;
+import com.dingdong.service.analytics.CheckInAnalyticsService;
+import com.dingdong.service.user.IUserRelationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 管理后台统计控制器
+ * 仅允许 dingdong.admin.user-ids 中配置的用户访问
+ */
+@RestController
+@RequestMapping("/admin/stats")
+@RequiredArgsConstructor
+public class AdminStatsController {
+
+    private final CheckInAnalyticsService checkInAnalyticsService;
+    private final IUserRelationService userRelationService;
+    private final AdminProperties adminProperties;
+
+    /**
+     * 全站每日打卡人数
+     */
+    @GetMapping("/daily-active")
+    public Result<List<DailyCheckInRateDTO>> dailyActive(@RequestParam(defaultValue = "30") Integer days) {
+        checkAdmin();
+        return Result.success(checkInAnalyticsService.dailyActiveUsers(normalizeDays(days)));
+    }
+
+    /**
+     * 指定天数内至少打卡一次的用户数
+     */
+    @GetMapping("/distinct-active")
+    public Result<Long> distinctActive(@RequestParam(defaultValue = "30") Integer days) {
+        checkAdmin();
+        return Result.success(checkInAnalyticsService.distinctActiveUsers(normalizeDays(days)));
+    }
+
+    /**
+     * 某监督者的所有伙伴每天的打卡比例
+     */
+    @GetMapping("/partners")
+    public Result<List<DailyCheckInRateDTO>> partners(@RequestParam Long supervisorId,
+            @RequestParam(defaultValue = "90") Integer days) {
+        checkAdmin();
+        List<Long> partnerIds = userRelationService.getSupervisedListBySupervisorId(supervisorId).stream()
+                .map(SysUser::getId)
+                .collect(Collectors.toList());
+        return Result.success(checkInAnalyticsService.cohortCheckInRates(partnerIds, normalizeDays(days)));
+    }
+
+    /**
+     * 任务每天是否有打卡
+     */
+    @GetMapping("/task")
+    public Result<List<DailyCheckInRateDTO>> task(@RequestParam Long taskId,
+            @RequestParam(defaultValue = "90") Integer days) {
+        checkAdmin();
+        return Result.success(checkInAnalyticsService.taskDailyCheckIns(taskId, normalizeDays(days)));
+    }
+
+    private void checkAdmin() {
+        if (!adminProperties.getUserIds().contains(SystemContextHolder.getUserId())) {
+            throw new ServiceException(ErrorCode.FORBIDDEN.getMsg(), ErrorCode.FORBIDDEN.getCode());
+        }
+    }
+
+    private int normalizeDays(Integer days) {
+        if (days == null || days <= 0) {
+            return 1;
+        }
+        return Math.min(days, CheckInAnalyticsService.MAX_QUERY_DAYS);
+    }
+}
@@ -1,12 +1,14 @@
 package com.dingdong.controller.auth;
 
 import com.dingdong.common.Result;
+import com.dingdong.common.util.JwtPrincipal;
 import com.dingdong.common.util.JwtUtil;
 import com.dingdong.dto.auth.LoginDTO;
 import com.dingdong.dto.auth.LoginResultDTO;
 import com.dingdong.dto.auth.TokenRefreshDTO;
 import com.dingdong.entity.user.SysUser;
 import com.dingdong.service.user.ISysUserService;
+import com.dingdong.service.user.UserProfileCache;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -29,6 +31,7 @@ import java.util.Map;
 public class AuthController {
 
     private final ISysUserService sysUserService;
+    private final UserProfileCache userProfileCache;
     private final JwtUtil jwtUtil;
 
     /**
@@ -53,12 +56,13 @@ public class AuthController {
         String refreshToken = refreshDTO.getRefreshToken();
 
         // 验证 Refresh Token 是否有效且类型正确
-        if (!jwtUtil.validateToken(refreshToken) || !jwtUtil.isRefreshToken(refreshToken)) {
+        JwtPrincipal principal = jwtUtil.parsePrincipal(refreshToken);
+        if (principal == null || !principal.isRefresh()) {
             return Result.error(401, "Invalid Refresh Token");
         }
 
-        Long userId = jwtUtil.getUserIdFromToken(refreshToken);
-        SysUser user = sysUserService.getById(userId);
+        Long userId = principal.getUserId();
+        SysUser user = userProfileCache.get(userId);
         if (user == null) {
             return Result.error(401, "User not found");
         }
@@ -1,16 +1,12 @@
 package com.dingdong.controller.checkin;
 
-import cn.hutool.core.bean.BeanUtil;
-import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.dingdong.common.Result;
-import com.dingdong.common.constant.TaskEnabled;
 import com.dingdong.common.context.SystemContextHolder;
 import com.dingdong.dto.checkin.DailyTaskStatusDTO;
 import com.dingdong.dto.checkin.TaskDTO;
 import com.dingdong.dto.checkin.TaskUpdateDTO;
 import com.dingdong.entity.checkin.CheckInTask;
 import com.dingdong.service.checkin.ICheckInTaskService;
-import com.dingdong.service.user.ISysUserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,6 +16,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.dingdong.entity.user.SysUser;
+import com.dingdong.service.user.UserProfileCache;
 import com.dingdong.vo.checkin.DailyTaskStatusVO;
 import com.dingdong.vo.checkin.TaskDetailVO;
 
@@ -32,7 +29,7 @@ import com.dingdong.vo.checkin.TaskDetailVO;
 public class TaskController {
 
     private final ICheckInTaskService taskService;
-    private final ISysUserService sysUserService;
+    private final UserProfileCache userProfileCache;
 
     /**
      * 创建新任务
@@ -112,13 +109,13 @@ public class TaskController {
 
         // 获取任务目标用户名称
         if (task.getUserId() != null) {
-            SysUser user = sysUserService.getById(task.getUserId());
+            SysUser user = userProfileCache.get(task.getUserId());
             vo.setUserName(user != null ? user.getNickname() : "未知用户");
         }
 
         // 获取创建者信息
         if (task.getCreatorId() != null) {
-            SysUser creator = sysUserService.getById(task.getCreatorId());
+            SysUser creator = userProfileCache.get(task.getCreatorId());
             if (creator != null) {
                 vo.setCreatorId(creator.getId());
                 vo.setCreatorName(creator.getNickname());
@@ -139,7 +136,7 @@ public class TaskController {
             return Result.error("任务不存在");
         }
 
-        return Result.success(taskService.updateById(BeanUtil.toBean(updateDTO, CheckInTask.class)));
+        return Result.success(taskService.updateTask(updateDTO));
     }
 
     /**
@@ -148,12 +145,6 @@ public class TaskController {
     @PostMapping("/delete")
     public Result<Boolean> deleteTask(@RequestBody Map<String, Object> params) {
         Long taskId = Long.valueOf(params.get("taskId").toString());
-
-        boolean success = taskService.update(
-                new LambdaUpdateWrapper<CheckInTask>()
-                        .eq(CheckInTask::getId, taskId)
-                        .set(CheckInTask::getStatus, TaskEnabled.DISABLED.getCode()));
-
-        return Result.success(success);
+        return Result.success(taskService.disableTask(taskId));
     }
 }
@@ -7,6 +7,7 @@ import com.dingdong.common.context.SystemContextHolder;
 import com.dingdong.dto.user.UserProfileDTO;
 import com.dingdong.entity.user.SysUser;
 import com.dingdong.service.user.ISysUserService;
+import com.dingdong.service.user.UserProfileCache;
 import com.dingdong.vo.user.UserVO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
@@ -20,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final ISysUserService sysUserService;
+    private final UserProfileCache userProfileCache;
 
     /**
      * 更新用户资料
@@ -39,6 +41,8 @@ public class UserController {
         user.setNickname(userDto.getNickname());
         user.setAvatar(userDto.getAvatar());
         sysUserService.updateById(user);
+        // 失效所有节点的资料缓存
+        userProfileCache.invalidate(userId);
 
         return Result.success();
     }
@@ -49,7 +53,7 @@ public class UserController {
     @GetMapping("/info")
     public Result<UserVO> getUserInfo() {
         Long userId = SystemContextHolder.getUserId();
-        SysUser user = sysUserService.getById(userId);
+        SysUser user = userProfileCache.get(userId);
         if (user == null) {
             return Result.error("用户不存在");
         }
@@ -62,7 +66,7 @@ public class UserController {
      */
     @GetMapping("/info/{userId}")
     public Result<UserVO> getUserInfoById(@PathVariable Long userId) {
-        SysUser user = sysUserService.getById(userId);
+        SysUser user = userProfileCache.get(userId);
         if (user == null) {
             return Result.error("用户不存在");
         }
@@ -82,9 +82,7 @@ public class UserFeatureController {
      */
     @GetMapping("/level/all")
     public Result<List<UserLevelConfig>> getAllLevelConfigs() {
-        return Result.success(levelConfigService.lambdaQuery()
-                .orderByAsc(UserLevelConfig::getSortOrder)
-                .list());
+        return Result.success(levelConfigService.listAllLevels());
     }
 
     // ==================== 数据统计 ====================
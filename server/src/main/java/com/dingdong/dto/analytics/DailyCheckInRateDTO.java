@@ -0,0 +1,27 @@
+package com.dingdong.dto.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 每日打卡人数统计 DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyCheckInRateDTO {
+    /** 日期 */
+    private LocalDate date;
+
+    /** 当天打卡人数 */
+    private Long checkedInCount;
+
+    /** 统计范围内的总人数（全站统计时为空） */
+    private Long totalCount;
+
+    /** 打卡比例（0-1，全站统计时为空） */
+    private Double rate;
+}
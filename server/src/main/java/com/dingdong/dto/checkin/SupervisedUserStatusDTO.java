@@ -21,4 +21,7 @@ public class SupervisedUserStatusDTO {
 
     /** 今日整体状态: 0-进行中(Pending), 1-已完成(Completed), 3-已错过(Missed) */
     private Integer todayStatus;
+
+    /** 连续打卡天数 */
+    private Integer streakDays;
 }
@@ -45,4 +45,13 @@ public class CheckInTask extends BaseEntity {
 
     /** 状态: 1-启用, 0-停用 */
     private Integer status;
+
+    /** 停用时间，启用中为空 */
+    private LocalDateTime disableTime;
+
+    /** 下一次叮咚提醒触发时间（目标时间前30分钟），无后续触发时为空 */
+    private LocalDateTime nextRemindAt;
+
+    /** 下一次漏打卡检查触发时间（目标时间后30分钟），无后续触发时为空 */
+    private LocalDateTime nextMissedAt;
 }
@@ -0,0 +1,75 @@
+package com.dingdong.entity.notification;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 通知发件箱实体类
+ * 待发送的订阅消息先落库，再由投递任务领取发送，失败按指数退避重试
+ */
+@Data
+@TableName("notification_outbox")
+public class NotificationOutbox {
+
+    /** 主键ID */
+    @TableId(type = IdType.ASSIGN_ID)
+    private Long id;
+
+    /** 任务ID */
+    private Long taskId;
+
+    /** 通知日期 */
+    private LocalDate notifyDate;
+
+    /**
+     * 通知类型
+     * 
+     * @see com.dingdong.common.constant.NotifyType
+     */
+    private Integer notifyType;
+
+    /** 接收者用户ID */
+    private Long userId;
+
+    /** 接收者openid */
+    private String toOpenid;
+
+    /** 订阅消息模板ID */
+    private String templateId;
+
+    /** 点击跳转的小程序页面路径 */
+    private String page;
+
+    /** 模板数据（JSON 数组: [{"name":"thing1","value":"..."}]） */
+    private String data;
+
+    /**
+     * 状态
+     * 
+     * @see com.dingdong.common.constant.OutboxStatus
+     */
+    private Integer status;
+
+    /** 已尝试发送次数 */
+    private Integer attempts;
+
+    /** 下一次可发送时间（发送中状态下为租约到期时间） */
+    private LocalDateTime nextAttemptAt;
+
+    /** 最近一次失败的错误码 */
+    private Integer lastErrCode;
+
+    /** 最近一次失败原因 */
+    private String lastError;
+
+    /** 创建时间 */
+    private LocalDateTime createTime;
+
+    /** 更新时间 */
+    private LocalDateTime updateTime;
+}
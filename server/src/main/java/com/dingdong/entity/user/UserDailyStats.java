@@ -0,0 +1,41 @@
+package com.dingdong.entity.user;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 用户每日打卡统计实体类
+ * 主键为 (user_id, stat_date)，通过 UserDailyStatsMapper 中的 upsert 语句写入
+ */
+@Data
+@TableName("user_daily_stats")
+public class UserDailyStats {
+
+    /** 用户ID */
+    private Long userId;
+
+    /** 统计日期 */
+    private LocalDate statDate;
+
+    /** 正常打卡次数 */
+    private Integer normalCount;
+
+    /** 补打卡次数 */
+    private Integer reissueCount;
+
+    /** 创建时间 */
+    private LocalDateTime createTime;
+
+    /** 更新时间 */
+    private LocalDateTime updateTime;
+
+    /**
+     * 已完成打卡次数（正常 + 补打卡）
+     */
+    public int getCompletedCount() {
+        return (normalCount != null ? normalCount : 0) + (reissueCount != null ? reissueCount : 0);
+    }
+}
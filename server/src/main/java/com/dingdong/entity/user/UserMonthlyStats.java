@@ -0,0 +1,34 @@
+package com.dingdong.entity.user;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 用户每月打卡统计实体类
+ * 主键为 (user_id, stat_month)，由每日汇总重算
+ */
+@Data
+@TableName("user_monthly_stats")
+public class UserMonthlyStats {
+
+    /** 用户ID */
+    private Long userId;
+
+    /** 统计月份（当月1日） */
+    private LocalDate statMonth;
+
+    /** 正常打卡次数 */
+    private Integer normalCount;
+
+    /** 补打卡次数 */
+    private Integer reissueCount;
+
+    /** 创建时间 */
+    private LocalDateTime createTime;
+
+    /** 更新时间 */
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,33 @@
+package com.dingdong.entity.user;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户关系边实体类
+ * 每条 user_relation 对应双方各一行，主键为 (user_id, other_user_id, relation_id)，通过 UserRelationEdgeMapper 中的 upsert 语句写入
+ */
+@Data
+@TableName("user_relation_edge")
+public class UserRelationEdge {
+
+    /** 用户ID */
+    private Long userId;
+
+    /** 对方用户ID */
+    private Long otherUserId;
+
+    /** 关系ID */
+    private Long relationId;
+
+    /** 关系状态 */
+    private Integer status;
+
+    /** 创建时间 */
+    private LocalDateTime createTime;
+
+    /** 更新时间 */
+    private LocalDateTime updateTime;
+}
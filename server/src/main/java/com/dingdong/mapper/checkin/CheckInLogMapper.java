@@ -2,6 +2,30 @@ package com.dingdong.mapper.checkin;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.dingdong.entity.checkin.CheckInLog;
+import com.dingdong.entity.user.UserDailyStats;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface CheckInLogMapper extends BaseMapper<CheckInLog> {
+
+    /**
+     * 按用户统计指定时间段内的正常打卡、补打卡次数（走 idx_check_time 范围扫描）
+     *
+     * @param statDate  统计日期（填充到结果中）
+     * @param startTime 开始时间（包含）
+     * @param endTime   结束时间（不包含）
+     * @return 每个用户一行
+     */
+    @Select("SELECT user_id, #{statDate} AS stat_date, "
+            + "SUM(CASE WHEN status = 1 THEN 1 ELSE 0 END) AS normal_count, "
+            + "SUM(CASE WHEN status = 2 THEN 1 ELSE 0 END) AS reissue_count "
+            + "FROM check_in_log "
+            + "WHERE deleted = 0 AND check_time >= #{startTime} AND check_time < #{endTime} "
+            + "GROUP BY user_id")
+    List<UserDailyStats> countByUser(@Param("statDate") LocalDate statDate,
+            @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
 }
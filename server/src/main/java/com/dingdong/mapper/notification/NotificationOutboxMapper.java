@@ -0,0 +1,32 @@
+package com.dingdong.mapper.notification;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dingdong.entity.notification.NotificationOutbox;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 通知发件箱 Mapper 接口
+ */
+@Mapper
+public interface NotificationOutboxMapper extends BaseMapper<NotificationOutbox> {
+
+    /**
+     * 锁定一批到期待发送的消息（需在事务内调用）
+     * 包含租约已过期的发送中消息（投递节点宕机后重新领取）
+     * SKIP LOCKED 跳过其他节点已锁定的行，多实例并发领取互不阻塞
+     *
+     * @param now   当前时间
+     * @param limit 最大条数
+     * @return 已加锁的消息
+     */
+    @Select("SELECT * FROM notification_outbox "
+            + "WHERE status IN (0, 1) AND next_attempt_at <= #{now} "
+            + "ORDER BY next_attempt_at LIMIT #{limit} "
+            + "FOR UPDATE SKIP LOCKED")
+    List<NotificationOutbox> selectDueForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,62 @@
+package com.dingdong.mapper.user;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dingdong.entity.user.UserDailyStats;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+
+/**
+ * 用户每日打卡统计 Mapper 接口
+ */
+@Mapper
+public interface UserDailyStatsMapper extends BaseMapper<UserDailyStats> {
+
+    /**
+     * 增量累加（当天行不存在时插入）
+     *
+     * @param userId       用户ID
+     * @param statDate     统计日期
+     * @param normalDelta  正常打卡增量
+     * @param reissueDelta 补打卡增量
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO user_daily_stats "
+            + "(user_id, stat_date, normal_count, reissue_count, create_time, update_time) "
+            + "VALUES (#{userId}, #{statDate}, #{normalDelta}, #{reissueDelta}, NOW(), NOW()) "
+            + "ON DUPLICATE KEY UPDATE normal_count = normal_count + VALUES(normal_count), "
+            + "reissue_count = reissue_count + VALUES(reissue_count), update_time = NOW()")
+    int increment(@Param("userId") Long userId, @Param("statDate") LocalDate statDate,
+            @Param("normalDelta") int normalDelta, @Param("reissueDelta") int reissueDelta);
+
+    /**
+     * 覆盖打卡次数（按 check_in_log 重算）
+     *
+     * @param stats 统计行
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO user_daily_stats "
+            + "(user_id, stat_date, normal_count, reissue_count, create_time, update_time) "
+            + "VALUES (#{userId}, #{statDate}, #{normalCount}, #{reissueCount}, NOW(), NOW()) "
+            + "ON DUPLICATE KEY UPDATE normal_count = VALUES(normal_count), "
+            + "reissue_count = VALUES(reissue_count), update_time = NOW()")
+    int upsertCheckInCounts(UserDailyStats stats);
+
+    /**
+     * 汇总用户指定日期范围内的次数（最多一个月的行，走主键范围扫描）
+     *
+     * @param userId    用户ID
+     * @param startDate 开始日期
+     * @param endDate   结束日期（包含）
+     * @return 汇总结果（不含用户ID和日期）
+     */
+    @Select("SELECT COALESCE(SUM(normal_count), 0) AS normal_count, "
+            + "COALESCE(SUM(reissue_count), 0) AS reissue_count "
+            + "FROM user_daily_stats "
+            + "WHERE user_id = #{userId} AND stat_date >= #{startDate} AND stat_date <= #{endDate}")
+    UserDailyStats sumRange(@Param("userId") Long userId, @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+}
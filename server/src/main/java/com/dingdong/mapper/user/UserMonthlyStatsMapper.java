@@ -0,0 +1,46 @@
+package com.dingdong.mapper.user;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dingdong.entity.user.UserDailyStats;
+import com.dingdong.entity.user.UserMonthlyStats;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+
+/**
+ * 用户每月打卡统计 Mapper 接口
+ */
+@Mapper
+public interface UserMonthlyStatsMapper extends BaseMapper<UserMonthlyStats> {
+
+    /**
+     * 由每日汇总重算指定月份所有用户的月汇总
+     *
+     * @param month     月份（当月1日）
+     * @param nextMonth 下月1日
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO user_monthly_stats "
+            + "(user_id, stat_month, normal_count, reissue_count, create_time, update_time) "
+            + "SELECT user_id, #{month}, SUM(normal_count), SUM(reissue_count), NOW(), NOW() "
+            + "FROM user_daily_stats WHERE stat_date >= #{month} AND stat_date < #{nextMonth} "
+            + "GROUP BY user_id "
+            + "ON DUPLICATE KEY UPDATE normal_count = VALUES(normal_count), "
+            + "reissue_count = VALUES(reissue_count), update_time = NOW()")
+    int rollup(@Param("month") LocalDate month, @Param("nextMonth") LocalDate nextMonth);
+
+    /**
+     * 汇总用户指定月份之前的所有月份
+     *
+     * @param userId 用户ID
+     * @param month  月份（当月1日，不包含）
+     * @return 汇总结果
+     */
+    @Select("SELECT COALESCE(SUM(normal_count), 0) AS normal_count, "
+            + "COALESCE(SUM(reissue_count), 0) AS reissue_count "
+            + "FROM user_monthly_stats WHERE user_id = #{userId} AND stat_month < #{month}")
+    UserDailyStats sumBefore(@Param("userId") Long userId, @Param("month") LocalDate month);
+}
@@ -0,0 +1,90 @@
+package com.dingdong.mapper.user;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dingdong.entity.user.UserRelation;
+import com.dingdong.entity.user.UserRelationEdge;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 用户关系边 Mapper 接口
+ */
+@Mapper
+public interface UserRelationEdgeMapper extends BaseMapper<UserRelationEdge> {
+
+    /**
+     * 写入关系的双向两行（已存在时更新状态）
+     *
+     * @param relation 关系（需包含 id、initiatorId、partnerId、status）
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO user_relation_edge "
+            + "(user_id, other_user_id, relation_id, status, create_time, update_time) VALUES "
+            + "(#{initiatorId}, #{partnerId}, #{id}, #{status}, NOW(), NOW()), "
+            + "(#{partnerId}, #{initiatorId}, #{id}, #{status}, NOW(), NOW()) "
+            + "ON DUPLICATE KEY UPDATE status = VALUES(status), update_time = NOW()")
+    int upsertPair(UserRelation relation);
+
+    /**
+     * 按 user_relation 当前数据重写关系的双向两行（核对修复使用，读取与写入在同一语句内完成）
+     * 任一方用户ID为空的关系不写入（边表用户ID非空）
+     *
+     * @param relationId 关系ID
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO user_relation_edge "
+            + "(user_id, other_user_id, relation_id, status, create_time, update_time) "
+            + "SELECT initiator_id, partner_id, id, IFNULL(status, 0), NOW(), NOW() "
+            + "FROM user_relation WHERE id = #{relationId} AND deleted = 0 "
+            + "AND initiator_id IS NOT NULL AND partner_id IS NOT NULL "
+            + "UNION ALL "
+            + "SELECT partner_id, initiator_id, id, IFNULL(status, 0), NOW(), NOW() "
+            + "FROM user_relation WHERE id = #{relationId} AND deleted = 0 "
+            + "AND initiator_id IS NOT NULL AND partner_id IS NOT NULL "
+            + "ON DUPLICATE KEY UPDATE status = VALUES(status), update_time = NOW()")
+    int syncFromRelation(@Param("relationId") Long relationId);
+
+    /**
+     * 查询用户指定状态关系的对方用户ID（主键范围扫描）
+     *
+     * @param userId 用户ID
+     * @param status 关系状态
+     * @return 对方用户ID列表
+     */
+    @Select("SELECT other_user_id FROM user_relation_edge WHERE user_id = #{userId} AND status = #{status}")
+    List<Long> selectOtherUserIds(@Param("userId") Long userId, @Param("status") Integer status);
+
+    /**
+     * 查询用户参与的关系ID（主键范围扫描）
+     *
+     * @param userId 用户ID
+     * @return 关系ID列表
+     */
+    @Select("SELECT relation_id FROM user_relation_edge WHERE user_id = #{userId}")
+    List<Long> selectRelationIds(@Param("userId") Long userId);
+
+    /**
+     * 查询用户指定状态关系的关系ID（主键范围扫描）
+     *
+     * @param userId 用户ID
+     * @param status 关系状态
+     * @return 关系ID列表
+     */
+    @Select("SELECT relation_id FROM user_relation_edge WHERE user_id = #{userId} AND status = #{status}")
+    List<Long> selectRelationIdsByStatus(@Param("userId") Long userId, @Param("status") Integer status);
+
+    /**
+     * 按关系ID升序分批读取边表中的关系ID（核对孤立的边）
+     *
+     * @param lastRelationId 上一批最后一个关系ID
+     * @param limit          每批数量
+     * @return 关系ID列表（去重、升序）
+     */
+    @Select("SELECT DISTINCT relation_id FROM user_relation_edge WHERE relation_id > #{lastRelationId} "
+            + "ORDER BY relation_id LIMIT #{limit}")
+    List<Long> selectRelationIdsAfter(@Param("lastRelationId") Long lastRelationId, @Param("limit") int limit);
+}
@@ -0,0 +1,275 @@
+package com.dingdong.service.analytics;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.dingdong.common.util.RedisUtil;
+import com.dingdong.dto.analytics.DailyCheckInRateDTO;
+import com.dingdong.entity.checkin.CheckInLog;
+import com.dingdong.mapper.checkin.CheckInLogMapper;
+import com.dingdong.service.checkin.CheckInBitmapService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打卡用户集合统计服务
+ * 按天维护打卡用户ID集合（Roaring Bitmap），通过 AND/OR/基数运算回答统计问题，不扫描 check_in_log
+ *
+ * Key 设计:
+ * - 当天打卡用户: dingdong:analytics:active:{yyyyMMdd}（Set，打卡时 SADD，保留3天）
+ * - 历史每日打卡用户: dingdong:analytics:daily:{yyyyMMdd}（序列化的 Roaring64NavigableMap）
+ *
+ * 每天凌晨由 {@link com.dingdong.task.CheckInAnalyticsTask} 把前一天的 Set 压缩为 Roaring Bitmap；
+ * 历史数据不再变化，读取后缓存在本地
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CheckInAnalyticsService {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisUtil redisUtil;
+    private final CheckInLogMapper checkInLogMapper;
+    private final CheckInBitmapService checkInBitmapService;
+
+    private static final String ACTIVE_KEY_PREFIX = "dingdong:analytics:active:";
+    private static final String DAILY_KEY_PREFIX = "dingdong:analytics:daily:";
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * 当天打卡用户集合的保留天数
+     */
+    private static final long ACTIVE_EXPIRE_DAYS = 3;
+
+    /**
+     * 本地缓存的历史天数
+     */
+    private static final int LOCAL_CACHE_DAYS = 400;
+
+    /**
+     * 单次查询最多统计的天数
+     */
+    public static final int MAX_QUERY_DAYS = 366;
+
+    /**
+     * 历史每日位图本地缓存（按访问顺序淘汰）
+     */
+    private final Map<LocalDate, Roaring64NavigableMap> dailyCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<LocalDate, Roaring64NavigableMap> eldest) {
+                    return size() > LOCAL_CACHE_DAYS;
+                }
+            });
+
+    /**
+     * 记录用户当天已打卡
+     *
+     * @param userId 用户ID
+     * @param date   打卡日期
+     */
+    public void recordCheckIn(Long userId, LocalDate date) {
+        String key = ACTIVE_KEY_PREFIX + date.format(DATE_FORMATTER);
+        stringRedisTemplate.opsForSet().add(key, String.valueOf(userId));
+        stringRedisTemplate.expire(key, ACTIVE_EXPIRE_DAYS, TimeUnit.DAYS);
+    }
+
+    /**
+     * 全站每日打卡人数
+     *
+     * @param days 最近天数（包含今天）
+     * @return 每天的打卡人数（按日期升序）
+     */
+    public List<DailyCheckInRateDTO> dailyActiveUsers(int days) {
+        List<DailyCheckInRateDTO> result = new ArrayList<>(days);
+        LocalDate today = LocalDate.now();
+        for (int i = days - 1; i >= 0; i--) {
+            LocalDate date = today.minusDays(i);
+            result.add(new DailyCheckInRateDTO(date, getDailyUsers(date).getLongCardinality(), null, null));
+        }
+        return result;
+    }
+
+    /**
+     * 指定用户集合每天的打卡比例（如某监督者的所有伙伴）
+     *
+     * @param userIds 用户集合
+     * @param days    最近天数（包含今天）
+     * @return 每天的打卡人数和比例（按日期升序）
+     */
+    public List<DailyCheckInRateDTO> cohortCheckInRates(Collection<Long> userIds, int days) {
+        Roaring64NavigableMap cohort = new Roaring64NavigableMap();
+        userIds.forEach(cohort::addLong);
+        long total = cohort.getLongCardinality();
+
+        List<DailyCheckInRateDTO> result = new ArrayList<>(days);
+        LocalDate today = LocalDate.now();
+        for (int i = days - 1; i >= 0; i--) {
+            LocalDate date = today.minusDays(i);
+            long checkedIn = 0;
+            if (total > 0) {
+                Roaring64NavigableMap intersection = cohort.clone();
+                intersection.and(getDailyUsers(date));
+                checkedIn = intersection.getLongCardinality();
+            }
+            result.add(new DailyCheckInRateDTO(date, checkedIn, total, total > 0 ? (double) checkedIn / total : 0.0));
+        }
+        return result;
+    }
+
+    /**
+     * 指定时间段内至少打卡一次的用户数（多天 OR 后取基数）
+     *
+     * @param days 最近天数（包含今天）
+     * @return 去重后的打卡人数
+     */
+    public long distinctActiveUsers(int days) {
+        Roaring64NavigableMap union = new Roaring64NavigableMap();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < days; i++) {
+            union.or(getDailyUsers(today.minusDays(i)));
+        }
+        return union.getLongCardinality();
+    }
+
+    /**
+     * 任务最近每天是否有打卡（读取任务年度位图）
+     *
+     * @param taskId 任务ID
+     * @param days   最近天数（包含今天）
+     * @return 每天的打卡人数（0 或 1，按日期升序）
+     */
+    public List<DailyCheckInRateDTO> taskDailyCheckIns(Long taskId, int days) {
+        List<DailyCheckInRateDTO> result = new ArrayList<>(days);
+        Map<Integer, byte[]> bitmaps = new HashMap<>();
+        LocalDate today = LocalDate.now();
+        for (int i = days - 1; i >= 0; i--) {
+            LocalDate date = today.minusDays(i);
+            byte[] bitmap = bitmaps.computeIfAbsent(date.getYear(),
+                    year -> checkInBitmapService.getTaskYearBitmap(taskId, year));
+            long checkedIn = checkInBitmapService.isCheckedIn(bitmap, date) ? 1 : 0;
+            result.add(new DailyCheckInRateDTO(date, checkedIn, 1L, (double) checkedIn));
+        }
+        return result;
+    }
+
+    /**
+     * 把指定日期的打卡用户压缩为 Roaring Bitmap 并持久化到 Redis
+     * 当天的打卡用户 Set 人数与 check_in_log 当天去重用户数一致时直接使用，
+     * 否则（Set 已过期、缺失或有写入丢失）从 check_in_log 重建
+     *
+     * @param date 日期（需为已结束的日期）
+     * @return 当天打卡人数
+     */
+    public long compact(LocalDate date) {
+        Roaring64NavigableMap users = new Roaring64NavigableMap();
+        Set<String> members = stringRedisTemplate.opsForSet().members(ACTIVE_KEY_PREFIX + date.format(DATE_FORMATTER));
+        long expected = countFromDatabase(date);
+        if (members != null && members.size() == expected) {
+            members.forEach(member -> users.addLong(Long.parseLong(member)));
+        } else {
+            if (members != null && !members.isEmpty()) {
+                log.warn("打卡用户 Set 与打卡记录不一致，从打卡记录重建: date={}, set={}, expected={}",
+                        date, members.size(), expected);
+            }
+            loadFromDatabase(date).forEach(users::addLong);
+        }
+
+        users.runOptimize();
+        redisUtil.set((DAILY_KEY_PREFIX + date.format(DATE_FORMATTER)).getBytes(), serialize(users));
+        dailyCache.put(date, users);
+        return users.getLongCardinality();
+    }
+
+    /**
+     * 指定日期的打卡用户位图是否已生成
+     *
+     * @param date 日期
+     * @return 是否已生成
+     */
+    public boolean isCompacted(LocalDate date) {
+        return Boolean.TRUE.equals(redisUtil.hasKey(DAILY_KEY_PREFIX + date.format(DATE_FORMATTER)));
+    }
+
+    /**
+     * 获取指定日期的打卡用户集合
+     * 今天读取实时 Set，历史日期读取压缩后的位图（尚未压缩时读取 Set）
+     */
+    private Roaring64NavigableMap getDailyUsers(LocalDate date) {
+        if (date.isBefore(LocalDate.now())) {
+            Roaring64NavigableMap cached = dailyCache.get(date);
+            if (cached != null) {
+                return cached;
+            }
+            byte[] bytes = redisUtil.get((DAILY_KEY_PREFIX + date.format(DATE_FORMATTER)).getBytes());
+            if (bytes != null) {
+                Roaring64NavigableMap users = deserialize(bytes);
+                dailyCache.put(date, users);
+                return users;
+            }
+        }
+
+        Roaring64NavigableMap users = new Roaring64NavigableMap();
+        Set<String> members = stringRedisTemplate.opsForSet().members(ACTIVE_KEY_PREFIX + date.format(DATE_FORMATTER));
+        if (members != null) {
+            members.forEach(member -> users.addLong(Long.parseLong(member)));
+        }
+        return users;
+    }
+
+    private long countFromDatabase(LocalDate date) {
+        List<Object> counts = checkInLogMapper.selectObjs(new QueryWrapper<CheckInLog>()
+                .select("COUNT(DISTINCT user_id)")
+                .ge("check_time", date.atStartOfDay())
+                .lt("check_time", date.plusDays(1).atStartOfDay()));
+        return counts.isEmpty() || counts.get(0) == null ? 0 : ((Number) counts.get(0)).longValue();
+    }
+
+    private List<Long> loadFromDatabase(LocalDate date) {
+        List<Object> userIds = checkInLogMapper.selectObjs(new QueryWrapper<CheckInLog>()
+                .select("DISTINCT user_id")
+                .ge("check_time", date.atStartOfDay())
+                .lt("check_time", date.plusDays(1).atStartOfDay()));
+        List<Long> result = new ArrayList<>(userIds.size());
+        for (Object userId : userIds) {
+            if (userId != null) {
+                result.add(((Number) userId).longValue());
+            }
+        }
+        return result;
+    }
+
+    private byte[] serialize(Roaring64NavigableMap bitmap) {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes)) {
+            bitmap.serialize(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Roaring64NavigableMap deserialize(byte[] bytes) {
+        Roaring64NavigableMap bitmap = new Roaring64NavigableMap();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            bitmap.deserialize(in);
+            return bitmap;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
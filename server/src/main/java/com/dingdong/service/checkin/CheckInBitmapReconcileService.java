@@ -0,0 +1,343 @@
+package com.dingdong.service.checkin;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.dingdong.common.util.BitmapKernels;
+import com.dingdong.common.util.RedisUtil;
+import com.dingdong.config.CheckInBitmapProperties;
+import com.dingdong.entity.checkin.CheckInLog;
+import com.dingdong.mapper.checkin.CheckInLogMapper;
+import com.dingdong.service.cluster.LeaderLease;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打卡位图对账服务
+ * 以 check_in_log 为准重建指定年份的年度位图，修复异步写入丢失的位
+ *
+ * 按用户分批处理（用户ID keyset 分页，不使用 OFFSET），每批:
+ * 1. 加载这批用户已结束日期的打卡记录，在内存中构建用户、用户任务位图；
+ *    涉及的任务按任务ID加载打卡记录构建任务位图
+ * 2. 与线上 Key 按 64 位字比较已结束日期内的差异
+ * 3. 有差异时把期望位图写入影子 Key，通过 Lua 原子替换：先把线上 Key 中今天的位复制到影子 Key，再 RENAME 覆盖线上 Key
+ * 4. 开启滚动位图时，把修复后的用户年度位图补写到滚动位图（只置位）
+ *
+ * 内存与 Redis 中的中间数据只与单批用户数有关，与全年数据量无关；
+ * 每批之间暂停 dingdong.bitmap.reconcile-pause-millis，避免影响打卡链路；
+ * 没有任何打卡记录的 Key 不会被处理
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CheckInBitmapReconcileService {
+
+    private final CheckInBitmapService checkInBitmapService;
+    private final CheckInBitmapProperties properties;
+    private final CheckInLogMapper checkInLogMapper;
+    private final RedisUtil redisUtil;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 影子 Key 前缀
+     * 格式: checkin:reconcile:{线上Key}
+     */
+    private static final String SHADOW_KEY_PREFIX = "checkin:reconcile:";
+
+    /**
+     * 影子 Key 过期时间（小时），任务中断时自动清理
+     */
+    private static final long SHADOW_EXPIRE_HOURS = 24;
+
+    /**
+     * 每次 MGET 比较的 Key 数
+     */
+    private static final int DIFF_BATCH_SIZE = 100;
+
+    /**
+     * 年度位图的最大字节数（366 天）
+     */
+    private static final int YEAR_BITMAP_BYTES = 46;
+
+    private static final String REPAIRED_COUNTER_NAME = "dingdong.bitmap.reconcile.bits";
+
+    /**
+     * 替换脚本
+     * KEYS[1] 为线上 Key，KEYS[2] 为影子 Key，KEYS[3] 为防护令牌 Key；
+     * ARGV[1] 为仍可能写入的偏移量（今天，对账往年时为 -1），ARGV[2] 为当前租约的防护令牌
+     * 防护令牌已变化（已易主）时返回 -1，影子 Key 不存在时返回 0
+     */
+    private static final RedisScript<Long> SWAP_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[3]) ~= ARGV[2] then return -1 end "
+                    + "if redis.call('EXISTS', KEYS[2]) == 0 then return 0 end "
+                    + "local open = tonumber(ARGV[1]) "
+                    + "if open >= 0 and redis.call('GETBIT', KEYS[1], open) == 1 then "
+                    + "  redis.call('SETBIT', KEYS[2], open, 1) "
+                    + "end "
+                    + "redis.call('RENAME', KEYS[2], KEYS[1]) "
+                    + "redis.call('PERSIST', KEYS[1]) "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * 对账指定年份已结束日期（截至昨天）的打卡位图
+     *
+     * @param year  年份
+     * @param lease 主节点租约，失效时中止
+     * @return 修复的 Key 数
+     */
+    public int reconcile(int year, LeaderLease lease) {
+        LocalDate yearStart = LocalDate.of(year, 1, 1);
+        LocalDate yearEnd = LocalDate.of(year, 12, 31);
+        LocalDate today = LocalDate.now();
+        LocalDate yesterday = today.minusDays(1);
+        LocalDate closedEnd = yearEnd.isBefore(yesterday) ? yearEnd : yesterday;
+        if (closedEnd.isBefore(yearStart)) {
+            return 0;
+        }
+
+        LocalDateTime startTime = yearStart.atStartOfDay();
+        LocalDateTime endTime = closedEnd.plusDays(1).atStartOfDay();
+        int closedOffset = closedEnd.getDayOfYear() - 1;
+        int openOffset = today.getYear() == year ? today.getDayOfYear() - 1 : -1;
+
+        Progress progress = new Progress();
+        long lastUserId = 0L;
+        while (!progress.fenced) {
+            if (!lease.isValid()) {
+                log.warn("主节点租约失效，中止位图对账: year={}, lastUserId={}", year, lastUserId);
+                break;
+            }
+
+            List<Long> userIds = selectUserIds(startTime, endTime, lastUserId);
+            if (userIds.isEmpty()) {
+                break;
+            }
+
+            Map<String, Long> userKeyOwners = new HashMap<>();
+            Map<String, byte[]> expected = buildExpected(userIds, year, startTime, endTime, userKeyOwners);
+            Set<Long> repairedUserIds = diffAndSwap(expected, closedOffset, openOffset, lease, userKeyOwners,
+                    progress);
+            migrateToRolling(repairedUserIds, year);
+
+            progress.users += userIds.size();
+            lastUserId = userIds.get(userIds.size() - 1);
+            pause();
+        }
+
+        meterRegistry.counter(REPAIRED_COUNTER_NAME, "type", "added").increment(progress.added);
+        meterRegistry.counter(REPAIRED_COUNTER_NAME, "type", "removed").increment(progress.removed);
+        log.info("打卡位图对账完成: year={}, users={}, keys={}, repaired={}, added={}, removed={}",
+                year, progress.users, progress.keys, progress.repaired, progress.added, progress.removed);
+        return progress.repaired;
+    }
+
+    /**
+     * 下一批在对账范围内有打卡记录的用户ID（按用户ID升序）
+     */
+    private List<Long> selectUserIds(LocalDateTime startTime, LocalDateTime endTime, long lastUserId) {
+        List<Object> rows = checkInLogMapper.selectObjs(new QueryWrapper<CheckInLog>()
+                .select("DISTINCT user_id")
+                .ge("check_time", startTime)
+                .lt("check_time", endTime)
+                .gt("user_id", lastUserId)
+                .orderByAsc("user_id")
+                .last("LIMIT " + properties.getReconcileBatchSize()));
+        List<Long> userIds = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            if (row != null) {
+                userIds.add(((Number) row).longValue());
+            }
+        }
+        return userIds;
+    }
+
+    /**
+     * 构建一批用户的期望位图: 用户、用户任务位图来自这批用户的打卡记录，
+     * 任务位图按任务ID加载（不假设任务只有一个打卡用户）
+     */
+    private Map<String, byte[]> buildExpected(List<Long> userIds, int year, LocalDateTime startTime,
+            LocalDateTime endTime, Map<String, Long> userKeyOwners) {
+        Map<String, byte[]> expected = new LinkedHashMap<>();
+        Set<Long> taskIds = new LinkedHashSet<>();
+        List<CheckInLog> userLogs = checkInLogMapper.selectList(new LambdaQueryWrapper<CheckInLog>()
+                .select(CheckInLog::getUserId, CheckInLog::getTaskId, CheckInLog::getCheckTime)
+                .in(CheckInLog::getUserId, userIds)
+                .ge(CheckInLog::getCheckTime, startTime)
+                .lt(CheckInLog::getCheckTime, endTime));
+        for (CheckInLog checkInLog : userLogs) {
+            if (checkInLog.getUserId() == null || checkInLog.getCheckTime() == null) {
+                continue;
+            }
+            int offset = checkInLog.getCheckTime().getDayOfYear() - 1;
+            String userKey = checkInBitmapService.getUserKey(checkInLog.getUserId(), year);
+            userKeyOwners.putIfAbsent(userKey, checkInLog.getUserId());
+            setBit(expected, userKey, offset);
+            if (checkInLog.getTaskId() != null) {
+                taskIds.add(checkInLog.getTaskId());
+                setBit(expected, checkInBitmapService.getUserTaskKey(checkInLog.getUserId(), checkInLog.getTaskId(),
+                        year), offset);
+            }
+        }
+
+        if (!taskIds.isEmpty()) {
+            List<CheckInLog> taskLogs = checkInLogMapper.selectList(new LambdaQueryWrapper<CheckInLog>()
+                    .select(CheckInLog::getTaskId, CheckInLog::getCheckTime)
+                    .in(CheckInLog::getTaskId, taskIds)
+                    .ge(CheckInLog::getCheckTime, startTime)
+                    .lt(CheckInLog::getCheckTime, endTime));
+            for (CheckInLog checkInLog : taskLogs) {
+                if (checkInLog.getTaskId() != null && checkInLog.getCheckTime() != null) {
+                    setBit(expected, checkInBitmapService.getTaskKey(checkInLog.getTaskId(), year),
+                            checkInLog.getCheckTime().getDayOfYear() - 1);
+                }
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * 按字比较期望位图与线上 Key，有差异的写入影子 Key 后原子替换
+     *
+     * @return 修复了用户年度位图的用户ID
+     */
+    private Set<Long> diffAndSwap(Map<String, byte[]> expected, int closedOffset, int openOffset, LeaderLease lease,
+            Map<String, Long> userKeyOwners, Progress progress) {
+        Set<Long> repairedUserIds = new LinkedHashSet<>();
+        List<String> keys = new ArrayList<>(expected.keySet());
+        progress.keys += keys.size();
+        for (int from = 0; from < keys.size(); from += DIFF_BATCH_SIZE) {
+            List<String> liveBatch = keys.subList(from, Math.min(from + DIFF_BATCH_SIZE, keys.size()));
+            List<byte[]> liveBitmaps = redisUtil.mGet(liveBatch);
+
+            Map<String, int[]> changed = new LinkedHashMap<>();
+            for (int i = 0; i < liveBatch.size(); i++) {
+                byte[] expectedBitmap = expected.get(liveBatch.get(i));
+                byte[] liveBitmap = liveBitmaps.get(i);
+                int missing = BitmapKernels.countAndNot(expectedBitmap, liveBitmap, 0, closedOffset);
+                int extra = BitmapKernels.countAndNot(liveBitmap, expectedBitmap, 0, closedOffset);
+                if (missing > 0 || extra > 0) {
+                    changed.put(liveBatch.get(i), new int[]{missing, extra});
+                }
+            }
+            if (changed.isEmpty()) {
+                continue;
+            }
+
+            writeShadow(changed.keySet(), expected);
+            for (Map.Entry<String, int[]> entry : changed.entrySet()) {
+                String key = entry.getKey();
+                Long swapped = redisUtil.execute(SWAP_SCRIPT,
+                        List.of(key, SHADOW_KEY_PREFIX + key, lease.getFencingKey()),
+                        String.valueOf(openOffset), String.valueOf(lease.getFencingToken()));
+                if (swapped != null && swapped < 0) {
+                    log.warn("防护令牌已变化（已易主），中止位图对账: fencingToken={}", lease.getFencingToken());
+                    progress.fenced = true;
+                    return repairedUserIds;
+                }
+                if (swapped != null && swapped > 0) {
+                    int missing = entry.getValue()[0];
+                    int extra = entry.getValue()[1];
+                    progress.repaired++;
+                    progress.added += missing;
+                    progress.removed += extra;
+                    Long owner = userKeyOwners.get(key);
+                    if (owner != null) {
+                        repairedUserIds.add(owner);
+                    }
+                    log.debug("修复打卡位图: key={}, missing={}, extra={}", key, missing, extra);
+                }
+            }
+        }
+        return repairedUserIds;
+    }
+
+    /**
+     * 有差异的期望位图一次管道写入影子 Key（带过期时间）
+     */
+    private void writeShadow(Collection<String> keys, Map<String, byte[]> expected) {
+        long expireSeconds = TimeUnit.HOURS.toSeconds(SHADOW_EXPIRE_HOURS);
+        redisUtil.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.stringCommands().setEx((SHADOW_KEY_PREFIX + key).getBytes(), expireSeconds,
+                        trim(expected.get(key)));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 修复后的用户年度位图补写到滚动位图
+     */
+    private void migrateToRolling(Set<Long> repairedUserIds, int year) {
+        if (repairedUserIds.isEmpty()
+                || !(properties.isRollingWriteEnabled() || properties.isRollingReadEnabled())) {
+            return;
+        }
+        List<Long> userIds = new ArrayList<>(repairedUserIds);
+        for (int from = 0; from < userIds.size(); from += DIFF_BATCH_SIZE) {
+            checkInBitmapService.migrateToRolling(
+                    userIds.subList(from, Math.min(from + DIFF_BATCH_SIZE, userIds.size())), year, year);
+        }
+    }
+
+    private static void setBit(Map<String, byte[]> bitmaps, String key, int offset) {
+        bitmaps.computeIfAbsent(key, k -> new byte[YEAR_BITMAP_BYTES])[offset >>> 3] |= (byte) (0x80 >>> (offset & 7));
+    }
+
+    /**
+     * 去掉末尾的 0 字节，与 SETBIT 写出的长度一致
+     */
+    private static byte[] trim(byte[] bitmap) {
+        int length = bitmap.length;
+        while (length > 0 && bitmap[length - 1] == 0) {
+            length--;
+        }
+        return length == bitmap.length ? bitmap : Arrays.copyOf(bitmap, length);
+    }
+
+    /**
+     * 批次间暂停，限制对 MySQL 和 Redis 的压力
+     */
+    private void pause() {
+        long pauseMillis = properties.getReconcilePauseMillis();
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 对账进度（跨批次累计）
+     */
+    private static class Progress {
+
+        private int users;
+
+        private int keys;
+
+        private int repaired;
+
+        private long added;
+
+        private long removed;
+
+        /**
+         * 防护令牌已变化，需中止
+         */
+        private boolean fenced;
+    }
+}
@@ -1,13 +1,18 @@
 package com.dingdong.service.checkin;
 
+import com.dingdong.common.util.BitmapKernels;
 import com.dingdong.common.util.RedisUtil;
+import com.dingdong.config.CheckInBitmapProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,10 +28,16 @@ import lombok.Data;
  * - 用户年度打卡记录: checkin:user:{userId}:{year}
  * - 任务年度打卡记录: checkin:task:{taskId}:{year}
  * - 用户任务打卡记录: checkin:user:{userId}:task:{taskId}:{year}
+ * - 用户滚动打卡记录: checkin:user:{userId}:days（不按年拆分）
  * 
  * Bitmap 偏移量设计:
- * - 每个位表示一年中的第几天 (0-365)
+ * - 年度位图: 每个位表示一年中的第几天 (0-365)
+ * - 滚动位图: 每个位表示距 {@link #ROLLING_EPOCH} 的天数，任意长度的区间、连续打卡都只需读取一个 Key
  * - 位值 1 表示当天已打卡，0 表示未打卡
+ *
+ * 滚动位图通过 dingdong.bitmap.rolling-write-enabled 开启双写，
+ * 由 {@link com.dingdong.task.CheckInBitmapMigrationTask} 从年度位图迁移历史数据后，
+ * 再开启 dingdong.bitmap.rolling-read-enabled 切换用户维度的查询
  */
 @Slf4j
 @Service
@@ -34,11 +45,29 @@ import lombok.Data;
 public class CheckInBitmapService {
 
     private final RedisUtil redisUtil;
+    private final CheckInBitmapWriter checkInBitmapWriter;
+    private final CheckInBitmapProperties properties;
 
     // Key 前缀
     private static final String KEY_PREFIX_USER = "checkin:user:";
     private static final String KEY_PREFIX_TASK = "checkin:task:";
     private static final String KEY_PREFIX_USER_TASK = "checkin:user:";
+    private static final String KEY_SUFFIX_ROLLING = ":days";
+
+    /**
+     * 滚动位图的起始日期（偏移量 0），已写入数据后不可修改
+     */
+    public static final LocalDate ROLLING_EPOCH = LocalDate.of(2024, 1, 1);
+
+    /**
+     * 连续打卡最多统计天数
+     */
+    private static final int MAX_STREAK_DAYS = 365;
+
+    /**
+     * 窗口覆盖的字节数不超过该值时直接 GETRANGE 读取（约两个月）
+     */
+    private static final int RANGE_FETCH_MAX_BYTES = 8;
 
     /**
      * 记录用户打卡
@@ -50,6 +79,9 @@ public class CheckInBitmapService {
         String key = getUserKey(userId, date.getYear());
         int dayOfYear = date.getDayOfYear() - 1; // 0-based offset
         redisUtil.setBit(key, dayOfYear, true);
+        if (isRollingWrite(date)) {
+            redisUtil.setBit(getUserRollingKey(userId), rollingOffset(date), true);
+        }
         log.debug("记录用户打卡: userId={}, date={}, key={}, offset={}", userId, date, key, dayOfYear);
     }
 
@@ -61,17 +93,17 @@ public class CheckInBitmapService {
      * @param date   打卡日期
      */
     public void recordTaskCheckIn(Long userId, Long taskId, LocalDate date) {
-        // 记录用户总体打卡
-        recordCheckIn(userId, date);
-
-        // 记录任务打卡
-        String taskKey = getTaskKey(taskId, date.getYear());
         int dayOfYear = date.getDayOfYear() - 1;
-        redisUtil.setBit(taskKey, dayOfYear, true);
 
-        // 记录用户在该任务的打卡
-        String userTaskKey = getUserTaskKey(userId, taskId, date.getYear());
-        redisUtil.setBit(userTaskKey, dayOfYear, true);
+        // 用户总体打卡、任务打卡、用户在该任务的打卡（及滚动位图），一次管道提交
+        List<CheckInBitmapWriter.BitWrite> writes = new ArrayList<>(4);
+        writes.add(new CheckInBitmapWriter.BitWrite(getUserKey(userId, date.getYear()), dayOfYear));
+        writes.add(new CheckInBitmapWriter.BitWrite(getTaskKey(taskId, date.getYear()), dayOfYear));
+        writes.add(new CheckInBitmapWriter.BitWrite(getUserTaskKey(userId, taskId, date.getYear()), dayOfYear));
+        if (isRollingWrite(date)) {
+            writes.add(new CheckInBitmapWriter.BitWrite(getUserRollingKey(userId), rollingOffset(date)));
+        }
+        checkInBitmapWriter.write(writes);
 
         log.debug("记录任务打卡: userId={}, taskId={}, date={}", userId, taskId, date);
     }
@@ -84,6 +116,10 @@ public class CheckInBitmapService {
      * @return 是否已打卡
      */
     public boolean hasCheckedIn(Long userId, LocalDate date) {
+        if (properties.isRollingReadEnabled()) {
+            int offset = rollingOffset(date);
+            return offset >= 0 && Boolean.TRUE.equals(redisUtil.getBit(getUserRollingKey(userId), offset));
+        }
         String key = getUserKey(userId, date.getYear());
         int dayOfYear = date.getDayOfYear() - 1;
         Boolean result = redisUtil.getBit(key, dayOfYear);
@@ -113,6 +149,9 @@ public class CheckInBitmapService {
      * @return 打卡天数
      */
     public int countYearlyCheckIns(Long userId, int year) {
+        if (properties.isRollingReadEnabled()) {
+            return countCheckInsInRange(userId, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+        }
         String key = getUserKey(userId, year);
         Long count = redisUtil.bitCount(key);
         return count != null ? count.intValue() : 0;
@@ -141,103 +180,160 @@ public class CheckInBitmapService {
      * @return 打卡天数
      */
     public int countCheckInsInRange(Long userId, LocalDate startDate, LocalDate endDate) {
-        // 如果跨年，需分段处理（目前设计Key按年存储）
-        if (startDate.getYear() != endDate.getYear()) {
-            LocalDate endOfFirstYear = LocalDate.of(startDate.getYear(), 12, 31);
-            LocalDate startOfSecondYear = LocalDate.of(endDate.getYear(), 1, 1);
-            return countCheckInsInRange(userId, startDate, endOfFirstYear) +
-                    countCheckInsInRange(userId, startOfSecondYear, endDate);
+        if (properties.isRollingReadEnabled()) {
+            // 滚动位图：任意跨度只统计一个 Key（不存在整 Key 统计的情况，lastDay 传 -1）
+            int startDay = Math.max(rollingOffset(startDate), 0);
+            return countBitsInRange(getUserRollingKey(userId), startDay, rollingOffset(endDate), -1);
         }
 
-        String key = getUserKey(userId, startDate.getYear());
-        byte[] bytes = redisUtil.get(key.getBytes());
+        // Key按年存储，跨年时按年分段统计
+        int count = 0;
+        for (int year = startDate.getYear(); year <= endDate.getYear(); year++) {
+            int lastDay = LocalDate.of(year, 12, 31).getDayOfYear() - 1;
+            int startDay = year == startDate.getYear() ? startDate.getDayOfYear() - 1 : 0;
+            int endDay = year == endDate.getYear() ? endDate.getDayOfYear() - 1 : lastDay;
+            count += countBitsInRange(getUserKey(userId, year), startDay, endDay, lastDay);
+        }
+        return count;
+    }
 
-        if (bytes == null || bytes.length == 0) {
+    /**
+     * 统计单个位图 [startDay, endDay] 范围内的打卡天数（查询计划）
+     * - 整年：BITCOUNT 整个 Key
+     * - 小窗口（如近7天、本月）：GETRANGE 只读取覆盖窗口的字节，本地按字统计
+     * - 大窗口：一次管道提交，完整字节由服务端 BITCOUNT 统计，首尾不对齐的字节 GETRANGE 后本地统计
+     */
+    private int countBitsInRange(String key, int startDay, int endDay, int lastDay) {
+        if (startDay > endDay) {
             return 0;
         }
 
-        int startDay = startDate.getDayOfYear() - 1;
-        int endDay = endDate.getDayOfYear() - 1;
-        int count = 0;
+        if (startDay == 0 && endDay == lastDay) {
+            Long count = redisUtil.bitCount(key);
+            return count != null ? count.intValue() : 0;
+        }
 
-        for (int i = startDay; i <= endDay; i++) {
-            if (getBit(bytes, i)) {
-                count++;
-            }
+        int startByte = startDay >>> 3;
+        int endByte = endDay >>> 3;
+        if (endByte - startByte + 1 <= RANGE_FETCH_MAX_BYTES) {
+            byte[] bytes = redisUtil.getRange(key, startByte, endByte);
+            int base = startByte << 3;
+            return BitmapKernels.countRange(bytes, startDay - base, endDay - base);
+        }
+
+        int innerStart = (startDay & 7) == 0 ? startByte : startByte + 1;
+        int innerEnd = (endDay & 7) == 7 ? endByte : endByte - 1;
+        byte[] keyBytes = key.getBytes();
+        List<Object> results = redisUtil.executePipelined((RedisCallback<Object>) connection -> {
+            connection.stringCommands().bitCount(keyBytes, innerStart, innerEnd);
+            connection.stringCommands().getRange(keyBytes, startByte, startByte);
+            connection.stringCommands().getRange(keyBytes, endByte, endByte);
+            return null;
+        });
+
+        Object inner = results.get(0);
+        int count = inner instanceof Long ? ((Long) inner).intValue() : 0;
+        if (innerStart != startByte) {
+            count += BitmapKernels.countRange((byte[]) results.get(1), startDay & 7, 7);
+        }
+        if (innerEnd != endByte) {
+            count += BitmapKernels.countRange((byte[]) results.get(2), 0, endDay & 7);
         }
         return count;
     }
 
     /**
-     * 辅助方法：无需 Redis 操作，直接从 byte数组获取 bit
+     * 获取用户指定年份的完整打卡位图（单次 GET，调用方在内存中解码）
+     *
+     * @param userId 用户ID
+     * @param year   年份
+     * @return 位图字节数组，不存在时返回空数组
      */
-    private boolean getBit(byte[] bytes, int offset) {
-        int byteIndex = offset / 8;
-        int bitIndex = 7 - (offset % 8); // Redis bit order is big-endian within byte
+    public byte[] getUserYearBitmap(Long userId, int year) {
+        byte[] bytes = redisUtil.get(getUserKey(userId, year).getBytes());
+        return bytes != null ? bytes : new byte[0];
+    }
 
-        if (byteIndex >= bytes.length) {
-            return false;
-        }
+    /**
+     * 获取任务指定年份的完整打卡位图
+     *
+     * @param taskId 任务ID
+     * @param year   年份
+     * @return 位图字节数组，不存在时返回空数组
+     */
+    public byte[] getTaskYearBitmap(Long taskId, int year) {
+        byte[] bytes = redisUtil.get(getTaskKey(taskId, year).getBytes());
+        return bytes != null ? bytes : new byte[0];
+    }
+
+    /**
+     * 判断年度位图中指定日期是否已打卡
+     *
+     * @param bitmap 年度位图（{@link #getUserYearBitmap}）
+     * @param date   日期（需与位图为同一年）
+     * @return 是否已打卡
+     */
+    public boolean isCheckedIn(byte[] bitmap, LocalDate date) {
+        return getBit(bitmap, date.getDayOfYear() - 1);
+    }
 
-        return (bytes[byteIndex] & (1 << bitIndex)) != 0;
+    /**
+     * 统计年度位图中的打卡天数
+     *
+     * @param bitmap 年度位图
+     * @return 打卡天数
+     */
+    public int countBits(byte[] bitmap) {
+        return BitmapKernels.count(bitmap);
     }
 
     /**
-     * 计算用户连续打卡天数（从今天往前算） (优化版: 支持跨年)
+     * 辅助方法：无需 Redis 操作，直接从 byte数组获取 bit
+     */
+    private boolean getBit(byte[] bytes, int offset) {
+        return BitmapKernels.get(bytes, offset);
+    }
+
+    /**
+     * 计算用户连续打卡天数（从今天往前算） (优化版: 按字计算，支持跨年)
      *
      * @param userId 用户ID
      * @return 连续打卡天数
      */
     public int calculateStreakDays(Long userId) {
         LocalDate today = LocalDate.now();
-        int currentYear = today.getYear();
-        String key = getUserKey(userId, currentYear);
-        byte[] bytes = redisUtil.get(key.getBytes());
-        byte[] prevBytes = null; // 懒加载去年数据
-
-        int streak = 0;
-
-        // 最多检查365天
-        for (int i = 0; i < 365; i++) {
-            LocalDate checkDate = today.minusDays(i);
-            int year = checkDate.getYear();
-            int dayOfYear = checkDate.getDayOfYear() - 1;
-
-            boolean isCheckedIn = false;
+        if (properties.isRollingReadEnabled()) {
+            // 滚动位图：一次 GET，不受年份边界和365天上限限制
+            return BitmapKernels.trailingRun(getUserRollingBitmap(userId), rollingOffset(today));
+        }
 
-            if (year == currentYear) {
-                if (bytes != null) {
-                    isCheckedIn = getBit(bytes, dayOfYear);
-                }
-            } else {
-                // 跨年了，加载去年数据
-                if (prevBytes == null) {
-                    String prevKey = getUserKey(userId, year);
-                    prevBytes = redisUtil.get(prevKey.getBytes());
-                }
-                if (prevBytes != null) {
-                    isCheckedIn = getBit(prevBytes, dayOfYear);
-                }
-            }
+        byte[] bytes = redisUtil.get(getUserKey(userId, today.getYear()).getBytes());
+        int todayOffset = today.getDayOfYear() - 1;
+        int streak = BitmapKernels.trailingRun(bytes, todayOffset);
 
-            if (isCheckedIn) {
-                streak++;
-            } else {
-                break;
-            }
+        // 从1月1日起连续打卡，继续统计去年年末（最多检查365天）
+        if (streak == todayOffset + 1 && streak < MAX_STREAK_DAYS) {
+            int prevYear = today.getYear() - 1;
+            byte[] prevBytes = redisUtil.get(getUserKey(userId, prevYear).getBytes());
+            streak += BitmapKernels.trailingRun(prevBytes, LocalDate.of(prevYear, 12, 31).getDayOfYear() - 1);
         }
 
-        return streak;
+        return Math.min(streak, MAX_STREAK_DAYS);
     }
 
     /**
-     * 计算用户最长连续打卡天数（指定年份） (优化版: 内存位运算)
+     * 计算用户最长连续打卡天数（指定年份） (优化版: 按字计算)
      *
      * @param userId 用户ID
      * @param year   年份
      * @return 最长连续打卡天数
      */
     public int calculateMaxStreakDays(Long userId, int year) {
+        if (properties.isRollingReadEnabled()) {
+            return BitmapKernels.longestRun(getUserRollingBitmap(userId),
+                    rollingOffset(LocalDate.of(year, 1, 1)), rollingOffset(LocalDate.of(year, 12, 31)));
+        }
+
         String key = getUserKey(userId, year);
         byte[] bytes = redisUtil.get(key.getBytes());
 
@@ -245,21 +341,9 @@ public class CheckInBitmapService {
             return 0;
         }
 
-        int maxStreak = 0;
-        int currentStreak = 0;
         // 366天覆盖闰年
         int daysInYear = LocalDate.of(year, 12, 31).getDayOfYear();
-
-        for (int i = 0; i < daysInYear; i++) {
-            if (getBit(bytes, i)) {
-                currentStreak++;
-                maxStreak = Math.max(maxStreak, currentStreak);
-            } else {
-                currentStreak = 0;
-            }
-        }
-
-        return maxStreak;
+        return BitmapKernels.longestRun(bytes, 0, daysInYear - 1);
     }
 
     /**
@@ -274,10 +358,15 @@ public class CheckInBitmapService {
         Map<String, Boolean> records = new HashMap<>();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-        // 简单处理：如果范围跨年，逻辑会比较复杂，这里暂简化为循环当年
-        // 生产环境应根据每一天所属年份获取对应的 bytes
+        if (properties.isRollingReadEnabled()) {
+            byte[] bytes = getUserRollingBitmap(userId);
+            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+                records.put(date.format(formatter), BitmapKernels.get(bytes, rollingOffset(date)));
+            }
+            return records;
+        }
 
-        // 优化策略：按年分组处理
+        // Key按年存储，跨年时按年分段读取（每年一次 GET）
         LocalDate current = startDate;
         while (!current.isAfter(endDate)) {
             int year = current.getYear();
@@ -382,17 +471,257 @@ public class CheckInBitmapService {
         return countCheckInsInRange(userId, monthStart, today);
     }
 
-    // ========== Key 生成方法 ==========
+    // ========== 批量查询（多用户一次往返） ==========
+
+    /**
+     * 批量检查多个用户某天是否已打卡（管道 GETBIT，一次往返）
+     *
+     * @param userIds 用户ID集合
+     * @param date    日期
+     * @return 用户ID -> 是否已打卡
+     */
+    public Map<Long, Boolean> hasCheckedIn(Collection<Long> userIds, LocalDate date) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<Long> ids = new ArrayList<>(userIds);
+        boolean rolling = properties.isRollingReadEnabled();
+        long offset = rolling ? rollingOffset(date) : date.getDayOfYear() - 1;
+        if (offset < 0) {
+            return Collections.emptyMap();
+        }
+        List<String> keys = rolling ? userRollingKeys(ids) : userKeys(ids, date.getYear());
+        List<Object> results = redisUtil.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.stringCommands().getBit(key.getBytes(), offset);
+            }
+            return null;
+        });
+
+        Map<Long, Boolean> checkedIn = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++) {
+            checkedIn.put(ids.get(i), Boolean.TRUE.equals(results.get(i)));
+        }
+        return checkedIn;
+    }
+
+    /**
+     * 批量计算多个用户的连续打卡天数（从今天往前算）
+     * 一次 MGET 读取所有用户当年位图，仅从1月1日起连续打卡的用户再 MGET 一次去年位图
+     *
+     * @param userIds 用户ID集合
+     * @return 用户ID -> 连续打卡天数
+     */
+    public Map<Long, Integer> streaks(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        LocalDate today = LocalDate.now();
+        List<Long> ids = new ArrayList<>(userIds);
+        if (properties.isRollingReadEnabled()) {
+            // 滚动位图：一次 MGET，不受年份边界限制
+            int offset = rollingOffset(today);
+            List<byte[]> bitmaps = redisUtil.mGet(userRollingKeys(ids));
+            Map<Long, Integer> streaks = new HashMap<>(ids.size() * 2);
+            for (int i = 0; i < ids.size(); i++) {
+                streaks.put(ids.get(i), BitmapKernels.trailingRun(bitmaps.get(i), offset));
+            }
+            return streaks;
+        }
+
+        int todayOffset = today.getDayOfYear() - 1;
+        List<byte[]> bitmaps = redisUtil.mGet(userKeys(ids, today.getYear()));
+
+        Map<Long, Integer> streaks = new HashMap<>(ids.size() * 2);
+        List<Long> crossYearIds = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            int streak = BitmapKernels.trailingRun(bitmaps.get(i), todayOffset);
+            streaks.put(ids.get(i), streak);
+            if (streak == todayOffset + 1 && streak < MAX_STREAK_DAYS) {
+                crossYearIds.add(ids.get(i));
+            }
+        }
+
+        if (!crossYearIds.isEmpty()) {
+            int prevYear = today.getYear() - 1;
+            int prevLastOffset = LocalDate.of(prevYear, 12, 31).getDayOfYear() - 1;
+            List<byte[]> prevBitmaps = redisUtil.mGet(userKeys(crossYearIds, prevYear));
+            for (int i = 0; i < crossYearIds.size(); i++) {
+                int run = BitmapKernels.trailingRun(prevBitmaps.get(i), prevLastOffset);
+                streaks.merge(crossYearIds.get(i), run, (a, b) -> Math.min(a + b, MAX_STREAK_DAYS));
+            }
+        }
+        return streaks;
+    }
+
+    /**
+     * 批量获取多个用户近 N 天的每日打卡情况（每个涉及的年份一次 MGET）
+     *
+     * @param userIds 用户ID集合
+     * @param days    天数
+     * @return 用户ID -> 每天是否打卡（下标 0 为最早一天，最后一个为今天）
+     */
+    public Map<Long, boolean[]> recentDaily(Collection<Long> userIds, int days) {
+        if (userIds.isEmpty() || days <= 0) {
+            return Collections.emptyMap();
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate startDate = today.minusDays(days - 1);
+        List<Long> ids = new ArrayList<>(userIds);
+
+        Map<Long, boolean[]> records = new HashMap<>(ids.size() * 2);
+        for (Long userId : ids) {
+            records.put(userId, new boolean[days]);
+        }
+
+        if (properties.isRollingReadEnabled()) {
+            int startOffset = rollingOffset(startDate);
+            List<byte[]> bitmaps = redisUtil.mGet(userRollingKeys(ids));
+            for (int i = 0; i < ids.size(); i++) {
+                boolean[] daily = records.get(ids.get(i));
+                for (int d = 0; d < days; d++) {
+                    daily[d] = BitmapKernels.get(bitmaps.get(i), startOffset + d);
+                }
+            }
+            return records;
+        }
+
+        // 按年份分段读取，index 为该年第一天在结果数组中的下标
+        int index = 0;
+        for (int year = startDate.getYear(); year <= today.getYear(); year++) {
+            int from = year == startDate.getYear() ? startDate.getDayOfYear() - 1 : 0;
+            int to = year == today.getYear() ? today.getDayOfYear() - 1
+                    : LocalDate.of(year, 12, 31).getDayOfYear() - 1;
+            List<byte[]> bitmaps = redisUtil.mGet(userKeys(ids, year));
+            for (int i = 0; i < ids.size(); i++) {
+                byte[] bitmap = bitmaps.get(i);
+                if (bitmap == null) {
+                    continue;
+                }
+                boolean[] daily = records.get(ids.get(i));
+                for (int offset = from; offset <= to; offset++) {
+                    daily[index + offset - from] = BitmapKernels.get(bitmap, offset);
+                }
+            }
+            index += to - from + 1;
+        }
+        return records;
+    }
+
+    // ========== 滚动位图 ==========
 
-    private String getUserKey(Long userId, int year) {
+    /**
+     * 用户维度查询是否读取滚动位图
+     *
+     * @return 是否读取滚动位图
+     */
+    public boolean isRollingReadEnabled() {
+        return properties.isRollingReadEnabled();
+    }
+
+    /**
+     * 获取用户的完整滚动位图（单次 GET）
+     *
+     * @param userId 用户ID
+     * @return 位图字节数组，不存在时返回空数组
+     */
+    public byte[] getUserRollingBitmap(Long userId) {
+        byte[] bytes = redisUtil.get(getUserRollingKey(userId).getBytes());
+        return bytes != null ? bytes : new byte[0];
+    }
+
+    /**
+     * 日期在滚动位图中的偏移量（早于 {@link #ROLLING_EPOCH} 时为负数）
+     *
+     * @param date 日期
+     * @return 偏移量
+     */
+    public int rollingOffset(LocalDate date) {
+        return (int) (date.toEpochDay() - ROLLING_EPOCH.toEpochDay());
+    }
+
+    /**
+     * 把用户年度位图中的历史打卡合并到滚动位图（只置位，可重复执行，与双写并发安全）
+     * 每个年份一次 MGET，所有置位一次管道提交
+     *
+     * @param userIds  用户ID列表
+     * @param fromYear 起始年份（早于 {@link #ROLLING_EPOCH} 的年份忽略）
+     * @param toYear   结束年份
+     * @return 写入的位数
+     */
+    public int migrateToRolling(List<Long> userIds, int fromYear, int toYear) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+
+        List<CheckInBitmapWriter.BitWrite> writes = new ArrayList<>();
+        for (int year = Math.max(fromYear, ROLLING_EPOCH.getYear()); year <= toYear; year++) {
+            int base = rollingOffset(LocalDate.of(year, 1, 1));
+            int daysInYear = LocalDate.of(year, 12, 31).getDayOfYear();
+            List<byte[]> bitmaps = redisUtil.mGet(userKeys(userIds, year));
+            for (int i = 0; i < userIds.size(); i++) {
+                byte[] bitmap = bitmaps.get(i);
+                if (bitmap == null) {
+                    continue;
+                }
+                String rollingKey = getUserRollingKey(userIds.get(i));
+                for (int day = 0; day < daysInYear; day++) {
+                    if (BitmapKernels.get(bitmap, day)) {
+                        writes.add(new CheckInBitmapWriter.BitWrite(rollingKey, base + day));
+                    }
+                }
+            }
+        }
+
+        if (!writes.isEmpty()) {
+            redisUtil.executePipelined((RedisCallback<Object>) connection -> {
+                for (CheckInBitmapWriter.BitWrite write : writes) {
+                    connection.stringCommands().setBit(write.getKey().getBytes(), write.getOffset(), true);
+                }
+                return null;
+            });
+        }
+        return writes.size();
+    }
+
+    private boolean isRollingWrite(LocalDate date) {
+        return (properties.isRollingWriteEnabled() || properties.isRollingReadEnabled()) && rollingOffset(date) >= 0;
+    }
+
+    private List<String> userRollingKeys(List<Long> userIds) {
+        List<String> keys = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            keys.add(getUserRollingKey(userId));
+        }
+        return keys;
+    }
+
+    private List<String> userKeys(List<Long> userIds, int year) {
+        List<String> keys = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            keys.add(getUserKey(userId, year));
+        }
+        return keys;
+    }
+
+    // ========== Key 生成方法（包内对账服务共用） ==========
+
+    String getUserKey(Long userId, int year) {
         return KEY_PREFIX_USER + userId + ":" + year;
     }
 
-    private String getTaskKey(Long taskId, int year) {
+    private String getUserRollingKey(Long userId) {
+        return KEY_PREFIX_USER + userId + KEY_SUFFIX_ROLLING;
+    }
+
+    String getTaskKey(Long taskId, int year) {
         return KEY_PREFIX_TASK + taskId + ":" + year;
     }
 
-    private String getUserTaskKey(Long userId, Long taskId, int year) {
+    String getUserTaskKey(Long userId, Long taskId, int year) {
         return KEY_PREFIX_USER_TASK + userId + ":task:" + taskId + ":" + year;
     }
 
@@ -0,0 +1,174 @@
+package com.dingdong.service.checkin;
+
+import com.dingdong.common.util.RedisUtil;
+import com.dingdong.config.CheckInBitmapProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打卡位图写入器
+ * 一次打卡涉及的多个 SETBIT 通过管道一次提交
+ *
+ * 启用批量写入（dingdong.bitmap.batch-write-enabled）后，由后台线程收集短时间内
+ * 多次打卡的写入合并为一个管道，打卡高峰（提醒时间点）每批只需一次往返；
+ * 应用关闭时先写完队列中剩余的数据
+ */
+@Slf4j
+@Component
+public class CheckInBitmapWriter {
+
+    private final RedisUtil redisUtil;
+    private final CheckInBitmapProperties properties;
+
+    /**
+     * 待写入队列（仅批量写入模式使用）
+     */
+    private final BlockingQueue<BitWrite> queue;
+
+    private final Thread flusher;
+
+    private volatile boolean running = true;
+
+    public CheckInBitmapWriter(RedisUtil redisUtil, CheckInBitmapProperties properties) {
+        this.redisUtil = redisUtil;
+        this.properties = properties;
+        if (properties.isBatchWriteEnabled()) {
+            this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+            this.flusher = new Thread(this::flushLoop, "checkin-bitmap-writer");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+            log.info("打卡位图批量写入已启用: lingerMillis={}, maxSize={}",
+                    properties.getBatchLingerMillis(), properties.getBatchMaxSize());
+        } else {
+            this.queue = null;
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * 写入一组位（同一次打卡涉及的所有 Key）
+     * 批量模式下进入队列后立即返回，队列满时同步写入
+     *
+     * @param writes 待写入的位
+     */
+    public void write(List<BitWrite> writes) {
+        if (queue == null || !running) {
+            writeNow(writes);
+            return;
+        }
+
+        for (int i = 0; i < writes.size(); i++) {
+            if (!queue.offer(writes.get(i))) {
+                log.debug("打卡位图写入队列已满，改为同步写入");
+                writeNow(writes.subList(i, writes.size()));
+                return;
+            }
+        }
+    }
+
+    /**
+     * 通过管道一次提交多个 SETBIT
+     */
+    private void writeNow(List<BitWrite> writes) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        redisUtil.executePipelined((RedisCallback<Object>) connection -> {
+            for (BitWrite write : writes) {
+                connection.stringCommands().setBit(write.getKey().getBytes(StandardCharsets.UTF_8),
+                        write.getOffset(), true);
+            }
+            return null;
+        });
+    }
+
+    private void flushLoop() {
+        List<BitWrite> batch = new ArrayList<>(properties.getBatchMaxSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                BitWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 收到第一条后等待一小段时间，合并同一时刻的其他打卡
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getBatchLingerMillis());
+                while (batch.size() < properties.getBatchMaxSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    BitWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // 关闭时被中断，继续写完队列中的剩余数据
+                running = false;
+            }
+        }
+        flush(batch);
+    }
+
+    private void flush(List<BitWrite> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            writeNow(batch);
+            log.debug("打卡位图批量写入: size={}", batch.size());
+        } catch (Exception e) {
+            // 位图仅用于统计展示，写入失败不影响打卡记录
+            log.warn("打卡位图批量写入失败: size={}", batch.size(), e);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * 应用关闭时写完队列中剩余的数据
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 后台线程未能及时结束时由当前线程写入剩余数据
+        List<BitWrite> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        flush(remaining);
+    }
+
+    /**
+     * 一次位写入
+     */
+    @Data
+    @AllArgsConstructor
+    public static class BitWrite {
+
+        /** 位图 Key */
+        private String key;
+
+        /** 偏移量 */
+        private long offset;
+    }
+}
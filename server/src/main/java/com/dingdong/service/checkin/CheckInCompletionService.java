@@ -0,0 +1,177 @@
+package com.dingdong.service.checkin;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.dingdong.common.constant.TaskEnabled;
+import com.dingdong.common.util.TaskScheduleUtil;
+import com.dingdong.entity.checkin.CheckInLog;
+import com.dingdong.entity.checkin.CheckInTask;
+import com.dingdong.mapper.checkin.CheckInLogMapper;
+import com.dingdong.mapper.checkin.CheckInTaskMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任务完成情况统计服务
+ * 应打卡次数按任务重复规则算术展开，已完成次数取自窗口内的打卡记录，
+ * 无论统计区间多长都只需两次查询（窗口内曾启用的任务 + 窗口内的打卡记录）
+ *
+ * 任务从创建日开始计入；窗口内停用的任务计入到停用时为止（停用当天的截止时间已过才计入当天），
+ * 停用不会抹去停用前的统计
+ */
+@Service
+@RequiredArgsConstructor
+public class CheckInCompletionService {
+
+    private final CheckInTaskMapper checkInTaskMapper;
+    private final CheckInLogMapper checkInLogMapper;
+
+    /**
+     * 加载用户在 [start, end] 窗口内的任务和打卡记录
+     *
+     * @param userId 用户ID（被叮咚者）
+     * @param start  窗口开始日期
+     * @param end    窗口结束日期（包含）
+     * @return 完成情况窗口
+     */
+    public CompletionWindow load(Long userId, LocalDate start, LocalDate end) {
+        List<CheckInTask> tasks = checkInTaskMapper.selectList(new LambdaQueryWrapper<CheckInTask>()
+                .select(CheckInTask::getId, CheckInTask::getRemindTime, CheckInTask::getRepeatType,
+                        CheckInTask::getCreateTime, CheckInTask::getDisableTime)
+                .eq(CheckInTask::getUserId, userId)
+                .and(w -> w.eq(CheckInTask::getStatus, TaskEnabled.ENABLED.getCode())
+                        .or().ge(CheckInTask::getDisableTime, start.atStartOfDay()))
+                .isNotNull(CheckInTask::getRemindTime));
+
+        // 每个任务一个位集合，第 i 位表示窗口第 i 天已打卡（同一天多次打卡只算一次）
+        Map<Long, BitSet> completions = new HashMap<>();
+        if (!tasks.isEmpty()) {
+            List<CheckInLog> logs = checkInLogMapper.selectList(new LambdaQueryWrapper<CheckInLog>()
+                    .select(CheckInLog::getTaskId, CheckInLog::getCheckTime)
+                    .eq(CheckInLog::getUserId, userId)
+                    .ge(CheckInLog::getCheckTime, start.atStartOfDay())
+                    .lt(CheckInLog::getCheckTime, end.plusDays(1).atStartOfDay()));
+            for (CheckInLog checkInLog : logs) {
+                if (checkInLog.getTaskId() != null) {
+                    int day = (int) (checkInLog.getCheckTime().toLocalDate().toEpochDay() - start.toEpochDay());
+                    completions.computeIfAbsent(checkInLog.getTaskId(), k -> new BitSet()).set(day);
+                }
+            }
+        }
+        return new CompletionWindow(start, tasks, completions);
+    }
+
+    /**
+     * 用户在一个日期窗口内的任务完成情况（所有统计均为内存计算，日期需在窗口内）
+     */
+    public static class CompletionWindow {
+
+        private final LocalDate start;
+        private final List<CheckInTask> tasks;
+        private final Map<Long, BitSet> completions;
+
+        CompletionWindow(LocalDate start, List<CheckInTask> tasks, Map<Long, BitSet> completions) {
+            this.start = start;
+            this.tasks = tasks;
+            this.completions = completions;
+        }
+
+        /**
+         * [from, to] 内应打卡次数（任务创建之前、停用之后的日期不计）
+         */
+        public int expected(LocalDate from, LocalDate to) {
+            int total = 0;
+            for (CheckInTask task : tasks) {
+                total += TaskScheduleUtil.countOccurrences(task, effectiveFrom(task, from), effectiveTo(task, to));
+            }
+            return total;
+        }
+
+        /**
+         * [from, to] 内已完成次数（只统计任务生效日的打卡）
+         */
+        public int completed(LocalDate from, LocalDate to) {
+            int total = 0;
+            for (CheckInTask task : tasks) {
+                BitSet days = completions.get(task.getId());
+                if (days == null) {
+                    continue;
+                }
+                LocalDate first = effectiveFrom(task, from);
+                int last = index(effectiveTo(task, to));
+                for (int day = days.nextSetBit(Math.max(index(first), 0)); day >= 0 && day <= last;
+                        day = days.nextSetBit(day + 1)) {
+                    if (TaskScheduleUtil.isActiveOnDate(task, start.plusDays(day))) {
+                        total++;
+                    }
+                }
+            }
+            return total;
+        }
+
+        /**
+         * [from, to] 内已错过的次数（截止时间已过仍未打卡，今天未到截止时间的不计）
+         */
+        public int missed(LocalDate from, LocalDate to, LocalDateTime now) {
+            return Math.max(expected(from, to) - completed(from, to) - pending(from, to, now), 0);
+        }
+
+        /**
+         * [from, to] 内尚未到截止时间且未打卡的次数（只可能是今天）
+         */
+        private int pending(LocalDate from, LocalDate to, LocalDateTime now) {
+            LocalDate today = now.toLocalDate();
+            if (today.isBefore(from) || today.isAfter(to)) {
+                return 0;
+            }
+
+            int total = 0;
+            for (CheckInTask task : tasks) {
+                if (effectiveFrom(task, today).isAfter(today) || effectiveTo(task, today).isBefore(today)
+                        || !TaskScheduleUtil.isActiveOnDate(task, today)) {
+                    continue;
+                }
+                BitSet days = completions.get(task.getId());
+                if (days != null && days.get(index(today))) {
+                    continue;
+                }
+                LocalDateTime deadline = TaskScheduleUtil.targetTimeOn(task, today)
+                        .plusMinutes(TaskScheduleUtil.CHECK_IN_LIMIT_MINUTES);
+                if (now.isBefore(deadline)) {
+                    total++;
+                }
+            }
+            return total;
+        }
+
+        private LocalDate effectiveFrom(CheckInTask task, LocalDate from) {
+            LocalDate created = task.getCreateTime() != null ? task.getCreateTime().toLocalDate() : null;
+            return created != null && created.isAfter(from) ? created : from;
+        }
+
+        /**
+         * 任务停用时统计截止到停用当天（截止时间已过）或前一天
+         */
+        private LocalDate effectiveTo(CheckInTask task, LocalDate to) {
+            LocalDateTime disabled = task.getDisableTime();
+            if (disabled == null) {
+                return to;
+            }
+            LocalDate day = disabled.toLocalDate();
+            LocalDateTime deadline = TaskScheduleUtil.targetTimeOn(task, day)
+                    .plusMinutes(TaskScheduleUtil.CHECK_IN_LIMIT_MINUTES);
+            LocalDate last = deadline.isAfter(disabled) ? day.minusDays(1) : day;
+            return last.isBefore(to) ? last : to;
+        }
+
+        private int index(LocalDate date) {
+            return (int) (date.toEpochDay() - start.toEpochDay());
+        }
+    }
+}
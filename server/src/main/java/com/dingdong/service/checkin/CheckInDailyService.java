@@ -0,0 +1,312 @@
+package com.dingdong.service.checkin;
+
+import cn.hutool.core.util.IdUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.dingdong.common.util.RedisUtil;
+import com.dingdong.entity.checkin.CheckInLog;
+import com.dingdong.mapper.checkin.CheckInLogMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每日打卡完成记录服务
+ * 使用 Redis Hash 按天维护已完成打卡的任务，打卡时增量写入，查询时按任务ID O(1) 读取，
+ * 不再按 IN (taskIds) 范围查询 check_in_log
+ *
+ * Key 设计:
+ * - 每日完成记录: checkin:done:{yyyyMMdd}，field 为任务ID，value 为 "状态|打卡时间"
+ * - 哨兵字段 _ready 表示当天数据已从 MySQL 完整重建
+ *
+ * 只缓存今天和昨天，更早的日期直接查询数据库。
+ * 主节点在启动时和零点后预热今天和昨天（CheckInDailyWarmUpTask）；
+ * 读取时哨兵缺失（Redis 数据丢失）则本次查询数据库，同时在后台重建，不阻塞请求
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CheckInDailyService {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final CheckInLogMapper checkInLogMapper;
+    private final RedisUtil redisUtil;
+    private final Executor businessExecutor;
+
+    /**
+     * 当前节点正在后台重建的日期（同一日期只提交一次）
+     */
+    private final Set<LocalDate> rebuilding = ConcurrentHashMap.newKeySet();
+
+    private static final String KEY_PREFIX = "checkin:done:";
+
+    /**
+     * 重建锁 Key 前缀（避免多个请求同时重建同一天）
+     */
+    private static final String REBUILD_LOCK_PREFIX = "checkin:done:rebuild:";
+
+    /**
+     * 哨兵字段
+     */
+    private static final String READY_FIELD = "_ready";
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * 缓存的天数（今天和昨天）
+     */
+    private static final int CACHED_DAYS = 2;
+
+    /**
+     * 过期时间（天），需大于缓存天数
+     */
+    private static final long EXPIRE_DAYS = 3;
+
+    /**
+     * 重建锁过期时间（秒）
+     */
+    private static final long REBUILD_LOCK_SECONDS = 60;
+
+    /**
+     * 释放重建锁脚本：仅当锁仍为当前令牌时删除
+     */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('GET', KEYS[1]) "
+                    + "if v and v == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+                    + "return 0",
+            Long.class);
+
+    /**
+     * 重建时每批加载的打卡记录数
+     */
+    private static final int REBUILD_BATCH_SIZE = 2000;
+
+    /**
+     * 记录任务打卡完成（同一天只保留第一次打卡）
+     *
+     * @param checkInLog 打卡记录
+     */
+    public void markCompleted(CheckInLog checkInLog) {
+        LocalDate date = checkInLog.getCheckTime().toLocalDate();
+        if (!isCached(date)) {
+            return;
+        }
+
+        String key = getKey(date);
+        try {
+            stringRedisTemplate.opsForHash().putIfAbsent(key, String.valueOf(checkInLog.getTaskId()),
+                    encode(checkInLog));
+            stringRedisTemplate.expire(key, EXPIRE_DAYS, TimeUnit.DAYS);
+        } catch (Exception e) {
+            log.warn("记录每日打卡完成失败: taskId={}, date={}", checkInLog.getTaskId(), date, e);
+            invalidate(key);
+        }
+    }
+
+    /**
+     * 查询任务在指定日期的打卡记录
+     * 优先读取 Redis，当天数据未就绪或 Redis 不可用时查询数据库
+     *
+     * @param taskIds 任务ID列表
+     * @param date    日期
+     * @return 任务ID -> 打卡记录（仅包含 taskId、status、checkTime）
+     */
+    public Map<Long, CheckInLog> getCompletedLogs(Collection<Long> taskIds, LocalDate date) {
+        if (taskIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        if (isCached(date)) {
+            try {
+                Map<Long, CheckInLog> result = readFromCache(taskIds, date);
+                if (result != null) {
+                    return result;
+                }
+            } catch (Exception e) {
+                log.warn("读取每日打卡完成记录失败，降级为数据库查询: date={}", date, e);
+            }
+        }
+        return queryFromDatabase(taskIds, date);
+    }
+
+    /**
+     * 预热今天和昨天的完成记录（已就绪的日期跳过）
+     */
+    public void warmUp() {
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < CACHED_DAYS; i++) {
+            LocalDate date = today.minusDays(i);
+            if (!isReady(date)) {
+                rebuild(date);
+            }
+        }
+    }
+
+    /**
+     * 从 MySQL 重建指定日期的完成记录
+     *
+     * @param date 日期
+     * @return 是否重建成功（未获取到重建锁时返回 false）
+     */
+    public boolean rebuild(LocalDate date) {
+        String lockKey = REBUILD_LOCK_PREFIX + date.format(DATE_FORMATTER);
+        // 每次调用使用独立令牌，锁过期被他人重新获取后不会误删对方的锁
+        String lockToken = IdUtil.fastSimpleUUID();
+        Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(lockKey, lockToken,
+                REBUILD_LOCK_SECONDS, TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(locked)) {
+            return false;
+        }
+
+        String key = getKey(date);
+        try {
+            long lastId = 0L;
+            int total = 0;
+            while (true) {
+                List<CheckInLog> batch = checkInLogMapper.selectList(new LambdaQueryWrapper<CheckInLog>()
+                        .select(CheckInLog::getId, CheckInLog::getTaskId, CheckInLog::getStatus,
+                                CheckInLog::getCheckTime)
+                        .ge(CheckInLog::getCheckTime, date.atStartOfDay())
+                        .lt(CheckInLog::getCheckTime, date.plusDays(1).atStartOfDay())
+                        .gt(CheckInLog::getId, lastId)
+                        .orderByAsc(CheckInLog::getId)
+                        .last("LIMIT " + REBUILD_BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                // 按 ID 升序加载，同一任务只保留第一次打卡
+                Map<String, String> fields = new LinkedHashMap<>();
+                for (CheckInLog checkInLog : batch) {
+                    if (checkInLog.getTaskId() != null) {
+                        fields.putIfAbsent(String.valueOf(checkInLog.getTaskId()), encode(checkInLog));
+                    }
+                }
+                redisUtil.hSetIfAbsentBatch(key, fields);
+                total += batch.size();
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+
+            stringRedisTemplate.opsForHash().put(key, READY_FIELD, "1");
+            stringRedisTemplate.expire(key, EXPIRE_DAYS, TimeUnit.DAYS);
+            log.info("每日打卡完成记录重建完成: date={}, logs={}", date, total);
+            return true;
+        } finally {
+            redisUtil.execute(UNLOCK_SCRIPT, List.of(lockKey), lockToken);
+        }
+    }
+
+    /**
+     * 读取缓存，当天数据未就绪时返回 null
+     */
+    private Map<Long, CheckInLog> readFromCache(Collection<Long> taskIds, LocalDate date) {
+        String key = getKey(date);
+        List<Object> fields = new ArrayList<>(taskIds.size() + 1);
+        fields.add(READY_FIELD);
+        for (Long taskId : taskIds) {
+            fields.add(String.valueOf(taskId));
+        }
+
+        List<Object> values = stringRedisTemplate.opsForHash().multiGet(key, fields);
+        if (values.get(0) == null) {
+            rebuildAsync(date);
+            return null;
+        }
+
+        Map<Long, CheckInLog> result = new HashMap<>();
+        int index = 1;
+        for (Long taskId : taskIds) {
+            Object value = values.get(index++);
+            if (value != null) {
+                result.put(taskId, decode(taskId, value.toString()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 在后台重建指定日期的完成记录（当前节点同一日期只提交一次，跨节点由重建锁互斥）
+     */
+    private void rebuildAsync(LocalDate date) {
+        if (!rebuilding.add(date)) {
+            return;
+        }
+        try {
+            businessExecutor.execute(() -> {
+                try {
+                    rebuild(date);
+                } catch (Exception e) {
+                    log.warn("每日打卡完成记录重建失败: date={}", date, e);
+                } finally {
+                    rebuilding.remove(date);
+                }
+            });
+        } catch (Exception e) {
+            rebuilding.remove(date);
+            log.warn("提交每日打卡完成记录重建失败: date={}", date, e);
+        }
+    }
+
+    private boolean isReady(LocalDate date) {
+        return stringRedisTemplate.opsForHash().hasKey(getKey(date), READY_FIELD);
+    }
+
+    private Map<Long, CheckInLog> queryFromDatabase(Collection<Long> taskIds, LocalDate date) {
+        List<CheckInLog> logs = checkInLogMapper.selectList(new LambdaQueryWrapper<CheckInLog>()
+                .in(CheckInLog::getTaskId, taskIds)
+                .ge(CheckInLog::getCheckTime, date.atStartOfDay())
+                .lt(CheckInLog::getCheckTime, date.plusDays(1).atStartOfDay())
+                .orderByAsc(CheckInLog::getId));
+
+        Map<Long, CheckInLog> result = new HashMap<>();
+        for (CheckInLog checkInLog : logs) {
+            if (checkInLog.getTaskId() != null) {
+                result.putIfAbsent(checkInLog.getTaskId(), checkInLog);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 删除哨兵，下次读取时重建（写入失败时保证不会读到不完整的数据）
+     */
+    private void invalidate(String key) {
+        try {
+            stringRedisTemplate.opsForHash().delete(key, READY_FIELD);
+        } catch (Exception e) {
+            log.warn("清除每日打卡完成记录哨兵失败: key={}", key, e);
+        }
+    }
+
+    private boolean isCached(LocalDate date) {
+        LocalDate today = LocalDate.now();
+        return !date.isAfter(today) && date.isAfter(today.minusDays(CACHED_DAYS));
+    }
+
+    private String getKey(LocalDate date) {
+        return KEY_PREFIX + date.format(DATE_FORMATTER);
+    }
+
+    private String encode(CheckInLog checkInLog) {
+        return checkInLog.getStatus() + "|" + checkInLog.getCheckTime();
+    }
+
+    private CheckInLog decode(Long taskId, String value) {
+        int separator = value.indexOf('|');
+        CheckInLog checkInLog = new CheckInLog();
+        checkInLog.setTaskId(taskId);
+        checkInLog.setStatus(Integer.valueOf(value.substring(0, separator)));
+        checkInLog.setCheckTime(LocalDateTime.parse(value.substring(separator + 1)));
+        return checkInLog;
+    }
+}
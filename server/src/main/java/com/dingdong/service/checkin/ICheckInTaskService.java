@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.dingdong.dto.checkin.DailyTaskStatusDTO;
 import com.dingdong.dto.checkin.SupervisedUserStatusDTO;
 import com.dingdong.dto.checkin.TaskDTO;
+import com.dingdong.dto.checkin.TaskUpdateDTO;
 import com.dingdong.entity.checkin.CheckInTask;
 
 import java.time.LocalDate;
@@ -28,6 +29,22 @@ public interface ICheckInTaskService extends IService<CheckInTask> {
      */
     boolean createTask(TaskDTO taskDTO);
 
+    /**
+     * 更新任务（同步刷新提醒调度）
+     *
+     * @param updateDTO 更新参数
+     * @return 是否成功
+     */
+    boolean updateTask(TaskUpdateDTO updateDTO);
+
+    /**
+     * 停用任务（软删除，同步移除提醒调度）
+     *
+     * @param taskId 任务ID
+     * @return 是否成功
+     */
+    boolean disableTask(Long taskId);
+
     /**
      * 获取用户每日任务及完成状态（限定创建者）
      *
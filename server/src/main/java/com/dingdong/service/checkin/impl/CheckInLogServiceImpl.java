@@ -13,14 +13,22 @@ import com.dingdong.entity.checkin.CheckInTask;
 import com.dingdong.entity.user.SysUser;
 import com.dingdong.mapper.checkin.CheckInLogMapper;
 import com.dingdong.mapper.checkin.CheckInTaskMapper;
+import com.dingdong.service.analytics.CheckInAnalyticsService;
 import com.dingdong.service.checkin.CheckInBitmapService;
+import com.dingdong.service.checkin.CheckInDailyService;
 import com.dingdong.service.checkin.ICheckInLogService;
 import com.dingdong.service.notification.INotificationLogService;
-import com.dingdong.service.user.ISysUserService;
+import com.dingdong.service.notification.INotificationOutboxService;
+import com.dingdong.service.reminder.ReminderScheduleService;
+import com.dingdong.service.user.IUserDailyStatsService;
+import com.dingdong.service.user.UserProfileCache;
 import com.dingdong.service.wechat.SubscribeMessageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -39,13 +47,19 @@ import java.util.concurrent.Executor;
 public class CheckInLogServiceImpl extends ServiceImpl<CheckInLogMapper, CheckInLog> implements ICheckInLogService {
 
     private final CheckInTaskMapper checkInTaskMapper;
-    private final ISysUserService sysUserService;
+    private final UserProfileCache userProfileCache;
     private final SubscribeMessageService subscribeMessageService;
     private final CheckInBitmapService checkInBitmapService;
+    private final CheckInDailyService checkInDailyService;
+    private final CheckInAnalyticsService checkInAnalyticsService;
     private final INotificationLogService notificationLogService;
+    private final INotificationOutboxService notificationOutboxService;
+    private final ReminderScheduleService reminderScheduleService;
+    private final IUserDailyStatsService userDailyStatsService;
     private final Executor businessExecutor;
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean doCheckIn(CheckInDTO checkInDTO) {
         // 1. 获取并验证任务
         CheckInTask task = getAndValidateTask(checkInDTO.getTaskId());
@@ -58,27 +72,55 @@ public class CheckInLogServiceImpl extends ServiceImpl<CheckInLogMapper, CheckIn
         // 3. 构建并保存打卡记录
         CheckInLog checkInLog = createCheckInLog(checkInDTO, now, targetTime);
         boolean saved = this.save(checkInLog);
+        if (!saved) {
+            return false;
+        }
+
+        // 4. 累加用户当天打卡统计（失败时由每日汇总任务按打卡记录重算）
+        try {
+            userDailyStatsService.recordCheckIn(checkInLog.getUserId(), now.toLocalDate(), checkInLog.getStatus());
+        } catch (Exception e) {
+            log.warn("累加用户打卡统计失败: userId={}", checkInLog.getUserId(), e);
+        }
+
+        // 5. 打卡完成通知写入发件箱（与打卡记录同一事务，写入失败时打卡一并回滚）
+        if (task.getCreatorId() != null) {
+            sendCheckInNotification(task, checkInLog.getUserId(), now, !now.isAfter(targetTime));
+        }
 
-        // 4. 异步执行后置处理（Redis统计 + 消息通知）
-        if (saved) {
-            CompletableFuture
-                    .runAsync(() -> processAfterCheckIn(checkInDTO, task, now, targetTime, checkInLog.getUserId()),
-                            businessExecutor)
-                    .exceptionally(e -> {
-                        log.error("打卡后置处理执行异常", e);
-                        return null;
-                    });
+        // 6. 事务提交后更新 Redis
+        afterCommit(() -> processAfterCommit(checkInDTO, task, checkInLog, now, targetTime));
+        return true;
+    }
+
+    /**
+     * 事务提交后的处理
+     * 同步取消本次的漏打卡截止事件、记录今日完成状态（避免异步延迟期间截止事件到期误发漏打卡通知），
+     * 位图和统计分析异步写入
+     */
+    private void processAfterCommit(CheckInDTO checkInDTO, CheckInTask task, CheckInLog checkInLog,
+            LocalDateTime now, LocalDateTime targetTime) {
+        try {
+            reminderScheduleService.skipOccurrence(task, targetTime);
+        } catch (Exception e) {
+            log.warn("取消本次提醒调度失败: taskId={}", task.getId(), e);
         }
 
-        return saved;
+        checkInDailyService.markCompleted(checkInLog);
+
+        CompletableFuture
+                .runAsync(() -> processAfterCheckIn(checkInDTO, now, checkInLog.getUserId()), businessExecutor)
+                .exceptionally(e -> {
+                    log.error("打卡后置处理执行异常", e);
+                    return null;
+                });
     }
 
     /**
-     * 打卡后置处理（Redis记录 + 消息通知）
+     * 打卡后置处理（Redis 位图 + 统计分析）
      * 聚合辅助业务逻辑，统一异常边界
      */
-    private void processAfterCheckIn(CheckInDTO checkInDTO, CheckInTask task, LocalDateTime now,
-            LocalDateTime targetTime, Long userId) {
+    private void processAfterCheckIn(CheckInDTO checkInDTO, LocalDateTime now, Long userId) {
         // 1. 记录到 Redis Bitmap
         try {
             checkInBitmapService.recordTaskCheckIn(
@@ -89,17 +131,30 @@ public class CheckInLogServiceImpl extends ServiceImpl<CheckInLogMapper, CheckIn
             log.warn("Redis Bitmap 记录失败: userId={}, taskId={}", userId, checkInDTO.getTaskId(), e);
         }
 
-        // 2. 发送通知
-        if (task.getCreatorId() != null) {
-            try {
-                boolean isOnTime = !now.isAfter(targetTime);
-                sendCheckInNotification(task, userId, now, isOnTime);
-            } catch (Exception e) {
-                log.error("发送打卡通知失败: userId={}, taskId={}", userId, task.getId(), e);
-            }
+        // 2. 记录当天打卡用户（统计分析）
+        try {
+            checkInAnalyticsService.recordCheckIn(userId, now.toLocalDate());
+        } catch (Exception e) {
+            log.warn("记录当天打卡用户失败: userId={}", userId, e);
         }
     }
 
+    /**
+     * 在当前事务提交后执行（无事务时立即执行）
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     /**
      * 获取并验证任务是否存在
      */
@@ -162,8 +217,7 @@ public class CheckInLogServiceImpl extends ServiceImpl<CheckInLogMapper, CheckIn
     }
 
     /**
-     * 发送打卡完成通知
-     * (由 processAfterCheckIn 调用，异常由上层统一处理)
+     * 发送打卡完成通知（在打卡事务内写入发件箱，提交后由投递任务发送）
      */
     private void sendCheckInNotification(CheckInTask task, Long userId, LocalDateTime checkTime,
             boolean isOnTime) {
@@ -172,7 +226,7 @@ public class CheckInLogServiceImpl extends ServiceImpl<CheckInLogMapper, CheckIn
         LocalDate notifyDate = checkTime.toLocalDate();
 
         // 获取监督者信息
-        SysUser supervisor = sysUserService.getById(task.getCreatorId());
+        SysUser supervisor = userProfileCache.get(task.getCreatorId());
         if (supervisor == null || supervisor.getOpenid() == null) {
             log.warn("监督者不存在或无openid，无法发送打卡完成通知: supervisorId={}", task.getCreatorId());
             notificationLogService.record(task.getId(), notifyDate, notifyType,
@@ -181,28 +235,20 @@ public class CheckInLogServiceImpl extends ServiceImpl<CheckInLogMapper, CheckIn
         }
 
         // 获取被监督者信息
-        SysUser supervised = sysUserService.getById(userId);
+        SysUser supervised = userProfileCache.get(userId);
         String supervisedName = supervised != null ? supervised.getNickname() : "未知用户";
 
         log.info("发送打卡完成通知给监督者: supervisorId={}, supervisedName={}, taskTitle={}, isOnTime={}",
                 task.getCreatorId(), supervisedName, task.getTitle(), isOnTime);
 
-        try {
-            subscribeMessageService.sendCheckInCompleteMessage(
-                    supervisor.getOpenid(),
-                    supervisedName,
-                    task.getTitle(),
-                    checkTime,
-                    isOnTime);
-            // 记录发送成功
-            notificationLogService.record(task.getId(), notifyDate, notifyType,
-                    task.getCreatorId(), true, null);
-        } catch (Exception e) {
-            log.error("发送打卡通知失败: taskId={}", task.getId(), e);
-            notificationLogService.record(task.getId(), notifyDate, notifyType,
-                    task.getCreatorId(), false, e.getMessage());
-            throw e; // 重新抛出让上层捕获
-        }
+        // 写入发件箱，发送结果由发件箱投递完成后记录
+        notificationOutboxService.enqueue(task.getId(), notifyDate, notifyType, task.getCreatorId(),
+                subscribeMessageService.buildCheckInCompleteMessage(
+                        supervisor.getOpenid(),
+                        supervisedName,
+                        task.getTitle(),
+                        checkTime,
+                        isOnTime));
     }
 
     @Override
@@ -2,23 +2,30 @@ package com.dingdong.service.checkin.impl;
 
 import cn.hutool.core.bean.BeanUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.dingdong.common.constant.RelationStatus;
 import com.dingdong.common.constant.RepeatType;
 import com.dingdong.common.constant.TaskEnabled;
 import com.dingdong.common.constant.TaskStatus;
+import com.dingdong.common.util.TaskScheduleUtil;
 import com.dingdong.dto.checkin.DailyTaskStatusDTO;
 import com.dingdong.dto.checkin.SupervisedUserStatusDTO;
 import com.dingdong.dto.checkin.TaskDTO;
+import com.dingdong.dto.checkin.TaskUpdateDTO;
 import com.dingdong.entity.checkin.CheckInLog;
 import com.dingdong.entity.checkin.CheckInTask;
 import com.dingdong.entity.user.SysUser;
 import com.dingdong.entity.user.UserRelation;
 import com.dingdong.mapper.checkin.CheckInTaskMapper;
-import com.dingdong.service.checkin.ICheckInLogService;
+import com.dingdong.service.checkin.CheckInBitmapService;
+import com.dingdong.service.checkin.CheckInDailyService;
 import com.dingdong.service.checkin.ICheckInTaskService;
-import com.dingdong.service.user.ISysUserService;
+import com.dingdong.service.reminder.ReminderQueueService;
+import com.dingdong.service.reminder.ReminderScheduleService;
 import com.dingdong.service.user.IUserRelationService;
+import com.dingdong.service.user.RelationGraphCache;
+import com.dingdong.service.user.UserRelationEdgeService;
+import com.dingdong.service.user.UserProfileCache;
 import com.dingdong.service.wechat.SubscribeMessageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,7 +34,6 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -40,10 +46,15 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class CheckInTaskServiceImpl extends ServiceImpl<CheckInTaskMapper, CheckInTask> implements ICheckInTaskService {
 
-    private final ICheckInLogService checkInLogService;
+    private final CheckInDailyService checkInDailyService;
+    private final CheckInBitmapService checkInBitmapService;
     private final IUserRelationService userRelationService;
-    private final ISysUserService sysUserService;
+    private final RelationGraphCache relationGraphCache;
+    private final UserRelationEdgeService userRelationEdgeService;
+    private final UserProfileCache userProfileCache;
     private final SubscribeMessageService subscribeMessageService;
+    private final ReminderQueueService reminderQueueService;
+    private final ReminderScheduleService reminderScheduleService;
 
     @Override
     public List<DailyTaskStatusDTO> getDailyTaskStatus(Long userId, LocalDate date) {
@@ -62,7 +73,7 @@ public class CheckInTaskServiceImpl extends ServiceImpl<CheckInTaskMapper, Check
         }
 
         // 3. 查询当天的打卡记录
-        Map<Long, CheckInLog> logMap = queryTaskLogs(activeTasks, userId, date);
+        Map<Long, CheckInLog> logMap = queryTaskLogs(activeTasks, date);
 
         // 4. 组装DTO
         boolean isToday = date.equals(LocalDate.now());
@@ -91,7 +102,8 @@ public class CheckInTaskServiceImpl extends ServiceImpl<CheckInTaskMapper, Check
 
         // 如果没有任何任务，直接返回所有用户状态为 PENDING
         if (activeTasks.isEmpty()) {
-            return buildResultWithStatus(relations, userId, userMap, TaskStatus.PENDING.getCode());
+            return fillStreakDays(buildResultWithStatus(relations, userId, userMap, TaskStatus.PENDING.getCode()),
+                    partnerUserIds);
         }
 
         // 3. 获取任务的打卡记录
@@ -101,7 +113,7 @@ public class CheckInTaskServiceImpl extends ServiceImpl<CheckInTaskMapper, Check
         Map<Long, List<CheckInTask>> tasksByUserId = activeTasks.stream()
                 .collect(Collectors.groupingBy(CheckInTask::getUserId));
 
-        return relations.stream()
+        List<SupervisedUserStatusDTO> result = relations.stream()
                 .map(relation -> {
                     Long partnerId = relation.getInitiatorId().equals(userId) ? relation.getPartnerId()
                             : relation.getInitiatorId();
@@ -109,6 +121,24 @@ public class CheckInTaskServiceImpl extends ServiceImpl<CheckInTaskMapper, Check
                 })
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+        return fillStreakDays(result, partnerUserIds);
+    }
+
+    /**
+     * 批量填充伙伴的连续打卡天数（一次 MGET 读取所有伙伴的打卡位图）
+     */
+    private List<SupervisedUserStatusDTO> fillStreakDays(List<SupervisedUserStatusDTO> result, List<Long> userIds) {
+        Map<Long, Integer> streaks;
+        try {
+            streaks = checkInBitmapService.streaks(userIds);
+        } catch (Exception e) {
+            log.warn("批量读取连续打卡天数失败: userIds={}", userIds, e);
+            streaks = Collections.emptyMap();
+        }
+        for (SupervisedUserStatusDTO dto : result) {
+            dto.setStreakDays(streaks.getOrDefault(dto.getUserId(), 0));
+        }
+        return result;
     }
 
     @Override
@@ -117,14 +147,51 @@ public class CheckInTaskServiceImpl extends ServiceImpl<CheckInTaskMapper, Check
 
         CheckInTask task = BeanUtil.toBean(taskDTO, CheckInTask.class);
         task.setStatus(TaskEnabled.ENABLED.getCode());
+        reminderScheduleService.fillNextFireTimes(task);
         boolean saved = this.save(task);
 
         if (saved) {
+            reminderScheduleService.enqueue(task);
             notifyTaskExecutor(taskDTO, task);
         }
         return saved;
     }
 
+    @Override
+    public boolean updateTask(TaskUpdateDTO updateDTO) {
+        CheckInTask entity = BeanUtil.toBean(updateDTO, CheckInTask.class);
+        entity.setId(updateDTO.getTaskId());
+        boolean updated = this.updateById(entity);
+        if (updated) {
+            // 更新参数可能只包含部分字段，重新读取完整任务后刷新调度
+            CheckInTask task = this.getById(updateDTO.getTaskId());
+            if (task != null) {
+                reminderScheduleService.refresh(task);
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public boolean disableTask(Long taskId) {
+        boolean success = this.update(
+                new LambdaUpdateWrapper<CheckInTask>()
+                        .eq(CheckInTask::getId, taskId)
+                        .set(CheckInTask::getStatus, TaskEnabled.DISABLED.getCode())
+                        // 重复停用时保留第一次的停用时间
+                        .setSql("disable_time = IFNULL(disable_time, NOW())")
+                        .set(CheckInTask::getNextRemindAt, null)
+                        .set(CheckInTask::getNextMissedAt, null));
+        if (success) {
+            try {
+                reminderQueueService.remove(taskId);
+            } catch (Exception e) {
+                log.warn("移除任务提醒调度失败: taskId={}", taskId, e);
+            }
+        }
+        return success;
+    }
+
     /**
      * 验证任务创建者与执行者的关系
      */
@@ -147,13 +214,13 @@ public class CheckInTaskServiceImpl extends ServiceImpl<CheckInTaskMapper, Check
         }
 
         try {
-            SysUser executor = sysUserService.getById(taskDTO.getUserId());
+            SysUser executor = userProfileCache.get(taskDTO.getUserId());
             if (executor == null || executor.getOpenid() == null) {
                 log.debug("跳过通知: 执行者不存在或无openid");
                 return;
             }
 
-            SysUser creator = sysUserService.getById(taskDTO.getCreatorId());
+            SysUser creator = userProfileCache.get(taskDTO.getCreatorId());
             String creatorName = (creator != null) ? creator.getNickname() : "用户";
 
             subscribeMessageService.sendTaskReminderMessage(
@@ -180,41 +247,16 @@ public class CheckInTaskServiceImpl extends ServiceImpl<CheckInTaskMapper, Check
     }
 
     private List<CheckInTask> filterActiveTasks(List<CheckInTask> tasks, LocalDate date) {
-        int dayOfWeek = date.getDayOfWeek().getValue();
         return tasks.stream()
-                .filter(task -> isTaskActiveOnDate(task, date, dayOfWeek))
+                .filter(task -> TaskScheduleUtil.isActiveOnDate(task, date))
                 .collect(Collectors.toList());
     }
 
-    private Map<Long, CheckInLog> queryTaskLogs(List<CheckInTask> tasks, Long userId, LocalDate date) {
-        if (tasks.isEmpty())
-            return Collections.emptyMap();
-        List<Long> taskIds = tasks.stream().map(CheckInTask::getId).collect(Collectors.toList());
-
-        List<CheckInLog> logs = checkInLogService.list(new LambdaQueryWrapper<CheckInLog>()
-                .eq(CheckInLog::getUserId, userId)
-                .in(CheckInLog::getTaskId, taskIds)
-                .ge(CheckInLog::getCheckTime, date.atStartOfDay())
-                .lt(CheckInLog::getCheckTime, date.plusDays(1).atStartOfDay()));
-
-        return logs.stream()
-                .filter(l -> l.getTaskId() != null)
-                .collect(Collectors.toMap(CheckInLog::getTaskId, Function.identity(), (a, b) -> a));
-    }
-
     private Map<Long, CheckInLog> queryTaskLogs(List<CheckInTask> tasks, LocalDate date) {
         if (tasks.isEmpty())
             return Collections.emptyMap();
         List<Long> taskIds = tasks.stream().map(CheckInTask::getId).collect(Collectors.toList());
-
-        List<CheckInLog> logs = checkInLogService.list(new LambdaQueryWrapper<CheckInLog>()
-                .in(CheckInLog::getTaskId, taskIds)
-                .ge(CheckInLog::getCheckTime, date.atStartOfDay())
-                .lt(CheckInLog::getCheckTime, date.plusDays(1).atStartOfDay()));
-
-        return logs.stream()
-                .filter(l -> l.getTaskId() != null)
-                .collect(Collectors.toMap(CheckInLog::getTaskId, Function.identity(), (a, b) -> a));
+        return checkInDailyService.getCompletedLogs(taskIds, date);
     }
 
     private DailyTaskStatusDTO buildDailyTaskStatusDTO(CheckInTask task, CheckInLog log, boolean isToday,
@@ -237,17 +279,22 @@ public class CheckInTaskServiceImpl extends ServiceImpl<CheckInTaskMapper, Check
     }
 
     private List<UserRelation> getAcceptedRelations(Long userId) {
-        // 查询用户参与的所有已接受的关系（可能是发起人或伙伴）
-        return userRelationService.list(new LambdaQueryWrapper<UserRelation>()
-                .and(w -> w.eq(UserRelation::getInitiatorId, userId).or().eq(UserRelation::getPartnerId, userId))
-                .eq(UserRelation::getStatus, RelationStatus.ACCEPTED.getCode()));
+        // 关系缓存中没有伙伴时不再查询数据库
+        if (relationGraphCache.countPartners(userId) == 0) {
+            return Collections.emptyList();
+        }
+        // 查询用户参与的所有已接受的关系（可能是发起人或伙伴），先从边表取关系ID再按主键查询
+        List<Long> relationIds = userRelationEdgeService.getAcceptedRelationIds(userId);
+        if (relationIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return userRelationService.listByIds(relationIds);
     }
 
     private Map<Long, SysUser> getUserMap(List<Long> userIds) {
         if (userIds.isEmpty())
             return Collections.emptyMap();
-        return sysUserService.listByIds(userIds).stream()
-                .collect(Collectors.toMap(SysUser::getId, Function.identity()));
+        return userProfileCache.getAll(userIds);
     }
 
     private List<CheckInTask> getActiveTasksForUsers(List<Long> userIds, Long creatorId, LocalDate date) {
@@ -300,19 +347,6 @@ public class CheckInTaskServiceImpl extends ServiceImpl<CheckInTaskMapper, Check
         }).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
-    private boolean isTaskActiveOnDate(CheckInTask task, LocalDate date, int dayOfWeek) {
-        RepeatType repeatType = RepeatType.fromCode(task.getRepeatType());
-        if (repeatType == null)
-            return false;
-
-        if (repeatType == RepeatType.ONCE) {
-            LocalDateTime remindTime = task.getRemindTime();
-            return remindTime != null && remindTime.toLocalDate().equals(date);
-        } else {
-            return repeatType.matchesDayOfWeek(dayOfWeek);
-        }
-    }
-
     private Integer calculateTaskStatus(CheckInTask task, CheckInLog checkInLog, boolean isToday, LocalDate date) {
         if (checkInLog != null) {
             return checkInLog.getStatus();
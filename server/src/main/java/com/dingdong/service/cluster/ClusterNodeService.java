@@ -0,0 +1,143 @@
+package com.dingdong.service.cluster;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.net.NetUtil;
+import com.dingdong.config.ClusterProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 集群节点服务
+ * 使用 Redis ZSet 维护存活节点列表，score 为最近一次心跳时间戳（毫秒）
+ *
+ * 核心功能：
+ * 1. 节点心跳：每5秒上报一次，超过15秒未上报视为下线
+ * 2. 任务分片：按存活节点ID排序确定当前节点序号，供提醒任务按任务ID哈希分片
+ *
+ * 无法获取分片信息（Redis 不可用或当前节点未注册）时沿用上一次的分片信息，
+ * 超过 dingdong.cluster.shard-stale-seconds 后返回 null 由调用方跳过本次任务；
+ * 只有配置为单节点部署（dingdong.cluster.size = 1）时才按单节点处理全部任务
+ */
+@Slf4j
+@Service
+public class ClusterNodeService {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ClusterProperties properties;
+
+    /**
+     * 存活节点 ZSet Key
+     */
+    private static final String NODES_KEY = "dingdong:cluster:nodes";
+
+    /**
+     * 心跳超时时间（毫秒）
+     */
+    private static final long NODE_TTL_MILLIS = 15_000L;
+
+    /**
+     * 当前节点ID（主机名 + 随机后缀，同一主机多实例互不冲突）
+     */
+    @Getter
+    private final String nodeId;
+
+    /**
+     * 最近一次成功获取的分片信息及获取时间（毫秒）
+     */
+    private volatile ShardInfo lastShard;
+    private volatile long lastShardMillis;
+
+    public ClusterNodeService(StringRedisTemplate stringRedisTemplate, ClusterProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        this.nodeId = NetUtil.getLocalHostName() + "-" + IdUtil.fastSimpleUUID().substring(0, 8);
+    }
+
+    /**
+     * 每5秒上报心跳，并清理超时节点
+     */
+    @Scheduled(fixedRate = 5000)
+    public void heartbeat() {
+        try {
+            long now = System.currentTimeMillis();
+            stringRedisTemplate.opsForZSet().add(NODES_KEY, nodeId, now);
+            stringRedisTemplate.opsForZSet().removeRangeByScore(NODES_KEY, 0, now - NODE_TTL_MILLIS);
+        } catch (Exception e) {
+            log.warn("节点心跳上报失败: nodeId={}", nodeId, e);
+        }
+    }
+
+    /**
+     * 获取存活节点ID列表（按节点ID排序，各节点计算结果一致）
+     */
+    public List<String> getLiveNodes() {
+        Set<String> nodes = stringRedisTemplate.opsForZSet().rangeByScore(NODES_KEY,
+                System.currentTimeMillis() - NODE_TTL_MILLIS, Double.MAX_VALUE);
+        List<String> liveNodes = nodes != null ? new ArrayList<>(nodes) : new ArrayList<>();
+        liveNodes.sort(String::compareTo);
+        return liveNodes;
+    }
+
+    /**
+     * 获取当前节点的分片信息
+     *
+     * @return 分片信息；无法获取且没有未过期的上一次分片信息时返回 null（调用方应跳过本次任务）
+     */
+    public ShardInfo currentShard() {
+        try {
+            List<String> liveNodes = getLiveNodes();
+            int index = liveNodes.indexOf(nodeId);
+            if (index < 0) {
+                heartbeat();
+                liveNodes = getLiveNodes();
+                index = liveNodes.indexOf(nodeId);
+            }
+            if (index >= 0) {
+                ShardInfo shard = new ShardInfo(index, liveNodes.size());
+                lastShard = shard;
+                lastShardMillis = System.currentTimeMillis();
+                return shard;
+            }
+            log.warn("当前节点未注册到存活节点列表: nodeId={}", nodeId);
+        } catch (Exception e) {
+            log.warn("获取集群分片信息失败", e);
+        }
+        return fallbackShard();
+    }
+
+    /**
+     * 无法获取分片信息时的降级：单节点部署处理全部任务，否则沿用未过期的上一次分片信息
+     */
+    private ShardInfo fallbackShard() {
+        if (properties.getSize() <= 1) {
+            return ShardInfo.SINGLE;
+        }
+        ShardInfo shard = lastShard;
+        long ageMillis = System.currentTimeMillis() - lastShardMillis;
+        if (shard != null && ageMillis <= properties.getShardStaleSeconds() * 1000L) {
+            log.warn("沿用上一次分片信息: shard={}, age={}ms", shard, ageMillis);
+            return shard;
+        }
+        return null;
+    }
+
+    /**
+     * 停机时注销节点，其他节点下一分钟即可接管分片
+     */
+    @PreDestroy
+    public void unregister() {
+        try {
+            stringRedisTemplate.opsForZSet().remove(NODES_KEY, nodeId);
+        } catch (Exception e) {
+            log.warn("节点注销失败: nodeId={}", nodeId, e);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.dingdong.service.cluster;
+
+import com.dingdong.common.util.RedisUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 主节点选举服务
+ * 基于 Redis 租约实现，保证同一时刻只有一个节点执行全局定时任务（如解绑扫描）
+ *
+ * 核心功能：
+ * 1. 获取租约：Key 不存在时 SET PX 占用，并通过 INCR 生成单调递增的防护令牌
+ * 2. 续约：持有者每10秒续期一次，节点宕机后租约自然过期由其他节点接管
+ * 3. 释放：停机时仅删除自己持有的租约
+ *
+ * 防护令牌需由写操作自行校验（见 {@link LeaderLease}），目前用于位图对账替换线上 Key；
+ * 其余主节点任务的写入为条件更新或幂等覆盖，旧主节点重复执行不会破坏数据
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaderElectionService {
+
+    private final RedisUtil redisUtil;
+    private final ClusterNodeService clusterNodeService;
+
+    /**
+     * 全局定时任务（解绑扫描、调度兜底重建等）共用的租约名称
+     */
+    public static final String SCHEDULER_LEASE = "scheduler";
+
+    /**
+     * 租约 Key 前缀
+     * 格式: dingdong:cluster:leader:{name}
+     */
+    private static final String LEASE_KEY_PREFIX = "dingdong:cluster:leader:";
+
+    /**
+     * 防护令牌 Key 前缀
+     * 格式: dingdong:cluster:fencing:{name}
+     */
+    private static final String FENCING_KEY_PREFIX = "dingdong:cluster:fencing:";
+
+    /**
+     * 租约时长（毫秒）
+     */
+    private static final long LEASE_MILLIS = 30_000L;
+
+    /**
+     * 本地判断租约有效期时预留的时钟误差（毫秒）
+     */
+    private static final long CLOCK_DRIFT_MILLIS = 2_000L;
+
+    /**
+     * 获取或续约脚本
+     * KEYS[1] 为租约，KEYS[2] 为防护令牌计数器；ARGV[1] 为节点ID，ARGV[2] 为租约毫秒数
+     * 返回防护令牌，租约被其他节点持有时返回 -1
+     */
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('GET', KEYS[1]) "
+                    + "if v then "
+                    + "  local sep = string.find(v, '|', 1, true) "
+                    + "  if sep and string.sub(v, 1, sep - 1) == ARGV[1] then "
+                    + "    redis.call('PEXPIRE', KEYS[1], ARGV[2]) "
+                    + "    return tonumber(string.sub(v, sep + 1)) "
+                    + "  end "
+                    + "  return -1 "
+                    + "end "
+                    + "local token = redis.call('INCR', KEYS[2]) "
+                    + "redis.call('SET', KEYS[1], ARGV[1] .. '|' .. token, 'PX', ARGV[2]) "
+                    + "return token",
+            Long.class);
+
+    /**
+     * 释放脚本：仅当租约仍由当前节点持有时删除
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('GET', KEYS[1]) "
+                    + "if v and v == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+                    + "return 0",
+            Long.class);
+
+    /**
+     * 当前节点持有的租约
+     */
+    private final Map<String, LeaderLease> heldLeases = new ConcurrentHashMap<>();
+
+    /**
+     * 尝试成为指定任务的主节点（已持有时续约）
+     *
+     * @param name 租约名称
+     * @return 租约；其他节点持有或 Redis 不可用时返回 null
+     */
+    public LeaderLease tryAcquire(String name) {
+        long startMillis = System.currentTimeMillis();
+        Long token;
+        try {
+            token = redisUtil.execute(ACQUIRE_SCRIPT,
+                    List.of(LEASE_KEY_PREFIX + name, FENCING_KEY_PREFIX + name),
+                    clusterNodeService.getNodeId(), String.valueOf(LEASE_MILLIS));
+        } catch (Exception e) {
+            log.warn("获取主节点租约失败: name={}", name, e);
+            return null;
+        }
+
+        if (token == null || token < 0) {
+            LeaderLease lost = heldLeases.remove(name);
+            if (lost != null) {
+                lost.invalidate();
+                log.info("主节点租约已被其他节点接管: name={}, nodeId={}", name, clusterNodeService.getNodeId());
+            }
+            return null;
+        }
+
+        long expiresAt = startMillis + LEASE_MILLIS - CLOCK_DRIFT_MILLIS;
+        LeaderLease lease = heldLeases.get(name);
+        if (lease != null && lease.getFencingToken() == token) {
+            lease.extendTo(expiresAt);
+            return lease;
+        }
+
+        lease = new LeaderLease(name, token, FENCING_KEY_PREFIX + name, expiresAt);
+        heldLeases.put(name, lease);
+        log.info("成为主节点: name={}, nodeId={}, fencingToken={}", name, clusterNodeService.getNodeId(), token);
+        return lease;
+    }
+
+    /**
+     * 每10秒为持有的租约续期，避免长任务执行期间租约过期
+     */
+    @Scheduled(fixedRate = 10_000)
+    public void renewLeases() {
+        for (String name : heldLeases.keySet()) {
+            tryAcquire(name);
+        }
+    }
+
+    /**
+     * 停机时释放持有的租约，其他节点无需等待过期即可接管
+     */
+    @PreDestroy
+    public void releaseAll() {
+        heldLeases.forEach((name, lease) -> {
+            lease.invalidate();
+            try {
+                redisUtil.execute(RELEASE_SCRIPT, List.of(LEASE_KEY_PREFIX + name),
+                        clusterNodeService.getNodeId() + "|" + lease.getFencingToken());
+            } catch (Exception e) {
+                log.warn("释放主节点租约失败: name={}", name, e);
+            }
+        });
+        heldLeases.clear();
+    }
+}
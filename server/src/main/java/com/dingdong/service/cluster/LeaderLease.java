@@ -0,0 +1,48 @@
+package com.dingdong.service.cluster;
+
+import lombok.Getter;
+
+/**
+ * 主节点租约
+ * fencingToken 随每次易主单调递增，最新值保存在 fencingKey 中；
+ * 会覆盖线上数据的写操作应在 Lua 脚本中先比较 GET fencingKey 与 fencingToken，不一致时放弃写入，
+ * 这样租约已过期但仍在运行的旧主节点（如长时间 GC 停顿后）无法覆盖新主节点的数据。
+ * isValid() 只是本地时间判断，用于尽早停止，不能代替上述校验
+ */
+@Getter
+public class LeaderLease {
+
+    /** 租约名称（对应定时任务） */
+    private final String name;
+
+    /** 防护令牌 */
+    private final long fencingToken;
+
+    /** 保存最新防护令牌的 Redis Key */
+    private final String fencingKey;
+
+    /** 本地计算的租约到期时间（毫秒），已预留时钟误差 */
+    private volatile long expiresAtMillis;
+
+    public LeaderLease(String name, long fencingToken, String fencingKey, long expiresAtMillis) {
+        this.name = name;
+        this.fencingToken = fencingToken;
+        this.fencingKey = fencingKey;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    /**
+     * 租约是否仍然有效（执行长任务时应在每个写操作前检查）
+     */
+    public boolean isValid() {
+        return System.currentTimeMillis() < expiresAtMillis;
+    }
+
+    void extendTo(long expiresAtMillis) {
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    void invalidate() {
+        this.expiresAtMillis = 0L;
+    }
+}
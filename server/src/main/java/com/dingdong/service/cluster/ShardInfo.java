@@ -0,0 +1,45 @@
+package com.dingdong.service.cluster;
+
+import lombok.Getter;
+
+/**
+ * 当前节点的分片信息
+ * 按任务ID哈希将任务分配到存活节点，节点数变化时自动重新分配
+ */
+@Getter
+public class ShardInfo {
+
+    /** 单节点部署的分片信息：处理全部任务 */
+    public static final ShardInfo SINGLE = new ShardInfo(0, 1);
+
+    /** 当前节点序号（从0开始） */
+    private final int index;
+
+    /** 存活节点总数 */
+    private final int total;
+
+    public ShardInfo(int index, int total) {
+        this.index = index;
+        this.total = total;
+    }
+
+    /**
+     * 判断任务是否归当前节点处理
+     *
+     * @param id 任务ID
+     * @return 是否归当前节点
+     */
+    public boolean owns(long id) {
+        if (total <= 1) {
+            return true;
+        }
+        // 雪花ID低位多为序列号，先混淆再取模，保证分布均匀
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return Math.floorMod((int) (hash >>> 32), total) == index;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + total;
+    }
+}
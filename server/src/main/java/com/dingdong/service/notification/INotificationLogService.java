@@ -5,6 +5,8 @@ import com.dingdong.common.constant.NotifyType;
 import com.dingdong.entity.notification.NotificationLog;
 
 import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 通知推送记录服务接口
@@ -37,7 +39,7 @@ public interface INotificationLogService extends IService<NotificationLog> {
 
     /**
      * 尝试获取通知发送锁（Redis + 数据库双保险）
-     * 使用 Redis SETNX 实现分布式锁，同时检查数据库记录
+     * 使用 Redis SET NX EX 原子占位，仅在 Redis 数据丢失（重启）后回源数据库
      *
      * @param taskId     任务ID
      * @param notifyDate 通知日期
@@ -45,4 +47,22 @@ public interface INotificationLogService extends IService<NotificationLog> {
      * @return 是否获取成功（true=可以发送，false=已发送过）
      */
     boolean tryAcquireNotifyLock(Long taskId, LocalDate notifyDate, NotifyType notifyType);
+
+    /**
+     * 批量尝试获取通知发送锁（单次 Redis 调用）
+     *
+     * @param taskDates  任务ID -> 通知日期
+     * @param notifyType 通知类型
+     * @return 获取成功（可以发送）的任务ID集合
+     */
+    Set<Long> tryAcquireNotifyLocks(Map<Long, LocalDate> taskDates, NotifyType notifyType);
+
+    /**
+     * 释放通知发送锁（通知未能写入发件箱时调用，允许下次重新发送）
+     *
+     * @param taskId     任务ID
+     * @param notifyDate 通知日期
+     * @param notifyType 通知类型
+     */
+    void releaseNotifyLock(Long taskId, LocalDate notifyDate, NotifyType notifyType);
 }
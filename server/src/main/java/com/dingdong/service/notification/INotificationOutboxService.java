@@ -0,0 +1,65 @@
+package com.dingdong.service.notification;
+
+import cn.binarywang.wx.miniapp.bean.WxMaSubscribeMessage;
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.dingdong.common.constant.NotifyType;
+import com.dingdong.entity.notification.NotificationOutbox;
+import com.dingdong.service.cluster.LeaderLease;
+import com.dingdong.service.wechat.SubscribeSendResult;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 通知发件箱服务接口
+ */
+public interface INotificationOutboxService extends IService<NotificationOutbox> {
+
+    /**
+     * 订阅消息入队（落库后由投递任务异步发送）
+     *
+     * @param taskId     任务ID
+     * @param notifyDate 通知日期
+     * @param notifyType 通知类型
+     * @param userId     接收者用户ID
+     * @param message    订阅消息
+     * @return 是否入队成功（同一任务同一天同类型已入队时返回 false）
+     */
+    boolean enqueue(Long taskId, LocalDate notifyDate, NotifyType notifyType, Long userId,
+            WxMaSubscribeMessage message);
+
+    /**
+     * 领取一批到期待发送的消息，并标记为发送中（租约期内其他节点不会重复领取）
+     *
+     * @param limit 最大条数
+     * @return 已领取的消息
+     */
+    List<NotificationOutbox> claimBatch(int limit);
+
+    /**
+     * 将发件箱记录还原为订阅消息
+     *
+     * @param outbox 发件箱记录
+     * @return 订阅消息
+     */
+    WxMaSubscribeMessage toMessage(NotificationOutbox outbox);
+
+    /**
+     * 处理发送结果
+     * 成功或永久失败时结束投递并记录通知日志，临时失败按指数退避重新排队
+     *
+     * @param outbox 发件箱记录
+     * @param result 发送结果
+     */
+    void handleResult(NotificationOutbox outbox, SubscribeSendResult result);
+
+    /**
+     * 分批删除已结束（已发送、永久失败、重试耗尽）且最后一次领取早于指定时间的消息
+     *
+     * @param before 截止时间
+     * @param lease  主节点租约，失效时中止
+     * @return 删除的消息数
+     */
+    int purgeFinished(LocalDateTime before, LeaderLease lease);
+}
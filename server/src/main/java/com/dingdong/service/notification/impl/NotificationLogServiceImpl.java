@@ -5,20 +5,28 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.dingdong.common.constant.NotifyType;
 import com.dingdong.common.util.RedisUtil;
 import com.dingdong.entity.notification.NotificationLog;
+import com.dingdong.entity.notification.NotificationOutbox;
 import com.dingdong.mapper.notification.NotificationLogMapper;
+import com.dingdong.mapper.notification.NotificationOutboxMapper;
 import com.dingdong.service.notification.INotificationLogService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 通知推送记录服务实现类
  * 使用 Redis + 数据库双保险机制防止重复推送
+ *
+ * 正常情况下只需一次 Lua 脚本调用（SET NX EX）即可完成整批占位；
+ * 通过哨兵 Key 判断 Redis 是否丢失数据，仅在丢失后回源数据库预热
  */
 @Slf4j
 @Service
@@ -27,13 +35,45 @@ public class NotificationLogServiceImpl extends ServiceImpl<NotificationLogMappe
         implements INotificationLogService {
 
     private final RedisUtil redisUtil;
+    private final NotificationOutboxMapper notificationOutboxMapper;
 
     /** Redis Key 前缀 */
     private static final String NOTIFY_KEY_PREFIX = "notify:";
 
+    /** Redis 预热哨兵 Key（不存在说明 Redis 数据已丢失，需要从数据库预热） */
+    private static final String NOTIFY_SENTINEL_KEY = "notify:sentinel";
+
     /** Redis Key 过期时间（25小时，确保跨天后清理） */
     private static final long NOTIFY_KEY_EXPIRE_HOURS = 25;
 
+    /** 单次脚本调用的最大 Key 数 */
+    private static final int LOCK_BATCH_SIZE = 500;
+
+    /** 预热时每批加载的记录数 */
+    private static final int WARM_UP_BATCH_SIZE = 1000;
+
+    /**
+     * 批量占位脚本
+     * KEYS[1] 为哨兵，KEYS[2..n] 为通知锁；ARGV[1] 为值，ARGV[2] 为过期秒数
+     * 返回数组：第1位为哨兵是否存在（0 时不做任何占位），其后依次为各锁是否占位成功
+     */
+    private static final RedisScript<List<Long>> ACQUIRE_SCRIPT = longListScript(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return {0} end "
+                    + "local result = {1} "
+                    + "for i = 2, #KEYS do "
+                    + "  if redis.call('SET', KEYS[i], ARGV[1], 'NX', 'EX', ARGV[2]) then "
+                    + "    result[i] = 1 else result[i] = 0 end "
+                    + "end "
+                    + "return result");
+
+    /**
+     * 创建返回整数数组的脚本（Redis 整数数组反序列化为 List&lt;Long&gt;）
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static RedisScript<List<Long>> longListScript(String script) {
+        return (RedisScript<List<Long>>) (RedisScript) new DefaultRedisScript<>(script, List.class);
+    }
+
     @Override
     public boolean exists(Long taskId, LocalDate notifyDate, NotifyType notifyType) {
         return count(new LambdaQueryWrapper<NotificationLog>()
@@ -64,26 +104,147 @@ public class NotificationLogServiceImpl extends ServiceImpl<NotificationLogMappe
 
     @Override
     public boolean tryAcquireNotifyLock(Long taskId, LocalDate notifyDate, NotifyType notifyType) {
-        String redisKey = buildRedisKey(taskId, notifyDate, notifyType);
+        return tryAcquireNotifyLocks(Map.of(taskId, notifyDate), notifyType).contains(taskId);
+    }
 
-        // 1. Redis 快速判断（高性能）
-        if (Boolean.TRUE.equals(redisUtil.hasKey(redisKey))) {
-            log.debug("Redis 中已存在通知记录: {}", redisKey);
-            return false;
+    @Override
+    public Set<Long> tryAcquireNotifyLocks(Map<Long, LocalDate> taskDates, NotifyType notifyType) {
+        if (taskDates.isEmpty()) {
+            return Collections.emptySet();
         }
 
-        // 2. 数据库二次确认（兜底）
-        if (exists(taskId, notifyDate, notifyType)) {
-            // 数据库有记录但 Redis 没有，补充 Redis
-            redisUtil.set(redisKey, "1", NOTIFY_KEY_EXPIRE_HOURS, TimeUnit.HOURS);
-            log.debug("数据库中已存在通知记录: taskId={}, date={}, type={}", taskId, notifyDate, notifyType);
-            return false;
+        try {
+            // 1. Redis 原子占位（SET NX EX），一次调用完成整批
+            Set<Long> acquired = acquireInRedis(taskDates, notifyType);
+            if (acquired != null) {
+                return acquired;
+            }
+
+            // 2. 哨兵不存在说明 Redis 数据已丢失，从数据库预热近期通知记录后重试
+            warmUpLocks();
+            acquired = acquireInRedis(taskDates, notifyType);
+            if (acquired != null) {
+                return acquired;
+            }
+        } catch (Exception e) {
+            log.warn("Redis 获取通知锁失败，降级为数据库判断: type={}, size={}", notifyType, taskDates.size(), e);
+        }
+
+        // 3. Redis 不可用时仅依赖数据库记录（发件箱唯一索引兜底防重）
+        return acquireInDatabase(taskDates, notifyType);
+    }
+
+    @Override
+    public void releaseNotifyLock(Long taskId, LocalDate notifyDate, NotifyType notifyType) {
+        try {
+            redisUtil.delete(buildRedisKey(taskId, notifyDate, notifyType));
+        } catch (Exception e) {
+            log.warn("释放通知锁失败: taskId={}, date={}, type={}", taskId, notifyDate, notifyType, e);
         }
+    }
+
+    /**
+     * 在 Redis 中批量占位
+     *
+     * @return 占位成功的任务ID；Redis 未预热（哨兵不存在）时返回 null
+     */
+    private Set<Long> acquireInRedis(Map<Long, LocalDate> taskDates, NotifyType notifyType) {
+        List<Long> taskIds = new ArrayList<>(taskDates.keySet());
+        Set<Long> acquired = new HashSet<>();
+        for (int from = 0; from < taskIds.size(); from += LOCK_BATCH_SIZE) {
+            List<Long> chunk = taskIds.subList(from, Math.min(from + LOCK_BATCH_SIZE, taskIds.size()));
+            List<String> keys = new ArrayList<>(chunk.size() + 1);
+            keys.add(NOTIFY_SENTINEL_KEY);
+            for (Long taskId : chunk) {
+                keys.add(buildRedisKey(taskId, taskDates.get(taskId), notifyType));
+            }
 
-        // 3. 设置 Redis 标记（先占位，防止并发）
-        redisUtil.set(redisKey, "1", NOTIFY_KEY_EXPIRE_HOURS, TimeUnit.HOURS);
-        log.debug("获取通知锁成功: {}", redisKey);
-        return true;
+            List<Long> result = redisUtil.execute(ACQUIRE_SCRIPT, keys, "1",
+                    String.valueOf(TimeUnit.HOURS.toSeconds(NOTIFY_KEY_EXPIRE_HOURS)));
+            if (result == null || result.isEmpty() || result.get(0) == 0L) {
+                return null;
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                if (result.get(i + 1) == 1L) {
+                    acquired.add(chunk.get(i));
+                }
+            }
+        }
+        log.debug("批量获取通知锁: type={}, total={}, acquired={}", notifyType, taskDates.size(), acquired.size());
+        return acquired;
+    }
+
+    /**
+     * 从数据库加载近期已发送（含发件箱中已入队）的通知，写回 Redis 并设置哨兵
+     */
+    private void warmUpLocks() {
+        LocalDate fromDate = LocalDate.now().minusDays(1);
+        Set<String> keys = new HashSet<>();
+        long lastId = 0L;
+        while (true) {
+            List<NotificationLog> batch = list(new LambdaQueryWrapper<NotificationLog>()
+                    .select(NotificationLog::getId, NotificationLog::getTaskId, NotificationLog::getNotifyDate,
+                            NotificationLog::getNotifyType)
+                    .ge(NotificationLog::getNotifyDate, fromDate)
+                    .gt(NotificationLog::getId, lastId)
+                    .orderByAsc(NotificationLog::getId)
+                    .last("LIMIT " + WARM_UP_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            batch.forEach(l -> keys.add(buildRedisKey(l.getTaskId(), l.getNotifyDate(), l.getNotifyType())));
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+
+        lastId = 0L;
+        while (true) {
+            List<NotificationOutbox> batch = notificationOutboxMapper.selectList(
+                    new LambdaQueryWrapper<NotificationOutbox>()
+                            .select(NotificationOutbox::getId, NotificationOutbox::getTaskId,
+                                    NotificationOutbox::getNotifyDate, NotificationOutbox::getNotifyType)
+                            .ge(NotificationOutbox::getNotifyDate, fromDate)
+                            .gt(NotificationOutbox::getId, lastId)
+                            .orderByAsc(NotificationOutbox::getId)
+                            .last("LIMIT " + WARM_UP_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            batch.forEach(o -> keys.add(buildRedisKey(o.getTaskId(), o.getNotifyDate(), o.getNotifyType())));
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+
+        redisUtil.setIfAbsentBatch(keys, "1", NOTIFY_KEY_EXPIRE_HOURS, TimeUnit.HOURS);
+        // 哨兵不过期，Redis 数据丢失时随之消失
+        redisUtil.set(NOTIFY_SENTINEL_KEY, "1");
+        log.info("通知防重锁预热完成: 共 {} 条", keys.size());
+    }
+
+    /**
+     * 仅根据数据库记录判断（Redis 不可用时）
+     */
+    private Set<Long> acquireInDatabase(Map<Long, LocalDate> taskDates, NotifyType notifyType) {
+        Set<String> existing = new HashSet<>();
+        Set<LocalDate> dates = new HashSet<>(taskDates.values());
+        list(new LambdaQueryWrapper<NotificationLog>()
+                .select(NotificationLog::getTaskId, NotificationLog::getNotifyDate)
+                .in(NotificationLog::getTaskId, taskDates.keySet())
+                .in(NotificationLog::getNotifyDate, dates)
+                .eq(NotificationLog::getNotifyType, notifyType.getCode()))
+                .forEach(l -> existing.add(l.getTaskId() + ":" + l.getNotifyDate()));
+        notificationOutboxMapper.selectList(new LambdaQueryWrapper<NotificationOutbox>()
+                .select(NotificationOutbox::getTaskId, NotificationOutbox::getNotifyDate)
+                .in(NotificationOutbox::getTaskId, taskDates.keySet())
+                .in(NotificationOutbox::getNotifyDate, dates)
+                .eq(NotificationOutbox::getNotifyType, notifyType.getCode()))
+                .forEach(o -> existing.add(o.getTaskId() + ":" + o.getNotifyDate()));
+
+        Set<Long> acquired = new HashSet<>();
+        taskDates.forEach((taskId, date) -> {
+            if (!existing.contains(taskId + ":" + date)) {
+                acquired.add(taskId);
+            }
+        });
+        return acquired;
     }
 
     /**
@@ -91,6 +252,10 @@ public class NotificationLogServiceImpl extends ServiceImpl<NotificationLogMappe
      * 格式: notify:{taskId}:{date}:{type}
      */
     private String buildRedisKey(Long taskId, LocalDate notifyDate, NotifyType notifyType) {
-        return NOTIFY_KEY_PREFIX + taskId + ":" + notifyDate + ":" + notifyType.getCode();
+        return buildRedisKey(taskId, notifyDate, notifyType.getCode());
+    }
+
+    private String buildRedisKey(Long taskId, LocalDate notifyDate, Integer notifyType) {
+        return NOTIFY_KEY_PREFIX + taskId + ":" + notifyDate + ":" + notifyType;
     }
 }
@@ -0,0 +1,190 @@
+package com.dingdong.service.notification.impl;
+
+import cn.binarywang.wx.miniapp.bean.WxMaSubscribeMessage;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.dingdong.common.constant.NotifyType;
+import com.dingdong.common.constant.OutboxStatus;
+import com.dingdong.config.SubscribeMessageProperties;
+import com.dingdong.entity.notification.NotificationOutbox;
+import com.dingdong.mapper.notification.NotificationOutboxMapper;
+import com.dingdong.service.cluster.LeaderLease;
+import com.dingdong.service.notification.INotificationLogService;
+import com.dingdong.service.notification.INotificationOutboxService;
+import com.dingdong.service.wechat.SubscribeSendResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 通知发件箱服务实现类
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationOutboxServiceImpl extends ServiceImpl<NotificationOutboxMapper, NotificationOutbox>
+        implements INotificationOutboxService {
+
+    private final INotificationLogService notificationLogService;
+    private final SubscribeMessageProperties properties;
+
+    /** 错误信息最大长度（与表字段一致） */
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    /** 已结束的状态 */
+    private static final List<Integer> FINISHED_STATUSES = List.of(OutboxStatus.SENT.getCode(),
+            OutboxStatus.FAILED_PERMANENT.getCode(), OutboxStatus.RETRY_EXHAUSTED.getCode());
+
+    @Override
+    public boolean enqueue(Long taskId, LocalDate notifyDate, NotifyType notifyType, Long userId,
+            WxMaSubscribeMessage message) {
+        LocalDateTime now = LocalDateTime.now();
+        NotificationOutbox outbox = new NotificationOutbox();
+        outbox.setTaskId(taskId);
+        outbox.setNotifyDate(notifyDate);
+        outbox.setNotifyType(notifyType.getCode());
+        outbox.setUserId(userId);
+        outbox.setToOpenid(message.getToUser());
+        outbox.setTemplateId(StrUtil.nullToEmpty(message.getTemplateId()));
+        outbox.setPage(message.getPage());
+        outbox.setData(JSONUtil.toJsonStr(message.getData()));
+        outbox.setStatus(OutboxStatus.PENDING.getCode());
+        outbox.setAttempts(0);
+        outbox.setNextAttemptAt(now);
+        outbox.setCreateTime(now);
+        outbox.setUpdateTime(now);
+        try {
+            return save(outbox);
+        } catch (DuplicateKeyException e) {
+            log.debug("通知已入队: taskId={}, date={}, type={}", taskId, notifyDate, notifyType);
+            return false;
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<NotificationOutbox> claimBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationOutbox> batch = baseMapper.selectDueForUpdate(now, limit);
+        if (batch.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        LocalDateTime leaseUntil = now.plusSeconds(properties.getOutbox().getLeaseSeconds());
+        update(new LambdaUpdateWrapper<NotificationOutbox>()
+                .in(NotificationOutbox::getId, batch.stream().map(NotificationOutbox::getId)
+                        .collect(Collectors.toList()))
+                .set(NotificationOutbox::getStatus, OutboxStatus.SENDING.getCode())
+                .set(NotificationOutbox::getNextAttemptAt, leaseUntil)
+                .set(NotificationOutbox::getUpdateTime, now)
+                .setSql("attempts = attempts + 1"));
+
+        batch.forEach(outbox -> {
+            outbox.setStatus(OutboxStatus.SENDING.getCode());
+            outbox.setNextAttemptAt(leaseUntil);
+            outbox.setAttempts(outbox.getAttempts() + 1);
+        });
+        return batch;
+    }
+
+    @Override
+    public WxMaSubscribeMessage toMessage(NotificationOutbox outbox) {
+        return WxMaSubscribeMessage.builder()
+                .toUser(outbox.getToOpenid())
+                .templateId(outbox.getTemplateId())
+                .page(outbox.getPage())
+                .data(JSONUtil.toList(outbox.getData(), WxMaSubscribeMessage.MsgData.class))
+                .build();
+    }
+
+    @Override
+    public void handleResult(NotificationOutbox outbox, SubscribeSendResult result) {
+        OutboxStatus status;
+        LocalDateTime nextAttemptAt = outbox.getNextAttemptAt();
+        if (result.isSuccess()) {
+            status = OutboxStatus.SENT;
+        } else if (result.isPermanentFailure()) {
+            status = OutboxStatus.FAILED_PERMANENT;
+        } else if (outbox.getAttempts() >= properties.getOutbox().getMaxAttempts()) {
+            status = OutboxStatus.RETRY_EXHAUSTED;
+        } else {
+            status = OutboxStatus.PENDING;
+            nextAttemptAt = LocalDateTime.now().plusSeconds(backoffSeconds(outbox.getAttempts()));
+        }
+
+        // 仅更新仍由本次领取持有的记录（租约过期被重新领取时以新的投递结果为准）
+        boolean updated = update(new LambdaUpdateWrapper<NotificationOutbox>()
+                .eq(NotificationOutbox::getId, outbox.getId())
+                .eq(NotificationOutbox::getStatus, OutboxStatus.SENDING.getCode())
+                .eq(NotificationOutbox::getAttempts, outbox.getAttempts())
+                .set(NotificationOutbox::getStatus, status.getCode())
+                .set(NotificationOutbox::getNextAttemptAt, nextAttemptAt)
+                .set(NotificationOutbox::getLastErrCode, result.isSuccess() ? null : result.getErrCode())
+                .set(NotificationOutbox::getLastError, result.isSuccess() ? null
+                        : StrUtil.subPre(result.getErrMsg(), MAX_ERROR_LENGTH))
+                .set(NotificationOutbox::getUpdateTime, LocalDateTime.now()));
+        if (!updated) {
+            log.warn("发件箱记录已被重新领取，忽略本次结果: id={}, attempts={}", outbox.getId(), outbox.getAttempts());
+            return;
+        }
+
+        if (status == OutboxStatus.PENDING) {
+            log.info("通知发送失败，等待重试: id={}, attempts={}, errcode={}, nextAttemptAt={}",
+                    outbox.getId(), outbox.getAttempts(), result.getErrCode(), nextAttemptAt);
+            return;
+        }
+
+        if (status != OutboxStatus.SENT) {
+            log.warn("通知投递结束: id={}, status={}, attempts={}, errcode={}, errmsg={}", outbox.getId(),
+                    status.getDesc(), outbox.getAttempts(), result.getErrCode(), result.getErrMsg());
+        }
+        // 记录最终投递结果
+        notificationLogService.record(outbox.getTaskId(), outbox.getNotifyDate(),
+                NotifyType.fromCode(outbox.getNotifyType()), outbox.getUserId(), result.isSuccess(),
+                result.isSuccess() ? null : StrUtil.subPre(result.getErrMsg(), MAX_ERROR_LENGTH));
+    }
+
+    @Override
+    public int purgeFinished(LocalDateTime before, LeaderLease lease) {
+        int batchSize = properties.getOutbox().getPurgeBatchSize();
+        int purged = 0;
+        while (lease.isValid()) {
+            // 已结束消息的 next_attempt_at 为最后一次领取的租约到期时间，按 (status, next_attempt_at) 索引范围查找
+            List<Long> ids = list(new LambdaQueryWrapper<NotificationOutbox>()
+                    .select(NotificationOutbox::getId)
+                    .in(NotificationOutbox::getStatus, FINISHED_STATUSES)
+                    .lt(NotificationOutbox::getNextAttemptAt, before)
+                    .last("LIMIT " + batchSize))
+                    .stream().map(NotificationOutbox::getId).collect(Collectors.toList());
+            if (ids.isEmpty()) {
+                break;
+            }
+            int deleted = baseMapper.deleteBatchIds(ids);
+            purged += deleted;
+            if (deleted == 0 || ids.size() < batchSize) {
+                break;
+            }
+        }
+        return purged;
+    }
+
+    /**
+     * 计算第 attempts 次失败后的退避时间：initial * 2^(attempts-1)，不超过上限
+     */
+    private long backoffSeconds(int attempts) {
+        SubscribeMessageProperties.Outbox config = properties.getOutbox();
+        int shift = Math.min(Math.max(attempts - 1, 0), 20);
+        return Math.min(config.getInitialBackoffSeconds() << shift, config.getMaxBackoffSeconds());
+    }
+}
@@ -0,0 +1,118 @@
+package com.dingdong.service.reminder;
+
+import com.dingdong.config.ReminderProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 叮咚提醒处理通道
+ * 按用户ID哈希将到期事件分配到 N 个单线程通道并行处理
+ *
+ * 同一用户的事件始终进入同一通道，按提交顺序串行执行（先提醒后漏打卡），
+ * 不同用户之间并行，吞吐量随 CPU 核数扩展
+ *
+ * 通道队列满时提交方阻塞等待（不在提交线程直接执行），否则溢出的事件会先于同一用户已排队的事件执行
+ */
+@Slf4j
+@Component
+public class ReminderLaneExecutor {
+
+    private final List<ThreadPoolTaskExecutor> lanes;
+
+    public ReminderLaneExecutor(ReminderProperties properties, MeterRegistry meterRegistry) {
+        int laneCount = properties.getLanes() > 0 ? properties.getLanes()
+                : Runtime.getRuntime().availableProcessors();
+        this.lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(1);
+            executor.setMaxPoolSize(1);
+            executor.setQueueCapacity(properties.getLaneQueueCapacity());
+            executor.setThreadNamePrefix("dingdong-lane-" + i + "-");
+            // 队列满时阻塞提交线程直到有空位，事件不丢失且仍排在该通道已有事件之后
+            executor.setRejectedExecutionHandler(new BlockingSubmitPolicy());
+            executor.setWaitForTasksToCompleteOnShutdown(true);
+            executor.setAwaitTerminationSeconds(properties.getTickTimeoutSeconds());
+            executor.initialize();
+            lanes.add(executor);
+
+            Gauge.builder("dingdong.reminder.lane.queue.depth", executor,
+                    e -> e.getThreadPoolExecutor().getQueue().size())
+                    .description("叮咚提醒处理通道待处理事件数")
+                    .tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        log.info("叮咚提醒处理通道已初始化: lanes={}", laneCount);
+    }
+
+    /**
+     * 提交事件到用户所属通道
+     *
+     * @param userId 用户ID（决定通道）
+     * @param event  事件处理逻辑
+     * @return 事件完成信号
+     */
+    public CompletableFuture<Void> submit(Long userId, Runnable event) {
+        return CompletableFuture.runAsync(event, lanes.get(laneOf(userId)));
+    }
+
+    /**
+     * 通道数量
+     */
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    private int laneOf(Long userId) {
+        if (userId == null) {
+            return 0;
+        }
+        long hash = userId * 0x9E3779B97F4A7C15L;
+        return Math.floorMod((int) (hash >>> 32), lanes.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lanes.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    /**
+     * 队列满时阻塞等待空位再入队（只有定时任务线程提交，入队顺序即提交顺序）
+     * 通道已关闭或等待被中断时拒绝
+     */
+    private static class BlockingSubmitPolicy implements RejectedExecutionHandler {
+
+        /**
+         * 每次等待的时长（毫秒），超时后检查通道是否已关闭
+         */
+        private static final long OFFER_TIMEOUT_MILLIS = 1000;
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            try {
+                while (!executor.isShutdown()) {
+                    if (executor.getQueue().offer(task, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                    log.debug("叮咚提醒处理通道已满，等待空位: queue={}", executor.getQueue().size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("等待通道空位时被中断", e);
+            }
+            throw new RejectedExecutionException("叮咚提醒处理通道已关闭");
+        }
+    }
+}
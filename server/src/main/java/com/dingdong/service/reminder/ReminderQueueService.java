@@ -0,0 +1,147 @@
+package com.dingdong.service.reminder;
+
+import com.dingdong.common.constant.NotifyType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 叮咚提醒调度队列服务
+ * 使用 Redis ZSet 作为时间轮，score 为下一次触发时间戳（毫秒）
+ *
+ * 核心功能：
+ * 1. 叮咚提醒队列：score 为目标时间前30分钟
+ * 2. 漏打卡检查队列：score 为目标时间后30分钟
+ *
+ * 定时任务每分钟只读取 score <= 当前时间的任务，处理后再推进到下一次触发时间，
+ * 无需每分钟全表扫描 check_in_task
+ *
+ * 触发时间以 check_in_task.next_remind_at / next_missed_at 为准，本队列仅作为加速索引，
+ * 由 {@link ReminderScheduleService} 统一维护
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReminderQueueService {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 叮咚提醒队列 Key
+     */
+    private static final String REMIND_QUEUE_KEY = "dingdong:reminder:remind";
+
+    /**
+     * 漏打卡检查队列 Key
+     */
+    private static final String MISSED_QUEUE_KEY = "dingdong:reminder:missed";
+
+    /**
+     * 设置任务在指定队列中的下一次触发时间（触发时间为空时移除）
+     *
+     * @param taskId      任务ID
+     * @param notifyType  队列类型（REMIND / MISSED）
+     * @param triggerTime 下一次触发时间
+     */
+    public void put(Long taskId, NotifyType notifyType, LocalDateTime triggerTime) {
+        String member = String.valueOf(taskId);
+        if (triggerTime == null) {
+            // 单次任务已全部触发完毕或任务已停用
+            stringRedisTemplate.opsForZSet().remove(queueKey(notifyType), member);
+            return;
+        }
+        stringRedisTemplate.opsForZSet().add(queueKey(notifyType), member, toEpochMilli(triggerTime));
+    }
+
+    /**
+     * 仅在任务不在队列中时加入（用于兜底重建，避免覆盖已到期未处理的触发时间）
+     *
+     * @param taskId      任务ID
+     * @param notifyType  队列类型（REMIND / MISSED）
+     * @param triggerTime 触发时间
+     */
+    public void putIfAbsent(Long taskId, NotifyType notifyType, LocalDateTime triggerTime) {
+        if (triggerTime == null) {
+            return;
+        }
+        stringRedisTemplate.opsForZSet().addIfAbsent(queueKey(notifyType), String.valueOf(taskId),
+                toEpochMilli(triggerTime));
+    }
+
+    /**
+     * 从所有队列移除任务
+     *
+     * @param taskId 任务ID
+     */
+    public void remove(Long taskId) {
+        String member = String.valueOf(taskId);
+        stringRedisTemplate.opsForZSet().remove(REMIND_QUEUE_KEY, member);
+        stringRedisTemplate.opsForZSet().remove(MISSED_QUEUE_KEY, member);
+    }
+
+    /**
+     * 从指定队列移除任务
+     *
+     * @param taskId     任务ID
+     * @param notifyType 队列类型（REMIND / MISSED）
+     */
+    public void remove(Long taskId, NotifyType notifyType) {
+        stringRedisTemplate.opsForZSet().remove(queueKey(notifyType), String.valueOf(taskId));
+    }
+
+    /**
+     * 获取指定队列中所有已到期的任务
+     *
+     * @param notifyType 队列类型（REMIND / MISSED）
+     * @param now        当前时间
+     * @return 任务ID -> 触发时间（按触发时间升序）
+     */
+    public Map<Long, LocalDateTime> getDueTasks(NotifyType notifyType, LocalDateTime now) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet()
+                .rangeByScoreWithScores(queueKey(notifyType), 0, toEpochMilli(now));
+        if (tuples == null || tuples.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, LocalDateTime> dueTasks = new LinkedHashMap<>();
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            if (tuple.getValue() == null || tuple.getScore() == null) {
+                continue;
+            }
+            dueTasks.put(Long.parseLong(tuple.getValue()), fromEpochMilli(tuple.getScore().longValue()));
+        }
+        return dueTasks;
+    }
+
+    /**
+     * 获取队列中的任务数量（用于监控）
+     *
+     * @param notifyType 队列类型（REMIND / MISSED）
+     * @return 任务数量
+     */
+    public Long getQueueSize(NotifyType notifyType) {
+        return stringRedisTemplate.opsForZSet().size(queueKey(notifyType));
+    }
+
+    private String queueKey(NotifyType notifyType) {
+        return notifyType == NotifyType.MISSED ? MISSED_QUEUE_KEY : REMIND_QUEUE_KEY;
+    }
+
+    private long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime fromEpochMilli(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
+    }
+}
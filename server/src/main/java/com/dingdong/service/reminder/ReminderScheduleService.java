@@ -0,0 +1,246 @@
+package com.dingdong.service.reminder;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.dingdong.common.constant.NotifyType;
+import com.dingdong.common.constant.TaskEnabled;
+import com.dingdong.common.util.TaskScheduleUtil;
+import com.dingdong.entity.checkin.CheckInTask;
+import com.dingdong.mapper.checkin.CheckInTaskMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 叮咚提醒调度服务
+ * 统一维护任务的下一次触发时间（check_in_task.next_remind_at / next_missed_at）及 Redis 时间轮
+ *
+ * 数据库字段为持久化的权威数据，Redis ZSet 为加速索引：
+ * 1. 任务创建、修改、打卡、每次触发后推进时同时写入数据库和 Redis
+ * 2. Redis 不可用时，按 (status, next_xxx_at) 联合索引范围查询到期任务
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReminderScheduleService {
+
+    private final CheckInTaskMapper checkInTaskMapper;
+    private final ReminderQueueService reminderQueueService;
+
+    /**
+     * Redis 不可用时，单次从数据库加载的到期任务上限
+     */
+    private static final int FALLBACK_BATCH_SIZE = 1000;
+
+    /**
+     * 根据任务当前配置计算下一次触发时间并写入实体（不落库）
+     * 停用或无提醒时间的任务触发时间置空
+     *
+     * @param task 任务
+     */
+    public void fillNextFireTimes(CheckInTask task) {
+        if (!TaskEnabled.ENABLED.getCode().equals(task.getStatus()) || task.getRemindTime() == null) {
+            task.setNextRemindAt(null);
+            task.setNextMissedAt(null);
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        task.setNextRemindAt(TaskScheduleUtil.nextRemindTriggerTime(task, now));
+        task.setNextMissedAt(TaskScheduleUtil.nextMissedTriggerTime(task, now));
+    }
+
+    /**
+     * 将实体中的触发时间同步到 Redis 时间轮（Redis 异常不影响主流程，由定时兜底重建）
+     *
+     * @param task 任务
+     */
+    public void enqueue(CheckInTask task) {
+        try {
+            reminderQueueService.put(task.getId(), NotifyType.REMIND, task.getNextRemindAt());
+            reminderQueueService.put(task.getId(), NotifyType.MISSED, task.getNextMissedAt());
+        } catch (Exception e) {
+            log.warn("同步任务提醒调度到 Redis 失败: taskId={}", task.getId(), e);
+        }
+    }
+
+    /**
+     * 重新计算任务的下一次触发时间，并写入数据库和 Redis（任务修改时调用）
+     *
+     * @param task 任务（需为完整实体）
+     */
+    public void refresh(CheckInTask task) {
+        fillNextFireTimes(task);
+        checkInTaskMapper.update(null, new LambdaUpdateWrapper<CheckInTask>()
+                .eq(CheckInTask::getId, task.getId())
+                .set(CheckInTask::getNextRemindAt, task.getNextRemindAt())
+                .set(CheckInTask::getNextMissedAt, task.getNextMissedAt()));
+        enqueue(task);
+        log.debug("任务调度已刷新: taskId={}, nextRemindAt={}, nextMissedAt={}",
+                task.getId(), task.getNextRemindAt(), task.getNextMissedAt());
+    }
+
+    /**
+     * 处理完一次触发后，推进到下一次触发时间
+     * 停机期间积压的触发不再补发，直接推进到当前时间之后
+     *
+     * @param task       任务
+     * @param notifyType 队列类型（REMIND / MISSED）
+     * @param firedAt    本次已处理的触发时间
+     */
+    public void advance(CheckInTask task, NotifyType notifyType, LocalDateTime firedAt) {
+        updateNextFireTime(task, notifyType, nextFireTimeAfter(task, notifyType, firedAt));
+    }
+
+    /**
+     * 消费一次到期触发：仅当数据库中的触发时间仍为 firedAt 时推进到下一次（条件更新）
+     * 本次触发已被打卡取消或已由其他节点处理时返回 false，调用方不应再发送通知
+     *
+     * @param task       任务
+     * @param notifyType 队列类型（REMIND / MISSED）
+     * @param firedAt    本次到期的触发时间
+     * @return 是否成功消费
+     */
+    public boolean tryAdvance(CheckInTask task, NotifyType notifyType, LocalDateTime firedAt) {
+        return compareAndSetNextFireTime(task, notifyType, firedAt,
+                nextFireTimeAfter(task, notifyType, firedAt));
+    }
+
+    /**
+     * 撤销 tryAdvance 对本次触发的消费（通知未能写入发件箱时调用），下一分钟重新处理
+     * 仅当触发时间仍为推进后的值时恢复
+     *
+     * @param task       任务（tryAdvance 时使用的实体）
+     * @param notifyType 队列类型（REMIND / MISSED）
+     * @param firedAt    本次到期的触发时间
+     */
+    public void undoAdvance(CheckInTask task, NotifyType notifyType, LocalDateTime firedAt) {
+        LocalDateTime advanced = notifyType == NotifyType.MISSED ? task.getNextMissedAt() : task.getNextRemindAt();
+        if (advanced != null) {
+            compareAndSetNextFireTime(task, notifyType, advanced, firedAt);
+        }
+    }
+
+    /**
+     * 打卡完成后取消本次目标时间对应的触发（尚未到期的提醒和漏打卡截止事件无需再处理）
+     * 每次打卡只对应一个截止事件，取消后漏打卡检查不再需要查询打卡记录
+     *
+     * @param task       任务（打卡时读取的实体）
+     * @param targetTime 本次打卡对应的目标时间
+     */
+    public void skipOccurrence(CheckInTask task, LocalDateTime targetTime) {
+        LocalDateTime remindAt = targetTime.minusMinutes(TaskScheduleUtil.REMIND_ADVANCE_MINUTES);
+        LocalDateTime nextRemindAt = task.getNextRemindAt();
+        if (nextRemindAt != null && !nextRemindAt.isAfter(remindAt)) {
+            compareAndSetNextFireTime(task, NotifyType.REMIND, nextRemindAt,
+                    TaskScheduleUtil.nextRemindTriggerTime(task, remindAt.plusMinutes(1)));
+        }
+
+        LocalDateTime missedAt = targetTime.plusMinutes(TaskScheduleUtil.CHECK_IN_LIMIT_MINUTES);
+        LocalDateTime nextMissedAt = task.getNextMissedAt();
+        if (nextMissedAt != null && !nextMissedAt.isAfter(missedAt)) {
+            compareAndSetNextFireTime(task, NotifyType.MISSED, nextMissedAt,
+                    TaskScheduleUtil.nextMissedTriggerTime(task, missedAt.plusMinutes(1)));
+        }
+    }
+
+    /**
+     * 获取指定队列中所有已到期的任务
+     * 优先读取 Redis 时间轮，Redis 不可用时降级为数据库范围查询
+     *
+     * @param notifyType 队列类型（REMIND / MISSED）
+     * @param now        当前时间
+     * @return 任务ID -> 触发时间（按触发时间升序）
+     */
+    public Map<Long, LocalDateTime> getDueTasks(NotifyType notifyType, LocalDateTime now) {
+        try {
+            return reminderQueueService.getDueTasks(notifyType, now);
+        } catch (Exception e) {
+            log.warn("读取 Redis 提醒时间轮失败，降级为数据库查询: type={}", notifyType, e);
+        }
+
+        SFunction<CheckInTask, LocalDateTime> column = nextFireTimeColumn(notifyType);
+        List<CheckInTask> tasks = checkInTaskMapper.selectList(new LambdaQueryWrapper<CheckInTask>()
+                .select(CheckInTask::getId, column)
+                .eq(CheckInTask::getStatus, TaskEnabled.ENABLED.getCode())
+                .le(column, now)
+                .orderByAsc(column)
+                .last("LIMIT " + FALLBACK_BATCH_SIZE));
+        if (tasks.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, LocalDateTime> dueTasks = new LinkedHashMap<>();
+        for (CheckInTask task : tasks) {
+            dueTasks.put(task.getId(), column.apply(task));
+        }
+        return dueTasks;
+    }
+
+    /**
+     * 获取触发时间对应的数据库字段
+     */
+    public SFunction<CheckInTask, LocalDateTime> nextFireTimeColumn(NotifyType notifyType) {
+        return notifyType == NotifyType.MISSED ? CheckInTask::getNextMissedAt : CheckInTask::getNextRemindAt;
+    }
+
+    /**
+     * 计算本次触发之后的下一次触发时间（积压的触发直接推进到当前时间之后）
+     */
+    private LocalDateTime nextFireTimeAfter(CheckInTask task, NotifyType notifyType, LocalDateTime firedAt) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = firedAt.plusMinutes(1).isAfter(now) ? firedAt.plusMinutes(1) : now;
+        return notifyType == NotifyType.MISSED
+                ? TaskScheduleUtil.nextMissedTriggerTime(task, from)
+                : TaskScheduleUtil.nextRemindTriggerTime(task, from);
+    }
+
+    private void updateNextFireTime(CheckInTask task, NotifyType notifyType, LocalDateTime next) {
+        SFunction<CheckInTask, LocalDateTime> column = nextFireTimeColumn(notifyType);
+        checkInTaskMapper.update(null, new LambdaUpdateWrapper<CheckInTask>()
+                .eq(CheckInTask::getId, task.getId())
+                .set(column, next));
+        applyNextFireTime(task, notifyType, next);
+    }
+
+    /**
+     * 仅当数据库中的触发时间等于 expected 时更新为 next
+     *
+     * @return 是否更新成功
+     */
+    private boolean compareAndSetNextFireTime(CheckInTask task, NotifyType notifyType, LocalDateTime expected,
+            LocalDateTime next) {
+        SFunction<CheckInTask, LocalDateTime> column = nextFireTimeColumn(notifyType);
+        int rows = checkInTaskMapper.update(null, new LambdaUpdateWrapper<CheckInTask>()
+                .eq(CheckInTask::getId, task.getId())
+                .eq(column, expected)
+                .set(column, next));
+        if (rows == 0) {
+            log.debug("任务触发时间已变更，跳过: taskId={}, type={}, expected={}", task.getId(), notifyType, expected);
+            return false;
+        }
+        applyNextFireTime(task, notifyType, next);
+        return true;
+    }
+
+    private void applyNextFireTime(CheckInTask task, NotifyType notifyType, LocalDateTime next) {
+        if (notifyType == NotifyType.MISSED) {
+            task.setNextMissedAt(next);
+        } else {
+            task.setNextRemindAt(next);
+        }
+
+        try {
+            reminderQueueService.put(task.getId(), notifyType, next);
+        } catch (Exception e) {
+            log.warn("同步任务提醒调度到 Redis 失败: taskId={}, type={}", task.getId(), notifyType, e);
+        }
+    }
+}
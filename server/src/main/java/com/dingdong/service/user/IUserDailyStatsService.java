@@ -0,0 +1,45 @@
+package com.dingdong.service.user;
+
+import com.dingdong.entity.user.UserDailyStats;
+
+import java.time.LocalDate;
+
+/**
+ * 用户打卡统计汇总服务接口
+ */
+public interface IUserDailyStatsService {
+
+    /**
+     * 记录一次打卡（增量累加）
+     *
+     * @param userId 用户ID
+     * @param date   打卡日期
+     * @param status 打卡状态 {@link com.dingdong.common.constant.CheckInStatus}
+     */
+    void recordCheckIn(Long userId, LocalDate date, Integer status);
+
+    /**
+     * 汇总用户截至今天的全部次数（历史月份读取月汇总，本月读取日汇总）
+     *
+     * @param userId 用户ID
+     * @param today  今天
+     * @return 汇总结果
+     */
+    UserDailyStats sumTotal(Long userId, LocalDate today);
+
+    /**
+     * 按 check_in_log 重算指定日期的打卡次数（不重算月汇总，重算完一批日期后对涉及的月份调用 {@link #rollup}）
+     *
+     * @param date 日期（需为已结束的日期）
+     * @return 重算的用户数
+     */
+    int compact(LocalDate date);
+
+    /**
+     * 由日汇总重算指定月份所有用户的月汇总
+     *
+     * @param month 月份（任意一天）
+     * @return 影响行数
+     */
+    int rollup(LocalDate month);
+}
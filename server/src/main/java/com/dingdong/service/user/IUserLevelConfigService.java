@@ -3,6 +3,8 @@ package com.dingdong.service.user;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.dingdong.entity.user.UserLevelConfig;
 
+import java.util.List;
+
 /**
  * 用户等级配置服务接口
  */
@@ -23,4 +25,21 @@ public interface IUserLevelConfigService extends IService<UserLevelConfig> {
      * @return 等级配置
      */
     UserLevelConfig getUserLevelConfig(Long userId);
+
+    /**
+     * 获取所有等级配置（按排序升序）
+     *
+     * @return 等级配置列表
+     */
+    List<UserLevelConfig> listAllLevels();
+
+    /**
+     * 从数据库重新加载本节点的等级注册表
+     */
+    void refresh();
+
+    /**
+     * 重新加载等级注册表并通知所有节点重新加载
+     */
+    void publishRefresh();
 }
@@ -98,4 +98,12 @@ public interface IUserRelationService extends IService<UserRelation> {
      * @return 是否存在
      */
     boolean checkRelation(Long userId, Long otherUserId);
+
+    /**
+     * 解绑到期生效（仅当关系仍为解绑中时更新为已解绑，并设置冷却期、记录历史）
+     *
+     * @param relation 关系
+     * @return 是否更新成功（状态已变化时返回 false）
+     */
+    boolean completeUnbind(UserRelation relation);
 }
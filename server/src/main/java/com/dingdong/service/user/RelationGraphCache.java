@@ -0,0 +1,287 @@
+package com.dingdong.service.user;
+
+import com.dingdong.common.constant.RelationStatus;
+import com.dingdong.common.util.RedisUtil;
+import com.dingdong.config.RelationCacheProperties;
+import com.dingdong.entity.user.UserRelation;
+import com.dingdong.mapper.user.UserRelationEdgeMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * 用户关系图缓存
+ * 按用户维护已接受关系的伙伴ID集合，关系校验和伙伴列表不再查询数据库（未命中时从 user_relation_edge 加载）
+ *
+ * Key 设计:
+ * - 伙伴集合: dingdong:relation:partners:{userId}（Set，成员为伙伴ID，另含哨兵成员 0 表示已加载，保证无伙伴时集合也存在）
+ * - 失效通知频道: dingdong:relation:invalidate（消息为用户ID）
+ *
+ * 本地近端缓存保存排好序的 long[]，关系校验为二分查找；
+ * 关系变化（绑定、接受、拒绝、解绑、撤回解绑）在事务提交后增量更新 Redis 集合（集合不存在时跳过，下次读取时从数据库加载），
+ * 并通知所有节点清除本地缓存
+ */
+@Slf4j
+@Service
+public class RelationGraphCache {
+
+    private final UserRelationEdgeMapper userRelationEdgeMapper;
+    private final RedisUtil redisUtil;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final RelationCacheProperties properties;
+
+    private static final String KEY_PREFIX = "dingdong:relation:partners:";
+
+    private static final String INVALIDATE_CHANNEL = "dingdong:relation:invalidate";
+
+    /**
+     * 哨兵成员（用户ID均大于0）
+     */
+    private static final String LOADED_MEMBER = "0";
+
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * 加载脚本：集合不存在时写入（避免覆盖加载期间已提交的增量更新）
+     * KEYS[1] 为伙伴集合；ARGV[1] 为过期秒数，ARGV[2..] 为成员（含哨兵）
+     */
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end "
+                    + "redis.call('SADD', KEYS[1], unpack(ARGV, 2)) "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * 增量更新脚本：只更新已存在的集合
+     * KEYS[1]、KEYS[2] 为双方的伙伴集合；ARGV[1] 为 1 添加 / 0 删除，ARGV[2]、ARGV[3] 为对应的对方ID
+     */
+    private static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, 2 do "
+                    + "  if redis.call('EXISTS', KEYS[i]) == 1 then "
+                    + "    if ARGV[1] == '1' then redis.call('SADD', KEYS[i], ARGV[i + 1]) "
+                    + "    else redis.call('SREM', KEYS[i], ARGV[i + 1]) end "
+                    + "  end "
+                    + "end "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * 本地近端缓存: 用户ID -> 排好序的伙伴ID（未启用时为 null）
+     */
+    private final Cache<Long, long[]> localCache;
+
+    public RelationGraphCache(UserRelationEdgeMapper userRelationEdgeMapper, RedisUtil redisUtil,
+            StringRedisTemplate stringRedisTemplate, RedisMessageListenerContainer listenerContainer,
+            RelationCacheProperties properties) {
+        this.userRelationEdgeMapper = userRelationEdgeMapper;
+        this.redisUtil = redisUtil;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.properties = properties;
+        this.localCache = properties.isLocalCacheEnabled()
+                ? Caffeine.newBuilder()
+                        .maximumSize(properties.getLocalCacheMaxSize())
+                        .expireAfterWrite(Duration.ofSeconds(properties.getLocalCacheSeconds()))
+                        .build()
+                : null;
+    }
+
+    /**
+     * 订阅失效通知
+     */
+    @PostConstruct
+    public void subscribe() {
+        if (localCache == null) {
+            return;
+        }
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                localCache.invalidate(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+            } catch (NumberFormatException e) {
+                log.warn("无效的关系缓存失效通知: {}", message);
+            }
+        }, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 两个用户之间是否存在已接受的关系
+     *
+     * @param userId      用户ID
+     * @param otherUserId 对方用户ID
+     * @return 是否为伙伴
+     */
+    public boolean isPartner(Long userId, Long otherUserId) {
+        return Arrays.binarySearch(load(userId), otherUserId) >= 0;
+    }
+
+    /**
+     * 获取用户的所有伙伴ID（已接受的关系）
+     *
+     * @param userId 用户ID
+     * @return 伙伴ID列表（升序）
+     */
+    public List<Long> getPartnerIds(Long userId) {
+        long[] partners = load(userId);
+        List<Long> result = new ArrayList<>(partners.length);
+        for (long partner : partners) {
+            result.add(partner);
+        }
+        return result;
+    }
+
+    /**
+     * 获取用户的伙伴数
+     *
+     * @param userId 用户ID
+     * @return 伙伴数
+     */
+    public int countPartners(Long userId) {
+        return load(userId).length;
+    }
+
+    /**
+     * 关系变为已接受（事务提交后更新缓存）
+     *
+     * @param relation 关系
+     */
+    public void onAccepted(UserRelation relation) {
+        afterCommit(() -> update(relation.getInitiatorId(), relation.getPartnerId(), true));
+    }
+
+    /**
+     * 关系不再是已接受状态（拒绝、发起解绑、解绑完成，事务提交后更新缓存）
+     *
+     * @param relation 关系
+     */
+    public void onRemoved(UserRelation relation) {
+        afterCommit(() -> update(relation.getInitiatorId(), relation.getPartnerId(), false));
+    }
+
+    /**
+     * 依次读取本地缓存、Redis，均未命中时从数据库加载
+     */
+    private long[] load(Long userId) {
+        if (userId == null) {
+            return EMPTY;
+        }
+        if (localCache != null) {
+            return localCache.get(userId, this::loadShared);
+        }
+        return loadShared(userId);
+    }
+
+    private long[] loadShared(Long userId) {
+        String key = KEY_PREFIX + userId;
+        try {
+            Set<String> members = stringRedisTemplate.opsForSet().members(key);
+            if (members != null && !members.isEmpty()) {
+                return toSortedArray(members);
+            }
+        } catch (Exception e) {
+            log.warn("读取关系缓存失败，降级为数据库查询: userId={}", userId, e);
+            return loadFromDatabase(userId);
+        }
+
+        long[] partners = loadFromDatabase(userId);
+        try {
+            Object[] args = new Object[partners.length + 2];
+            args[0] = String.valueOf(Duration.ofHours(properties.getRedisExpireHours()).getSeconds());
+            args[1] = LOADED_MEMBER;
+            for (int i = 0; i < partners.length; i++) {
+                args[i + 2] = String.valueOf(partners[i]);
+            }
+            redisUtil.execute(LOAD_SCRIPT, Collections.singletonList(key), args);
+        } catch (Exception e) {
+            log.warn("写入关系缓存失败: userId={}", userId, e);
+        }
+        return partners;
+    }
+
+    private long[] loadFromDatabase(Long userId) {
+        List<Long> partnerIds = userRelationEdgeMapper.selectOtherUserIds(userId, RelationStatus.ACCEPTED.getCode());
+        long[] partners = new long[partnerIds.size()];
+        int size = 0;
+        for (Long partnerId : partnerIds) {
+            if (partnerId != null) {
+                partners[size++] = partnerId;
+            }
+        }
+        partners = Arrays.copyOf(partners, size);
+        Arrays.sort(partners);
+        return partners;
+    }
+
+    private long[] toSortedArray(Set<String> members) {
+        long[] partners = new long[members.size()];
+        int size = 0;
+        for (String member : members) {
+            if (!LOADED_MEMBER.equals(member)) {
+                partners[size++] = Long.parseLong(member);
+            }
+        }
+        partners = Arrays.copyOf(partners, size);
+        Arrays.sort(partners);
+        return partners;
+    }
+
+    private void update(Long initiatorId, Long partnerId, boolean accepted) {
+        String initiatorKey = KEY_PREFIX + initiatorId;
+        String partnerKey = KEY_PREFIX + partnerId;
+        try {
+            redisUtil.execute(UPDATE_SCRIPT, Arrays.asList(initiatorKey, partnerKey),
+                    accepted ? "1" : "0", String.valueOf(partnerId), String.valueOf(initiatorId));
+        } catch (Exception e) {
+            log.warn("更新关系缓存失败，删除双方缓存: initiatorId={}, partnerId={}", initiatorId, partnerId, e);
+            try {
+                stringRedisTemplate.delete(Arrays.asList(initiatorKey, partnerKey));
+            } catch (Exception ex) {
+                log.warn("删除关系缓存失败: initiatorId={}, partnerId={}", initiatorId, partnerId, ex);
+            }
+        }
+        invalidateLocal(initiatorId);
+        invalidateLocal(partnerId);
+    }
+
+    private void invalidateLocal(Long userId) {
+        if (localCache == null) {
+            return;
+        }
+        localCache.invalidate(userId);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            log.warn("关系缓存失效通知失败: userId={}", userId, e);
+        }
+    }
+
+    /**
+     * 在当前事务提交后执行（无事务时立即执行）
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
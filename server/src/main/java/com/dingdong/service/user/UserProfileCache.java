@@ -0,0 +1,281 @@
+package com.dingdong.service.user;
+
+import com.dingdong.entity.user.SysUser;
+import com.dingdong.mapper.user.SysUserMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 用户资料缓存
+ * 一级缓存为本地 Caffeine（有界），二级缓存为 Redis Hash，均未命中时批量查询数据库并回填
+ *
+ * Key 设计:
+ * - 用户资料: dingdong:user:profile:{userId}（Hash，字段为缓存的用户属性）
+ * - 失效通知频道: dingdong:user:profile:invalidate（消息为用户ID）
+ *
+ * 用户资料修改后调用 {@link #invalidate(Long)}，删除 Redis 缓存并通过 pub/sub 通知所有节点清除本地缓存；
+ * 本地缓存同时设置较短的过期时间，兜底丢失的失效通知。
+ * 返回的对象均为副本，调用方可以修改
+ */
+@Slf4j
+@Service
+public class UserProfileCache {
+
+    private final SysUserMapper sysUserMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private static final String KEY_PREFIX = "dingdong:user:profile:";
+
+    private static final String INVALIDATE_CHANNEL = "dingdong:user:profile:invalidate";
+
+    /**
+     * 本地缓存最大条数
+     */
+    private static final long LOCAL_MAX_SIZE = 10_000;
+
+    /**
+     * 本地缓存过期时间（秒）
+     */
+    private static final long LOCAL_EXPIRE_SECONDS = 300;
+
+    /**
+     * Redis 缓存过期时间（秒）
+     */
+    private static final long REDIS_EXPIRE_SECONDS = 3600;
+
+    private static final String FIELD_OPENID = "openid";
+    private static final String FIELD_NICKNAME = "nickname";
+    private static final String FIELD_AVATAR = "avatar";
+    private static final String FIELD_LEVEL_CODE = "levelCode";
+    private static final String FIELD_CREATE_TIME = "createTime";
+
+    private final Cache<Long, SysUser> localCache = Caffeine.newBuilder()
+            .maximumSize(LOCAL_MAX_SIZE)
+            .expireAfterWrite(Duration.ofSeconds(LOCAL_EXPIRE_SECONDS))
+            .build();
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public UserProfileCache(SysUserMapper sysUserMapper, StringRedisTemplate stringRedisTemplate,
+            RedisMessageListenerContainer listenerContainer, MeterRegistry meterRegistry) {
+        this.sysUserMapper = sysUserMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.localHits = meterRegistry.counter("dingdong.user.profile.cache", "result", "local_hit");
+        this.redisHits = meterRegistry.counter("dingdong.user.profile.cache", "result", "redis_hit");
+        this.misses = meterRegistry.counter("dingdong.user.profile.cache", "result", "miss");
+        meterRegistry.gaugeMapSize("dingdong.user.profile.cache.local.size", Tags.empty(), localCache.asMap());
+    }
+
+    /**
+     * 订阅失效通知
+     */
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                localCache.invalidate(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+            } catch (NumberFormatException e) {
+                log.warn("无效的用户资料失效通知: {}", message);
+            }
+        }, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 获取用户资料
+     *
+     * @param userId 用户ID
+     * @return 用户资料副本，不存在时返回 null
+     */
+    public SysUser get(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        return getAll(Collections.singletonList(userId)).get(userId);
+    }
+
+    /**
+     * 批量获取用户资料（Redis 一次管道读取，数据库一次 IN 查询）
+     *
+     * @param userIds 用户ID集合
+     * @return 用户ID -> 用户资料副本（不存在的用户不包含在结果中）
+     */
+    public Map<Long, SysUser> getAll(Collection<Long> userIds) {
+        Map<Long, SysUser> result = new LinkedHashMap<>();
+        List<Long> localMisses = new ArrayList<>();
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            if (userId == null) {
+                continue;
+            }
+            SysUser cached = localCache.getIfPresent(userId);
+            if (cached != null) {
+                result.put(userId, copy(cached));
+                localHits.increment();
+            } else {
+                localMisses.add(userId);
+            }
+        }
+        if (localMisses.isEmpty()) {
+            return result;
+        }
+
+        List<Long> redisMisses = new ArrayList<>();
+        Map<Long, SysUser> fromRedis = readRedis(localMisses, redisMisses);
+        fromRedis.forEach((userId, user) -> {
+            localCache.put(userId, user);
+            result.put(userId, copy(user));
+        });
+        redisHits.increment(fromRedis.size());
+        if (redisMisses.isEmpty()) {
+            return result;
+        }
+
+        misses.increment(redisMisses.size());
+        List<SysUser> users = sysUserMapper.selectBatchIds(redisMisses);
+        writeRedis(users);
+        for (SysUser user : users) {
+            SysUser snapshot = copy(user);
+            localCache.put(user.getId(), snapshot);
+            result.put(user.getId(), copy(snapshot));
+        }
+        return result;
+    }
+
+    /**
+     * 批量获取用户资料列表（与 listByIds 用法一致）
+     *
+     * @param userIds 用户ID集合
+     * @return 用户资料副本列表
+     */
+    public List<SysUser> listByIds(Collection<Long> userIds) {
+        return new ArrayList<>(getAll(userIds).values());
+    }
+
+    /**
+     * 用户资料修改后失效缓存（删除 Redis 缓存并通知所有节点清除本地缓存）
+     *
+     * @param userId 用户ID
+     */
+    public void invalidate(Long userId) {
+        localCache.invalidate(userId);
+        try {
+            stringRedisTemplate.delete(KEY_PREFIX + userId);
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            log.warn("用户资料缓存失效通知失败: userId={}", userId, e);
+        }
+    }
+
+    /**
+     * 管道读取 Redis 缓存，未命中的用户ID加入 misses
+     */
+    private Map<Long, SysUser> readRedis(List<Long> userIds, List<Long> misses) {
+        List<Object> results;
+        try {
+            results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Long userId : userIds) {
+                    connection.hashCommands().hGetAll((KEY_PREFIX + userId).getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("读取用户资料缓存失败，降级为数据库查询", e);
+            misses.addAll(userIds);
+            return Collections.emptyMap();
+        }
+
+        Map<Long, SysUser> users = new HashMap<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            Object value = results.get(i);
+            if (value instanceof Map && !((Map<?, ?>) value).isEmpty()) {
+                users.put(userIds.get(i), decode(userIds.get(i), (Map<?, ?>) value));
+            } else {
+                misses.add(userIds.get(i));
+            }
+        }
+        return users;
+    }
+
+    private void writeRedis(List<SysUser> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (SysUser user : users) {
+                    byte[] key = (KEY_PREFIX + user.getId()).getBytes(StandardCharsets.UTF_8);
+                    connection.hashCommands().hMSet(key, encode(user));
+                    connection.keyCommands().expire(key, REDIS_EXPIRE_SECONDS);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("写入用户资料缓存失败", e);
+        }
+    }
+
+    private Map<byte[], byte[]> encode(SysUser user) {
+        Map<byte[], byte[]> fields = new HashMap<>();
+        putField(fields, FIELD_OPENID, user.getOpenid());
+        putField(fields, FIELD_NICKNAME, user.getNickname());
+        putField(fields, FIELD_AVATAR, user.getAvatar());
+        putField(fields, FIELD_LEVEL_CODE, user.getLevelCode());
+        putField(fields, FIELD_CREATE_TIME, user.getCreateTime() != null ? user.getCreateTime().toString() : null);
+        return fields;
+    }
+
+    private void putField(Map<byte[], byte[]> fields, String name, String value) {
+        // 空值也写入空串，保证 Hash 非空（空 Hash 视为未缓存）
+        fields.put(name.getBytes(StandardCharsets.UTF_8),
+                (value != null ? value : "").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private SysUser decode(Long userId, Map<?, ?> fields) {
+        SysUser user = new SysUser();
+        user.setId(userId);
+        user.setOpenid(field(fields, FIELD_OPENID));
+        user.setNickname(field(fields, FIELD_NICKNAME));
+        user.setAvatar(field(fields, FIELD_AVATAR));
+        user.setLevelCode(field(fields, FIELD_LEVEL_CODE));
+        String createTime = field(fields, FIELD_CREATE_TIME);
+        user.setCreateTime(createTime != null ? LocalDateTime.parse(createTime) : null);
+        return user;
+    }
+
+    private String field(Map<?, ?> fields, String name) {
+        Object value = fields.get(name);
+        return value == null || value.toString().isEmpty() ? null : value.toString();
+    }
+
+    /**
+     * 只保留缓存的字段（同时用于返回副本）
+     */
+    private SysUser copy(SysUser user) {
+        SysUser snapshot = new SysUser();
+        snapshot.setId(user.getId());
+        snapshot.setOpenid(user.getOpenid());
+        snapshot.setNickname(user.getNickname());
+        snapshot.setAvatar(user.getAvatar());
+        snapshot.setLevelCode(user.getLevelCode());
+        snapshot.setCreateTime(user.getCreateTime());
+        return snapshot;
+    }
+}
@@ -0,0 +1,233 @@
+package com.dingdong.service.user;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.dingdong.common.constant.RelationStatus;
+import com.dingdong.config.RelationCacheProperties;
+import com.dingdong.entity.user.UserRelation;
+import com.dingdong.entity.user.UserRelationEdge;
+import com.dingdong.mapper.user.UserRelationEdgeMapper;
+import com.dingdong.mapper.user.UserRelationMapper;
+import com.dingdong.service.cluster.LeaderLease;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 用户关系边服务
+ * 维护 user_relation_edge（每条关系双方各一行），按用户查询关系时只需主键范围扫描，
+ * 不再对 user_relation 执行 (initiator_id = ? OR partner_id = ?) 查询
+ *
+ * 关系的每次写入在同一事务内调用 {@link #sync(UserRelation)}；
+ * {@link #check(LeaderLease)} 以 user_relation 为准核对边表，修复缺失、状态不一致和孤立的边
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserRelationEdgeService {
+
+    private final UserRelationEdgeMapper userRelationEdgeMapper;
+    private final UserRelationMapper userRelationMapper;
+    private final RelationCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private static final String REPAIRED_COUNTER_NAME = "dingdong.relation.edge.repaired";
+
+    /**
+     * 进行中的关系状态（同一对用户最多一条）
+     */
+    private static final List<Integer> ACTIVE_STATUSES = Arrays.asList(
+            RelationStatus.PENDING.getCode(),
+            RelationStatus.ACCEPTED.getCode(),
+            RelationStatus.UNBINDING.getCode());
+
+    /**
+     * 同步关系的双向两行（需在关系写入的同一事务内调用）
+     *
+     * @param relation 关系（需包含 id、initiatorId、partnerId、status）
+     */
+    public void sync(UserRelation relation) {
+        if (relation.getInitiatorId() == null || relation.getPartnerId() == null) {
+            log.warn("关系缺少用户ID，跳过同步关系边: relationId={}", relation.getId());
+            return;
+        }
+        userRelationEdgeMapper.upsertPair(relation);
+    }
+
+    /**
+     * 两个用户之间是否存在进行中的关系（待确认、已接受、解绑中）
+     *
+     * @param userId      用户ID
+     * @param otherUserId 对方用户ID
+     * @return 是否存在
+     */
+    public boolean existsActive(Long userId, Long otherUserId) {
+        return userRelationEdgeMapper.selectCount(new LambdaQueryWrapper<UserRelationEdge>()
+                .eq(UserRelationEdge::getUserId, userId)
+                .eq(UserRelationEdge::getOtherUserId, otherUserId)
+                .in(UserRelationEdge::getStatus, ACTIVE_STATUSES)) > 0;
+    }
+
+    /**
+     * 获取用户已接受关系的伙伴ID
+     *
+     * @param userId 用户ID
+     * @return 伙伴ID列表
+     */
+    public List<Long> getAcceptedPartnerIds(Long userId) {
+        return userRelationEdgeMapper.selectOtherUserIds(userId, RelationStatus.ACCEPTED.getCode());
+    }
+
+    /**
+     * 获取用户参与的所有关系ID
+     *
+     * @param userId 用户ID
+     * @return 关系ID列表
+     */
+    public List<Long> getRelationIds(Long userId) {
+        return userRelationEdgeMapper.selectRelationIds(userId);
+    }
+
+    /**
+     * 获取用户已接受关系的关系ID
+     *
+     * @param userId 用户ID
+     * @return 关系ID列表
+     */
+    public List<Long> getAcceptedRelationIds(Long userId) {
+        return userRelationEdgeMapper.selectRelationIdsByStatus(userId, RelationStatus.ACCEPTED.getCode());
+    }
+
+    /**
+     * 以 user_relation 为准核对边表
+     * 1. 按关系ID分批扫描 user_relation，缺失或状态不一致的关系按当前数据重写双向两行，删除多余的边
+     * 2. 按关系ID分批扫描边表，删除关系已不存在（或已逻辑删除）的边
+     *
+     * @param lease 主节点租约，失效时中止
+     * @return 修复的关系数
+     */
+    public int check(LeaderLease lease) {
+        int batchSize = properties.getEdgeCheckBatchSize();
+        int scanned = 0;
+        int repaired = 0;
+        int removed = 0;
+
+        long lastId = 0L;
+        while (true) {
+            if (!lease.isValid()) {
+                log.warn("主节点租约失效，中止关系边表核对: lastId={}", lastId);
+                return repaired;
+            }
+            List<UserRelation> relations = userRelationMapper.selectList(new LambdaQueryWrapper<UserRelation>()
+                    .select(UserRelation::getId, UserRelation::getInitiatorId, UserRelation::getPartnerId,
+                            UserRelation::getStatus)
+                    .isNotNull(UserRelation::getInitiatorId)
+                    .isNotNull(UserRelation::getPartnerId)
+                    .gt(UserRelation::getId, lastId)
+                    .orderByAsc(UserRelation::getId)
+                    .last("LIMIT " + batchSize));
+            if (relations.isEmpty()) {
+                break;
+            }
+            repaired += checkRelations(relations);
+            scanned += relations.size();
+            lastId = relations.get(relations.size() - 1).getId();
+        }
+
+        long lastRelationId = 0L;
+        while (lease.isValid()) {
+            List<Long> relationIds = userRelationEdgeMapper.selectRelationIdsAfter(lastRelationId, batchSize);
+            if (relationIds.isEmpty()) {
+                break;
+            }
+            removed += removeOrphans(relationIds);
+            lastRelationId = relationIds.get(relationIds.size() - 1);
+        }
+
+        meterRegistry.counter(REPAIRED_COUNTER_NAME, "type", "relation").increment(repaired);
+        meterRegistry.counter(REPAIRED_COUNTER_NAME, "type", "orphan").increment(removed);
+        log.info("关系边表核对完成: relations={}, repaired={}, orphanRelations={}", scanned, repaired, removed);
+        return repaired;
+    }
+
+    /**
+     * 核对一批关系，返回修复的关系数
+     */
+    private int checkRelations(List<UserRelation> relations) {
+        List<Long> relationIds = relations.stream().map(UserRelation::getId).collect(Collectors.toList());
+        Map<Long, List<UserRelationEdge>> edgesByRelation = userRelationEdgeMapper.selectList(
+                new LambdaQueryWrapper<UserRelationEdge>().in(UserRelationEdge::getRelationId, relationIds))
+                .stream()
+                .collect(Collectors.groupingBy(UserRelationEdge::getRelationId));
+
+        int repaired = 0;
+        for (UserRelation relation : relations) {
+            List<UserRelationEdge> edges = edgesByRelation.getOrDefault(relation.getId(), Collections.emptyList());
+            if (isConsistent(relation, edges)) {
+                continue;
+            }
+
+            // 在同一语句内读取 user_relation 当前数据写入，避免覆盖核对期间的正常更新
+            userRelationEdgeMapper.syncFromRelation(relation.getId());
+            for (UserRelationEdge edge : edges) {
+                if (!isExpectedPair(relation, edge)) {
+                    userRelationEdgeMapper.delete(new LambdaQueryWrapper<UserRelationEdge>()
+                            .eq(UserRelationEdge::getUserId, edge.getUserId())
+                            .eq(UserRelationEdge::getOtherUserId, edge.getOtherUserId())
+                            .eq(UserRelationEdge::getRelationId, edge.getRelationId()));
+                }
+            }
+            log.info("修复关系边: relationId={}, edges={}", relation.getId(), edges.size());
+            repaired++;
+        }
+        return repaired;
+    }
+
+    /**
+     * 删除关系已不存在的边，返回涉及的关系数
+     */
+    private int removeOrphans(List<Long> relationIds) {
+        Set<Long> existing = userRelationMapper.selectBatchIds(relationIds).stream()
+                .map(UserRelation::getId)
+                .collect(Collectors.toSet());
+        List<Long> orphans = relationIds.stream()
+                .filter(id -> !existing.contains(id))
+                .collect(Collectors.toList());
+        if (orphans.isEmpty()) {
+            return 0;
+        }
+        userRelationEdgeMapper.delete(new LambdaQueryWrapper<UserRelationEdge>()
+                .in(UserRelationEdge::getRelationId, orphans));
+        log.info("删除孤立的关系边: relationIds={}", orphans);
+        return orphans.size();
+    }
+
+    private boolean isConsistent(UserRelation relation, List<UserRelationEdge> edges) {
+        if (edges.size() != 2) {
+            return false;
+        }
+        int status = relation.getStatus() != null ? relation.getStatus() : RelationStatus.PENDING.getCode();
+        boolean forward = false;
+        boolean backward = false;
+        for (UserRelationEdge edge : edges) {
+            if (edge.getStatus() == null || edge.getStatus() != status) {
+                return false;
+            }
+            forward |= Objects.equals(edge.getUserId(), relation.getInitiatorId())
+                    && Objects.equals(edge.getOtherUserId(), relation.getPartnerId());
+            backward |= Objects.equals(edge.getUserId(), relation.getPartnerId())
+                    && Objects.equals(edge.getOtherUserId(), relation.getInitiatorId());
+        }
+        return forward && backward;
+    }
+
+    private boolean isExpectedPair(UserRelation relation, UserRelationEdge edge) {
+        return (Objects.equals(edge.getUserId(), relation.getInitiatorId())
+                && Objects.equals(edge.getOtherUserId(), relation.getPartnerId()))
+                || (Objects.equals(edge.getUserId(), relation.getPartnerId())
+                        && Objects.equals(edge.getOtherUserId(), relation.getInitiatorId()));
+    }
+}
@@ -0,0 +1,65 @@
+package com.dingdong.service.user.impl;
+
+import com.dingdong.common.constant.CheckInStatus;
+import com.dingdong.entity.user.UserDailyStats;
+import com.dingdong.mapper.checkin.CheckInLogMapper;
+import com.dingdong.mapper.user.UserDailyStatsMapper;
+import com.dingdong.mapper.user.UserMonthlyStatsMapper;
+import com.dingdong.service.user.IUserDailyStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 用户打卡统计汇总服务实现
+ * 打卡时增量更新当天行；每天凌晨按 check_in_log 重算前一天的打卡次数（修复增量写入失败），
+ * 并由日汇总重算月汇总，统计总次数时只读取月汇总行和本月的日汇总行
+ * 漏打卡次数由 {@link com.dingdong.service.checkin.CheckInCompletionService} 按任务重复规则计算，不在此汇总
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserDailyStatsServiceImpl implements IUserDailyStatsService {
+
+    private final UserDailyStatsMapper userDailyStatsMapper;
+    private final UserMonthlyStatsMapper userMonthlyStatsMapper;
+    private final CheckInLogMapper checkInLogMapper;
+
+    @Override
+    public void recordCheckIn(Long userId, LocalDate date, Integer status) {
+        boolean reissue = CheckInStatus.REISSUE.getCode().equals(status);
+        userDailyStatsMapper.increment(userId, date, reissue ? 0 : 1, reissue ? 1 : 0);
+    }
+
+    @Override
+    public UserDailyStats sumTotal(Long userId, LocalDate today) {
+        LocalDate monthStart = today.withDayOfMonth(1);
+        UserDailyStats total = userMonthlyStatsMapper.sumBefore(userId, monthStart);
+        UserDailyStats current = userDailyStatsMapper.sumRange(userId, monthStart, today);
+        total.setNormalCount(total.getNormalCount() + current.getNormalCount());
+        total.setReissueCount(total.getReissueCount() + current.getReissueCount());
+        return total;
+    }
+
+    @Override
+    public int compact(LocalDate date) {
+        List<UserDailyStats> rows = checkInLogMapper.countByUser(date, date.atStartOfDay(),
+                date.plusDays(1).atStartOfDay());
+        for (UserDailyStats row : rows) {
+            userDailyStatsMapper.upsertCheckInCounts(row);
+        }
+        log.info("用户打卡统计汇总完成: date={}, users={}", date, rows.size());
+        return rows.size();
+    }
+
+    @Override
+    public int rollup(LocalDate month) {
+        LocalDate monthStart = month.withDayOfMonth(1);
+        int rows = userMonthlyStatsMapper.rollup(monthStart, monthStart.plusMonths(1));
+        log.info("用户打卡月汇总完成: month={}, rows={}", monthStart, rows);
+        return rows;
+    }
+}
@@ -1,39 +1,66 @@
 package com.dingdong.service.user.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import cn.hutool.core.bean.BeanUtil;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.dingdong.common.constant.UserConstants;
 import com.dingdong.entity.user.SysUser;
 import com.dingdong.entity.user.UserLevelConfig;
 import com.dingdong.mapper.user.UserLevelConfigMapper;
-import com.dingdong.service.user.ISysUserService;
 import com.dingdong.service.user.IUserLevelConfigService;
+import com.dingdong.service.user.UserProfileCache;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.annotation.Lazy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
+import java.util.*;
+
 /**
  * 用户等级配置服务实现
+ * 等级配置只有几行且很少变化，启动时全量加载为不可变的内存注册表（等级编码 -> 配置），
+ * 刷新时整体替换，读取无锁、不访问数据库
+ *
+ * 刷新方式:
+ * - 定时刷新: {@link com.dingdong.task.UserLevelConfigRefreshTask}（每个节点各自执行）
+ * - 立即刷新: 修改 user_level_config 后调用 {@link #publishRefresh()}，
+ *   或直接在 Redis 执行 PUBLISH dingdong:user:level:refresh 1，所有节点重新加载
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserLevelConfigServiceImpl extends ServiceImpl<UserLevelConfigMapper, UserLevelConfig>
         implements IUserLevelConfigService {
 
-    @Lazy
-    private final ISysUserService sysUserService;
+    private final UserProfileCache userProfileCache;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private static final String REFRESH_CHANNEL = "dingdong:user:level:refresh";
+
+    /**
+     * 等级注册表（不可变，按 sortOrder 排序，刷新时整体替换）
+     */
+    private volatile Map<String, UserLevelConfig> registry = Collections.emptyMap();
+
+    @PostConstruct
+    public void init() {
+        refresh();
+        listenerContainer.addMessageListener((message, pattern) -> refresh(), new ChannelTopic(REFRESH_CHANNEL));
+    }
 
     @Override
     public UserLevelConfig getByLevelCode(String levelCode) {
-        return this.getOne(
-                new LambdaQueryWrapper<UserLevelConfig>()
-                        .eq(UserLevelConfig::getLevelCode, levelCode));
+        UserLevelConfig config = getRegistry().get(levelCode);
+        return config != null ? BeanUtil.copyProperties(config, UserLevelConfig.class) : null;
     }
 
     @Override
     public UserLevelConfig getUserLevelConfig(Long userId) {
         // 获取用户信息
-        SysUser user = sysUserService.getById(userId);
+        SysUser user = userProfileCache.get(userId);
         if (user == null) {
             return getByLevelCode(UserConstants.DEFAULT_LEVEL_CODE);
         }
@@ -56,4 +83,50 @@ public class UserLevelConfigServiceImpl extends ServiceImpl<UserLevelConfigMappe
 
         return config;
     }
+
+    @Override
+    public List<UserLevelConfig> listAllLevels() {
+        List<UserLevelConfig> result = new ArrayList<>(getRegistry().size());
+        for (UserLevelConfig config : getRegistry().values()) {
+            result.add(BeanUtil.copyProperties(config, UserLevelConfig.class));
+        }
+        return result;
+    }
+
+    @Override
+    public void refresh() {
+        try {
+            List<UserLevelConfig> configs = this.list();
+            configs.sort(Comparator.comparing(UserLevelConfig::getSortOrder,
+                    Comparator.nullsLast(Comparator.naturalOrder())));
+
+            Map<String, UserLevelConfig> loaded = new LinkedHashMap<>();
+            for (UserLevelConfig config : configs) {
+                if (config.getLevelCode() != null) {
+                    loaded.putIfAbsent(config.getLevelCode(), config);
+                }
+            }
+            registry = Collections.unmodifiableMap(loaded);
+            log.debug("用户等级配置已加载: levels={}", loaded.keySet());
+        } catch (Exception e) {
+            // 加载失败时保留原注册表
+            log.warn("加载用户等级配置失败", e);
+        }
+    }
+
+    @Override
+    public void publishRefresh() {
+        refresh();
+        stringRedisTemplate.convertAndSend(REFRESH_CHANNEL, "1");
+    }
+
+    /**
+     * 获取注册表，为空时（启动时数据库不可用）重新加载
+     */
+    private Map<String, UserLevelConfig> getRegistry() {
+        if (registry.isEmpty()) {
+            refresh();
+        }
+        return registry;
+    }
 }
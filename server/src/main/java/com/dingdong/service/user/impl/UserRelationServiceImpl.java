@@ -1,6 +1,6 @@
 package com.dingdong.service.user.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.dingdong.common.constant.RelationActionType;
 import com.dingdong.common.constant.RelationStatus;
@@ -11,15 +11,17 @@ import com.dingdong.entity.user.UserRelation;
 import com.dingdong.mapper.user.UserRelationMapper;
 import com.dingdong.service.unbind.UnbindQueueService;
 import com.dingdong.service.user.IRelationHistoryService;
-import com.dingdong.service.user.ISysUserService;
 import com.dingdong.service.user.IUserRelationService;
+import com.dingdong.service.user.RelationGraphCache;
+import com.dingdong.service.user.UserProfileCache;
+import com.dingdong.service.user.UserRelationEdgeService;
 import com.dingdong.service.wechat.SubscribeMessageService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -30,37 +32,34 @@ import java.util.stream.Collectors;
  * - 使用 initiatorId（发起人）和 partnerId（伙伴）替代 supervisorId/supervisedId
  * - 关系是平等的，两个用户可以互相给对方布置任务
  * - 状态: 0-待确认, 1-已接受, 2-已拒绝, 3-解绑中
+ * - 已接受关系的伙伴集合由 {@link RelationGraphCache} 缓存，状态变化在事务提交后同步更新
+ * - 按用户查询关系读取 user_relation_edge（双方各一行），关系写入时在同一事务内同步边表
  */
 @Service
 @RequiredArgsConstructor
 public class UserRelationServiceImpl extends ServiceImpl<UserRelationMapper, UserRelation>
         implements IUserRelationService {
 
-    private final ISysUserService sysUserService;
+    private final UserProfileCache userProfileCache;
+    private final RelationGraphCache relationGraphCache;
+    private final UserRelationEdgeService userRelationEdgeService;
     private final UnbindQueueService unbindQueueService;
     private final IRelationHistoryService relationHistoryService;
     private final SubscribeMessageService subscribeMessageService;
 
     @Override
     public List<SysUser> getSupervisedListBySupervisorId(Long userId) {
-        // 查询该用户绑定的所有已接受关系
-        List<UserRelation> relations = this.list(new LambdaQueryWrapper<UserRelation>()
-                .and(w -> w.eq(UserRelation::getInitiatorId, userId).or().eq(UserRelation::getPartnerId, userId))
-                .eq(UserRelation::getStatus, RelationStatus.ACCEPTED.getCode()));
-
-        if (relations.isEmpty()) {
+        // 读取该用户所有已接受关系的伙伴ID，批量查询用户信息
+        List<Long> partnerIds = relationGraphCache.getPartnerIds(userId);
+        if (partnerIds.isEmpty()) {
             return Collections.emptyList();
         }
 
-        // 提取对方用户ID列表并批量查询用户信息
-        List<Long> partnerIds = relations.stream()
-                .map(r -> r.getInitiatorId().equals(userId) ? r.getPartnerId() : r.getInitiatorId())
-                .collect(Collectors.toList());
-
-        return sysUserService.listByIds(partnerIds);
+        return userProfileCache.listByIds(partnerIds);
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean bindSupervised(BindDTO bindDTO) {
         Long initiatorId = bindDTO.getSupervisorId(); // 发起人（原supervisorId）
         Long partnerId = bindDTO.getSupervisedId(); // 伙伴（原supervisedId）
@@ -72,20 +71,8 @@ public class UserRelationServiceImpl extends ServiceImpl<UserRelationMapper, Use
             throw new RuntimeException("解绑后需等待24小时才能重新绑定，剩余约" + remainingHours + "小时");
         }
 
-        // 2. 检查是否已存在关系（无论谁是发起人）
-        long count = this.count(new LambdaQueryWrapper<UserRelation>()
-                .and(w -> w
-                        .eq(UserRelation::getInitiatorId, initiatorId)
-                        .eq(UserRelation::getPartnerId, partnerId))
-                .or(w -> w
-                        .eq(UserRelation::getInitiatorId, partnerId)
-                        .eq(UserRelation::getPartnerId, initiatorId))
-                .in(UserRelation::getStatus, Arrays.asList(
-                        RelationStatus.ACCEPTED.getCode(),
-                        RelationStatus.PENDING.getCode(),
-                        RelationStatus.UNBINDING.getCode())));
-
-        if (count > 0) {
+        // 2. 检查是否已存在进行中的关系（无论谁是发起人，边表双方各一行，只需查询发起人一侧）
+        if (userRelationEdgeService.existsActive(initiatorId, partnerId)) {
             throw new RuntimeException("关系已存在或正在处理中");
         }
 
@@ -98,10 +85,12 @@ public class UserRelationServiceImpl extends ServiceImpl<UserRelationMapper, Use
         relation.setStatus(RelationStatus.ACCEPTED.getCode());
         boolean success = this.save(relation);
 
-        // 4. 记录历史
+        // 4. 同步边表、记录历史并更新关系缓存
         if (success) {
+            userRelationEdgeService.sync(relation);
             relationHistoryService.recordHistory(relation.getId(), RelationActionType.BIND.getCode(),
                     initiatorId, "绑定关系: " + bindDTO.getRelationName());
+            relationGraphCache.onAccepted(relation);
         }
 
         return success;
@@ -109,20 +98,29 @@ public class UserRelationServiceImpl extends ServiceImpl<UserRelationMapper, Use
 
     @Override
     public List<UserRelation> getMyRelations(Long userId) {
-        // 查询用户参与的所有关系（可能是发起人或伙伴）
-        return this.list(new LambdaQueryWrapper<UserRelation>()
-                .eq(UserRelation::getInitiatorId, userId)
-                .or()
-                .eq(UserRelation::getPartnerId, userId));
+        // 查询用户参与的所有关系（可能是发起人或伙伴），先从边表取关系ID再按主键查询
+        List<Long> relationIds = userRelationEdgeService.getRelationIds(userId);
+        if (relationIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return this.listByIds(relationIds);
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean sendInvite(UserRelation relation) {
         relation.setStatus(RelationStatus.PENDING.getCode());
-        return this.save(relation);
+        boolean success = this.save(relation);
+
+        if (success) {
+            userRelationEdgeService.sync(relation);
+        }
+
+        return success;
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean acceptInvite(Long relationId) {
         UserRelation relation = this.getById(relationId);
         if (relation == null) {
@@ -133,14 +131,17 @@ public class UserRelationServiceImpl extends ServiceImpl<UserRelationMapper, Use
         boolean success = this.updateById(relation);
 
         if (success) {
+            userRelationEdgeService.sync(relation);
             relationHistoryService.recordHistory(relationId, RelationActionType.BIND.getCode(),
                     relation.getPartnerId(), "接受邀请");
+            relationGraphCache.onAccepted(relation);
         }
 
         return success;
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean rejectInvite(Long relationId) {
         UserRelation relation = this.getById(relationId);
         if (relation == null) {
@@ -148,7 +149,14 @@ public class UserRelationServiceImpl extends ServiceImpl<UserRelationMapper, Use
         }
 
         relation.setStatus(RelationStatus.REJECTED.getCode());
-        return this.updateById(relation);
+        boolean success = this.updateById(relation);
+
+        if (success) {
+            userRelationEdgeService.sync(relation);
+            relationGraphCache.onRemoved(relation);
+        }
+
+        return success;
     }
 
     @Override
@@ -172,8 +180,7 @@ public class UserRelationServiceImpl extends ServiceImpl<UserRelationMapper, Use
 
         // 3. 批量查询用户信息
         Map<Long, SysUser> userMap = userIds.isEmpty() ? new HashMap<>()
-                : sysUserService.listByIds(userIds).stream()
-                        .collect(Collectors.toMap(SysUser::getId, Function.identity()));
+                : userProfileCache.getAll(userIds);
 
         // 4. 组装展示对象DTO
         return relations.stream().map(r -> {
@@ -215,6 +222,7 @@ public class UserRelationServiceImpl extends ServiceImpl<UserRelationMapper, Use
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean initiateUnbind(Long relationId, String reason, Long operatorId) {
         UserRelation relation = this.getById(relationId);
         if (relation == null) {
@@ -235,8 +243,8 @@ public class UserRelationServiceImpl extends ServiceImpl<UserRelationMapper, Use
                 ? relation.getPartnerId()
                 : relation.getInitiatorId();
 
-        SysUser operator = sysUserService.getById(operatorId);
-        SysUser otherUser = sysUserService.getById(otherUserId);
+        SysUser operator = userProfileCache.get(operatorId);
+        SysUser otherUser = userProfileCache.get(otherUserId);
 
         // 更新关系状态为解绑中
         LocalDateTime unbindExpireTime = LocalDateTime.now().plusHours(24);
@@ -245,6 +253,8 @@ public class UserRelationServiceImpl extends ServiceImpl<UserRelationMapper, Use
         boolean success = this.updateById(relation);
 
         if (success) {
+            userRelationEdgeService.sync(relation);
+
             // 添加解绑任务到 Redis 延迟队列
             unbindQueueService.addUnbindTask(relationId, LocalDateTime.now());
 
@@ -252,6 +262,9 @@ public class UserRelationServiceImpl extends ServiceImpl<UserRelationMapper, Use
             relationHistoryService.recordHistory(relationId, RelationActionType.UNBIND_INITIATED.getCode(),
                     operatorId, reason);
 
+            // 解绑中的关系不再视为已接受
+            relationGraphCache.onRemoved(relation);
+
             // 发送通知
             if (otherUser != null && otherUser.getOpenid() != null) {
                 String initiatorName = (operator != null) ? operator.getNickname() : "对方";
@@ -264,6 +277,7 @@ public class UserRelationServiceImpl extends ServiceImpl<UserRelationMapper, Use
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean withdrawUnbind(Long relationId, Long operatorId) {
         UserRelation relation = this.getById(relationId);
         if (relation == null) {
@@ -286,12 +300,15 @@ public class UserRelationServiceImpl extends ServiceImpl<UserRelationMapper, Use
         boolean success = this.updateById(relation);
 
         if (success) {
+            userRelationEdgeService.sync(relation);
+
             // 从 Redis 延迟队列移除解绑任务
             unbindQueueService.removeUnbindTask(relationId);
 
             // 记录历史
             relationHistoryService.recordHistory(relationId, RelationActionType.UNBIND_WITHDRAWN.getCode(),
                     operatorId, "撤回解绑");
+            relationGraphCache.onAccepted(relation);
         }
 
         return success;
@@ -303,9 +320,36 @@ public class UserRelationServiceImpl extends ServiceImpl<UserRelationMapper, Use
             return true;
         }
 
-        return this.count(new LambdaQueryWrapper<UserRelation>()
-                .and(w -> w.eq(UserRelation::getInitiatorId, userId).eq(UserRelation::getPartnerId, otherUserId))
-                .or(w -> w.eq(UserRelation::getInitiatorId, otherUserId).eq(UserRelation::getPartnerId, userId))
-                .eq(UserRelation::getStatus, RelationStatus.ACCEPTED.getCode())) > 0;
+        return relationGraphCache.isPartner(userId, otherUserId);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean completeUnbind(UserRelation relation) {
+        // 执行解绑：将状态改为已解绑（不再逻辑删除，保留历史）
+        // 仅当仍为解绑中时更新，避免租约切换期间新旧主节点重复处理
+        boolean success = this.update(new LambdaUpdateWrapper<UserRelation>()
+                .eq(UserRelation::getId, relation.getId())
+                .eq(UserRelation::getStatus, RelationStatus.UNBINDING.getCode())
+                .set(UserRelation::getStatus, RelationStatus.UNBOUND.getCode())
+                .set(UserRelation::getUnbindExpireTime, null));
+
+        if (success) {
+            relation.setStatus(RelationStatus.UNBOUND.getCode());
+            relation.setUnbindExpireTime(null);
+            userRelationEdgeService.sync(relation);
+
+            // 设置冷却期（24小时内不能重新绑定）
+            unbindQueueService.setCooldown(relation.getInitiatorId(), relation.getPartnerId());
+
+            // 记录历史
+            relationHistoryService.recordHistory(relation.getId(), RelationActionType.UNBIND_COMPLETED.getCode(),
+                    0L, "解绑自动生效");
+
+            // 发起解绑时已从缓存移除，这里再移除一次，兜底发起解绑时更新缓存失败的情况
+            relationGraphCache.onRemoved(relation);
+        }
+
+        return success;
     }
 }
@@ -1,37 +1,56 @@
 package com.dingdong.service.user.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.dingdong.common.constant.RelationStatus;
-import com.dingdong.common.constant.TaskStatus;
+import com.dingdong.common.util.BitmapKernels;
 import com.dingdong.dto.user.UserStatsDTO;
 import com.dingdong.entity.checkin.CheckInLog;
 import com.dingdong.entity.user.SysUser;
 import com.dingdong.entity.user.UserLevelConfig;
-import com.dingdong.entity.user.UserRelation;
+import com.dingdong.service.checkin.CheckInBitmapService;
+import com.dingdong.service.checkin.CheckInCompletionService;
 import com.dingdong.service.checkin.ICheckInLogService;
-import com.dingdong.service.user.ISysUserService;
+import com.dingdong.service.user.IUserDailyStatsService;
 import com.dingdong.service.user.IUserLevelConfigService;
-import com.dingdong.service.user.IUserRelationService;
 import com.dingdong.service.user.IUserStatsService;
+import com.dingdong.service.user.RelationGraphCache;
+import com.dingdong.service.user.UserProfileCache;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 用户统计服务实现
+ * 今日/本周/本月/近7天按任务重复规则展开应打卡次数并与打卡记录比对（{@link CheckInCompletionService}）；
+ * 总次数读取打卡统计汇总表（{@link IUserDailyStatsService}）；
+ * 连续打卡基于 Redis 位图（{@link CheckInBitmapService}）在内存中解码，Redis 不可用时降级为数据库查询
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserStatsServiceImpl implements IUserStatsService {
 
-        private final ISysUserService sysUserService;
-        private final IUserRelationService relationService;
+        private final UserProfileCache userProfileCache;
+        private final RelationGraphCache relationGraphCache;
         private final IUserLevelConfigService levelConfigService;
         private final ICheckInLogService logService;
+        private final CheckInBitmapService checkInBitmapService;
+        private final IUserDailyStatsService userDailyStatsService;
+        private final CheckInCompletionService completionService;
+
+        /**
+         * 连续打卡最多统计天数
+         */
+        private static final int MAX_STREAK_DAYS = 365;
 
         @Override
         public UserStatsDTO getUserStats(Long userId) {
@@ -39,7 +58,7 @@ public class UserStatsServiceImpl implements IUserStatsService {
                 stats.setUserId(userId);
 
                 // 用户基本信息
-                SysUser user = sysUserService.getById(userId);
+                SysUser user = userProfileCache.get(userId);
                 if (user != null) {
                         stats.setNickname(user.getNickname());
                 }
@@ -50,64 +69,59 @@ public class UserStatsServiceImpl implements IUserStatsService {
                 stats.setMaxSupervisedCount(levelConfig.getMaxSupervisedCount());
 
                 // 关系统计（平等关系，不再区分监督者/被监督者）
-                List<UserRelation> allRelations = relationService.getMyRelations(userId);
-                // 平等关系下，统计已接受的关系数量
-                int partnerCount = (int) allRelations.stream()
-                                .filter(r -> RelationStatus.ACCEPTED.getCode().equals(r.getStatus()))
-                                .count();
+                // 平等关系下，统计已接受的关系数量（读取关系缓存）
+                int partnerCount = relationGraphCache.countPartners(userId);
                 stats.setSupervisedCount(partnerCount); // 兼容旧字段
                 stats.setSupervisorCount(partnerCount); // 兼容旧字段
 
-                // 今日任务统计
-                LocalDate today = LocalDate.now();
-                LocalDateTime todayStart = today.atStartOfDay();
-                LocalDateTime todayEnd = today.plusDays(1).atStartOfDay();
-
-                List<CheckInLog> todayLogs = logService.list(
-                                new LambdaQueryWrapper<CheckInLog>()
-                                                .eq(CheckInLog::getUserId, userId)
-                                                .ge(CheckInLog::getCheckTime, todayStart)
-                                                .lt(CheckInLog::getCheckTime, todayEnd));
+                // 今日/本周/本月/近7天：按任务重复规则展开应打卡次数，与窗口内的打卡记录比对（共两次查询）
+                LocalDateTime now = LocalDateTime.now();
+                LocalDate today = now.toLocalDate();
+                LocalDate weekStart = today.minusDays(today.getDayOfWeek().getValue() - 1);
+                LocalDate monthStart = today.withDayOfMonth(1);
+                LocalDate windowStart = Collections.min(List.of(weekStart, monthStart, today.minusDays(6)));
+                CheckInCompletionService.CompletionWindow window = completionService.load(userId, windowStart, today);
+                fillCompletionStats(stats, now, weekStart, monthStart, window);
+
+                // 总打卡次数：读取汇总行（历史月份读取月汇总，本月最多31行）
+                stats.setTotalCheckInCount(userDailyStatsService.sumTotal(userId, today).getCompletedCount());
+
+                // 连续打卡天数：优先读取 Redis 位图（滚动位图或年度位图），异常时降级为数据库
+                try {
+                        CheckInCalendar calendar = checkInBitmapService.isRollingReadEnabled()
+                                        ? new RollingCalendar(checkInBitmapService.getUserRollingBitmap(userId))
+                                        : new BitmapCalendar(userId);
+                        fillCheckInStats(stats, today, calendar);
+                } catch (Exception e) {
+                        log.warn("读取打卡位图失败，降级为数据库统计: userId={}", userId, e);
+                        fillCheckInStats(stats, today, loadDatabaseCalendar(userId, today));
+                }
 
-                // 获取用户任务总数（简化：取打卡记录数+未完成数）
-                int todayCompleted = (int) todayLogs.stream()
-                                .filter(log -> TaskStatus.NORMAL.getCode().equals(log.getStatus()) ||
-                                                TaskStatus.LATE.getCode().equals(log.getStatus()))
-                                .count();
+                return stats;
+        }
 
+        /**
+         * 根据任务完成情况填充今日/本周/本月/近7天的应打卡、已完成、已错过次数
+         */
+        private void fillCompletionStats(UserStatsDTO stats, LocalDateTime now, LocalDate weekStart,
+                        LocalDate monthStart, CheckInCompletionService.CompletionWindow window) {
+                LocalDate today = now.toLocalDate();
+
+                // 今日统计（未到截止时间的任务不计为错过）
+                int todayTasks = window.expected(today, today);
+                int todayCompleted = window.completed(today, today);
+                stats.setTodayTaskCount(todayTasks);
                 stats.setTodayCompletedCount(todayCompleted);
-                stats.setTodayMissedCount(0); // 需要更复杂的逻辑计算
-                stats.setTodayTaskCount(todayCompleted); // 简化
-                stats.setTodayCompletionRate(todayCompleted > 0 ? 100.0 : 0.0);
+                stats.setTodayMissedCount(window.missed(today, today, now));
+                stats.setTodayCompletionRate(todayTasks > 0 ? todayCompleted * 100.0 / todayTasks : 0.0);
 
                 // 本周统计
-                LocalDate weekStart = today.minusDays(today.getDayOfWeek().getValue() - 1);
-                List<CheckInLog> weekLogs = logService.list(
-                                new LambdaQueryWrapper<CheckInLog>()
-                                                .eq(CheckInLog::getUserId, userId)
-                                                .ge(CheckInLog::getCheckTime, weekStart.atStartOfDay())
-                                                .lt(CheckInLog::getCheckTime, todayEnd));
-                stats.setWeekCompletedCount(weekLogs.size());
-                stats.setWeekMissedCount(0);
+                stats.setWeekCompletedCount(window.completed(weekStart, today));
+                stats.setWeekMissedCount(window.missed(weekStart, today, now));
 
                 // 本月统计
-                LocalDate monthStart = today.withDayOfMonth(1);
-                List<CheckInLog> monthLogs = logService.list(
-                                new LambdaQueryWrapper<CheckInLog>()
-                                                .eq(CheckInLog::getUserId, userId)
-                                                .ge(CheckInLog::getCheckTime, monthStart.atStartOfDay())
-                                                .lt(CheckInLog::getCheckTime, todayEnd));
-                stats.setMonthCompletedCount(monthLogs.size());
-                stats.setMonthMissedCount(0);
-
-                // 总打卡次数
-                int totalCount = (int) logService.count(
-                                new LambdaQueryWrapper<CheckInLog>()
-                                                .eq(CheckInLog::getUserId, userId));
-                stats.setTotalCheckInCount(totalCount);
-
-                // 连续打卡天数（简化计算）
-                stats.setStreakDays(calculateStreakDays(userId));
+                stats.setMonthCompletedCount(window.completed(monthStart, today));
+                stats.setMonthMissedCount(window.missed(monthStart, today, now));
 
                 // 近7天数据（用于图表）
                 int[] weeklyTasks = new int[7];
@@ -118,50 +132,122 @@ public class UserStatsServiceImpl implements IUserStatsService {
                 for (int i = 6; i >= 0; i--) {
                         LocalDate date = today.minusDays(i);
                         weeklyLabels[6 - i] = date.format(formatter);
-
-                        int completed = (int) logService.count(
-                                        new LambdaQueryWrapper<CheckInLog>()
-                                                        .eq(CheckInLog::getUserId, userId)
-                                                        .ge(CheckInLog::getCheckTime, date.atStartOfDay())
-                                                        .lt(CheckInLog::getCheckTime, date.plusDays(1).atStartOfDay()));
-                        weeklyCompleted[6 - i] = completed;
-                        weeklyTasks[6 - i] = completed; // 简化
+                        weeklyTasks[6 - i] = window.expected(date, date);
+                        weeklyCompleted[6 - i] = window.completed(date, date);
                 }
 
                 stats.setWeeklyTaskCounts(weeklyTasks);
                 stats.setWeeklyCompletedCounts(weeklyCompleted);
                 stats.setWeeklyLabels(weeklyLabels);
+        }
 
-                return stats;
+        /**
+         * 根据打卡日历填充连续打卡天数
+         */
+        private void fillCheckInStats(UserStatsDTO stats, LocalDate today, CheckInCalendar calendar) {
+                // 连续打卡天数（从今天往前，年度位图最多365天）
+                stats.setStreakDays(calendar.streakEndingAt(today));
         }
 
         /**
-         * 计算连续打卡天数
+         * 从数据库加载近一年的打卡日期（Redis 不可用时的降级方案，单次范围查询）
          */
-        private int calculateStreakDays(Long userId) {
-                int streak = 0;
-                LocalDate checkDate = LocalDate.now();
-
-                while (true) {
-                        long count = logService.count(
-                                        new LambdaQueryWrapper<CheckInLog>()
-                                                        .eq(CheckInLog::getUserId, userId)
-                                                        .ge(CheckInLog::getCheckTime, checkDate.atStartOfDay())
-                                                        .lt(CheckInLog::getCheckTime,
-                                                                        checkDate.plusDays(1).atStartOfDay()));
-
-                        if (count > 0) {
+        private CheckInCalendar loadDatabaseCalendar(Long userId, LocalDate today) {
+                LocalDate startDate = today.minusDays(MAX_STREAK_DAYS);
+                Set<LocalDate> dates = logService.list(
+                                new LambdaQueryWrapper<CheckInLog>()
+                                                .select(CheckInLog::getCheckTime)
+                                                .eq(CheckInLog::getUserId, userId)
+                                                .ge(CheckInLog::getCheckTime, startDate.atStartOfDay())
+                                                .lt(CheckInLog::getCheckTime, today.plusDays(1).atStartOfDay()))
+                                .stream()
+                                .map(l -> l.getCheckTime().toLocalDate())
+                                .collect(Collectors.toSet());
+
+                return new CheckInCalendar() {
+                        @Override
+                        boolean isCheckedIn(LocalDate date) {
+                                return dates.contains(date);
+                        }
+                };
+        }
+
+        /**
+         * 打卡日历（按天判断是否打卡）
+         */
+        private abstract static class CheckInCalendar {
+
+                abstract boolean isCheckedIn(LocalDate date);
+
+                /**
+                 * 以指定日期结尾的连续打卡天数（最多365天）
+                 */
+                int streakEndingAt(LocalDate endDate) {
+                        int streak = 0;
+                        while (streak < MAX_STREAK_DAYS && isCheckedIn(endDate.minusDays(streak))) {
                                 streak++;
-                                checkDate = checkDate.minusDays(1);
-                        } else {
-                                break;
                         }
+                        return streak;
+                }
+        }
 
-                        // 最多检查365天
-                        if (streak > 365)
-                                break;
+        /**
+         * 基于 Redis 年度位图的打卡日历，每个年份只读取一次（通常只有当年一次 GET）
+         */
+        private class BitmapCalendar extends CheckInCalendar {
+
+                private final Long userId;
+                private final Map<Integer, byte[]> bitmaps = new HashMap<>();
+
+                BitmapCalendar(Long userId) {
+                        this.userId = userId;
                 }
 
-                return streak;
+                @Override
+                boolean isCheckedIn(LocalDate date) {
+                        return checkInBitmapService.isCheckedIn(bitmap(date.getYear()), date);
+                }
+
+                @Override
+                int streakEndingAt(LocalDate endDate) {
+                        int year = endDate.getYear();
+                        int offset = endDate.getDayOfYear() - 1;
+                        int run = BitmapKernels.trailingRun(bitmap(year), offset);
+                        int streak = run;
+                        // 从1月1日起连续打卡，继续统计上一年年末
+                        while (run == offset + 1 && streak < MAX_STREAK_DAYS) {
+                                year--;
+                                offset = LocalDate.of(year, 12, 31).getDayOfYear() - 1;
+                                run = BitmapKernels.trailingRun(bitmap(year), offset);
+                                streak += run;
+                        }
+                        return Math.min(streak, MAX_STREAK_DAYS);
+                }
+
+                private byte[] bitmap(int year) {
+                        return bitmaps.computeIfAbsent(year, y -> checkInBitmapService.getUserYearBitmap(userId, y));
+                }
+        }
+
+        /**
+         * 基于 Redis 滚动位图的打卡日历，一次 GET，连续打卡不受年份边界限制
+         */
+        private class RollingCalendar extends CheckInCalendar {
+
+                private final byte[] bitmap;
+
+                RollingCalendar(byte[] bitmap) {
+                        this.bitmap = bitmap;
+                }
+
+                @Override
+                boolean isCheckedIn(LocalDate date) {
+                        return BitmapKernels.get(bitmap, checkInBitmapService.rollingOffset(date));
+                }
+
+                @Override
+                int streakEndingAt(LocalDate endDate) {
+                        return BitmapKernels.trailingRun(bitmap, checkInBitmapService.rollingOffset(endDate));
+                }
         }
 }
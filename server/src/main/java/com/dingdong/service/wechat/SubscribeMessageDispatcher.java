@@ -0,0 +1,262 @@
+package com.dingdong.service.wechat;
+
+import cn.binarywang.wx.miniapp.bean.WxMaSubscribeMessage;
+import com.dingdong.common.util.RedisUtil;
+import com.dingdong.config.SubscribeMessageProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 订阅消息分发器
+ * 将订阅消息提交到有界线程池并发发送，调用方（定时任务）只负责入队，不再串行阻塞等待微信接口
+ *
+ * 核心功能：
+ * 1. 并发度、队列容量可配置（dingdong.message.*），队列满时拒绝并返回失败结果
+ * 2. 按模板ID限流，计数保存在 Redis（每个模板每秒一个计数器），所有节点共享同一配额，
+ *    与微信按小程序计算的频率限制一致
+ * 3. 超出配额的消息延迟到下一秒重新入队，不占用发送线程；延迟累计超过上限时返回限流失败（由发件箱退避重试）
+ * 4. 按批次汇总发送结果并输出日志
+ */
+@Slf4j
+@Service
+public class SubscribeMessageDispatcher {
+
+    /**
+     * 限流计数器 Key 前缀
+     * 格式: wx:msg:rate:{templateId}:{epochSecond}
+     */
+    private static final String RATE_KEY_PREFIX = "wx:msg:rate:";
+
+    /**
+     * 限流计数器过期时间（秒），只需覆盖当前这一秒
+     */
+    private static final long RATE_KEY_EXPIRE_SECONDS = 2;
+
+    /**
+     * 限流脚本：当前这一秒的计数加一并返回（首次创建时设置过期时间）
+     * KEYS[1] 为计数器，ARGV[1] 为过期秒数
+     */
+    private static final RedisScript<Long> RATE_SCRIPT = new DefaultRedisScript<>(
+            "local n = redis.call('INCR', KEYS[1]) "
+                    + "if n == 1 then redis.call('EXPIRE', KEYS[1], ARGV[1]) end "
+                    + "return n",
+            Long.class);
+
+    private final SubscribeMessageService subscribeMessageService;
+    private final ThreadPoolTaskExecutor messageExecutor;
+    private final SubscribeMessageProperties properties;
+    private final RedisUtil redisUtil;
+
+    /**
+     * 延迟重新入队的调度器（只负责到点入队，不执行发送）
+     */
+    private final ThreadPoolTaskScheduler delayScheduler;
+
+    /**
+     * 因限流等待重新入队的消息数
+     */
+    private final AtomicInteger delayedCount = new AtomicInteger();
+
+    public SubscribeMessageDispatcher(SubscribeMessageService subscribeMessageService,
+            @Qualifier("messageExecutor") ThreadPoolTaskExecutor messageExecutor,
+            SubscribeMessageProperties properties, RedisUtil redisUtil) {
+        this.subscribeMessageService = subscribeMessageService;
+        this.messageExecutor = messageExecutor;
+        this.properties = properties;
+        this.redisUtil = redisUtil;
+        this.delayScheduler = new ThreadPoolTaskScheduler();
+        this.delayScheduler.setPoolSize(1);
+        this.delayScheduler.setThreadNamePrefix("dingdong-msg-delay-");
+        this.delayScheduler.initialize();
+    }
+
+    /**
+     * 提交一条订阅消息（异步发送）
+     *
+     * @param message  订阅消息
+     * @param callback 发送完成后的回调（在发送线程执行，可为空）
+     * @return 发送结果
+     */
+    public CompletableFuture<SubscribeSendResult> submit(WxMaSubscribeMessage message,
+            Consumer<SubscribeSendResult> callback) {
+        CompletableFuture<SubscribeSendResult> future = new CompletableFuture<>();
+        enqueue(new Delivery(message, callback, future, System.currentTimeMillis()));
+        return future;
+    }
+
+    /**
+     * 汇总一批消息的发送结果（所有消息完成后输出日志，不阻塞调用方）
+     *
+     * @param batchName 批次名称
+     * @param futures   本批次的发送结果
+     */
+    public void reportBatch(String batchName, List<CompletableFuture<SubscribeSendResult>> futures) {
+        if (futures.isEmpty()) {
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((v, e) -> {
+            int success = 0;
+            Map<Integer, Integer> failedByCode = new TreeMap<>();
+            for (CompletableFuture<SubscribeSendResult> future : futures) {
+                SubscribeSendResult result = future.getNow(null);
+                if (result != null && result.isSuccess()) {
+                    success++;
+                } else {
+                    int errCode = result != null ? result.getErrCode() : SubscribeSendResult.ERR_EXCEPTION;
+                    failedByCode.merge(errCode, 1, Integer::sum);
+                }
+            }
+            log.info("订阅消息批次发送完成: batch={}, total={}, success={}, failed={}, cost={}ms",
+                    batchName, futures.size(), success, futures.size() - success,
+                    System.currentTimeMillis() - startTime);
+            if (!failedByCode.isEmpty()) {
+                log.warn("订阅消息批次失败明细: batch={}, errcode->count={}", batchName, failedByCode);
+            }
+        });
+    }
+
+    /**
+     * 获取当前排队中的消息数（含因限流等待重新入队的消息，用于监控和投递任务控制领取数量）
+     */
+    public int getQueueSize() {
+        return messageExecutor.getThreadPoolExecutor().getQueue().size() + delayedCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        delayScheduler.shutdown();
+    }
+
+    private void enqueue(Delivery delivery) {
+        try {
+            messageExecutor.execute(() -> process(delivery));
+        } catch (TaskRejectedException e) {
+            log.warn("订阅消息发送队列已满，丢弃消息: toOpenId={}, templateId={}",
+                    delivery.message.getToUser(), delivery.message.getTemplateId());
+            complete(delivery, SubscribeSendResult.fail(SubscribeSendResult.ERR_QUEUE_FULL, "发送队列已满"));
+        }
+    }
+
+    private void process(Delivery delivery) {
+        long delayMillis = reserve(delivery.message.getTemplateId());
+        if (delayMillis <= 0) {
+            complete(delivery, send(delivery.message));
+            return;
+        }
+
+        long waitedMillis = System.currentTimeMillis() - delivery.submitMillis;
+        if (waitedMillis + delayMillis > TimeUnit.SECONDS.toMillis(properties.getMaxThrottleDelaySeconds())) {
+            complete(delivery, SubscribeSendResult.fail(SubscribeSendResult.ERR_RATE_LIMITED, "超出模板发送频率限制"));
+            return;
+        }
+        delay(delivery, delayMillis);
+    }
+
+    /**
+     * 延迟到下一秒重新入队，当前发送线程立即处理其他模板的消息
+     */
+    private void delay(Delivery delivery, long delayMillis) {
+        delayedCount.incrementAndGet();
+        try {
+            delayScheduler.schedule(() -> {
+                delayedCount.decrementAndGet();
+                enqueue(delivery);
+            }, Instant.now().plusMillis(delayMillis));
+        } catch (TaskRejectedException e) {
+            // 应用停机中
+            delayedCount.decrementAndGet();
+            complete(delivery, SubscribeSendResult.fail(SubscribeSendResult.ERR_RATE_LIMITED, "超出模板发送频率限制"));
+        }
+    }
+
+    /**
+     * 占用模板在当前这一秒的一个发送配额
+     *
+     * @param templateId 模板ID
+     * @return 0 表示可以立即发送，否则为距离下一秒的毫秒数
+     */
+    private long reserve(String templateId) {
+        String key = templateId != null ? templateId : "";
+        int limit = properties.getTemplateRatePerSecond().getOrDefault(key, properties.getDefaultRatePerSecond());
+        if (limit <= 0) {
+            return 0;
+        }
+
+        long nowMillis = System.currentTimeMillis();
+        long second = nowMillis / 1000;
+        try {
+            Long count = redisUtil.execute(RATE_SCRIPT, List.of(RATE_KEY_PREFIX + key + ":" + second),
+                    String.valueOf(RATE_KEY_EXPIRE_SECONDS));
+            if (count == null || count <= limit) {
+                return 0;
+            }
+        } catch (Exception e) {
+            // Redis 不可用时不限流，超出配额的发送由微信返回错误后经发件箱退避重试
+            log.warn("订阅消息限流计数失败，直接发送: templateId={}", key, e);
+            return 0;
+        }
+        return (second + 1) * 1000 - nowMillis;
+    }
+
+    private SubscribeSendResult send(WxMaSubscribeMessage message) {
+        try {
+            return subscribeMessageService.send(message);
+        } catch (Exception e) {
+            log.error("订阅消息发送异常: toOpenId={}", message.getToUser(), e);
+            return SubscribeSendResult.fail(SubscribeSendResult.ERR_EXCEPTION, e.getMessage());
+        }
+    }
+
+    private void complete(Delivery delivery, SubscribeSendResult result) {
+        try {
+            if (delivery.callback != null) {
+                delivery.callback.accept(result);
+            }
+        } catch (Exception e) {
+            log.error("订阅消息发送回调执行异常", e);
+        } finally {
+            delivery.future.complete(result);
+        }
+    }
+
+    /**
+     * 一条待发送的消息
+     */
+    private static class Delivery {
+
+        private final WxMaSubscribeMessage message;
+
+        private final Consumer<SubscribeSendResult> callback;
+
+        private final CompletableFuture<SubscribeSendResult> future;
+
+        /** 提交时间（毫秒），用于计算因限流累计等待的时长 */
+        private final long submitMillis;
+
+        Delivery(WxMaSubscribeMessage message, Consumer<SubscribeSendResult> callback,
+                CompletableFuture<SubscribeSendResult> future, long submitMillis) {
+            this.message = message;
+            this.callback = callback;
+            this.future = future;
+            this.submitMillis = submitMillis;
+        }
+    }
+}
@@ -42,38 +42,56 @@ public class SubscribeMessageService {
      */
     public boolean sendSubscribeMessage(String toOpenId, String templateId,
             List<WxMaSubscribeMessage.MsgData> data, String page) {
+        return send(buildMessage(toOpenId, templateId, data, page)).isSuccess();
+    }
+
+    /**
+     * 发送已构建好的订阅消息（同步调用微信接口）
+     *
+     * @param message 订阅消息
+     * @return 发送结果（包含微信错误码）
+     */
+    public SubscribeSendResult send(WxMaSubscribeMessage message) {
+        String toOpenId = message.getToUser();
+        String templateId = message.getTemplateId();
         // 检查模板ID是否有效
         if (templateId == null || templateId.isEmpty() || templateId.startsWith("YOUR_")) {
             log.warn("订阅消息模板ID未配置或无效: templateId={}", templateId);
-            return false;
+            return SubscribeSendResult.fail(SubscribeSendResult.ERR_INVALID_TEMPLATE, "模板ID未配置或无效");
         }
 
         try {
-            WxMaSubscribeMessage message = WxMaSubscribeMessage.builder()
-                    .toUser(toOpenId)
-                    .templateId(templateId)
-                    .page(page)
-                    .data(data)
-                    .build();
-
             wxMaService.getMsgService().sendSubscribeMsg(message);
             log.info("订阅消息发送成功, toOpenId={}, templateId={}", toOpenId, templateId);
-            return true;
+            return SubscribeSendResult.ok();
         } catch (WxErrorException e) {
-            if (e.getError().getErrorCode() == 43101) {
+            int errCode = e.getError().getErrorCode();
+            if (errCode == SubscribeSendResult.ERR_NOT_SUBSCRIBED) {
                 // 用户未订阅该模板消息
                 log.warn("用户未订阅该模板消息: toOpenId={}, templateId={}", toOpenId, templateId);
             } else {
-                log.error("订阅消息发送失败: errcode={}, errmsg={}",
-                        e.getError().getErrorCode(), e.getError().getErrorMsg());
+                log.error("订阅消息发送失败: errcode={}, errmsg={}", errCode, e.getError().getErrorMsg());
             }
-            return false;
+            return SubscribeSendResult.fail(errCode, e.getError().getErrorMsg());
         } catch (Exception e) {
             log.error("发送订阅消息异常: toOpenId={}, templateId={}", toOpenId, templateId, e);
-            return false;
+            return SubscribeSendResult.fail(SubscribeSendResult.ERR_EXCEPTION, e.getMessage());
         }
     }
 
+    /**
+     * 构建订阅消息
+     */
+    public WxMaSubscribeMessage buildMessage(String toOpenId, String templateId,
+            List<WxMaSubscribeMessage.MsgData> data, String page) {
+        return WxMaSubscribeMessage.builder()
+                .toUser(toOpenId)
+                .templateId(templateId)
+                .page(page)
+                .data(data)
+                .build();
+    }
+
     /**
      * 发送叮咚提醒消息给被叮咚者
      * 当到达叮咚时间时调用
@@ -84,6 +102,14 @@ public class SubscribeMessageService {
      * @param supervisorName 监督者名称
      */
     public void sendRemindMessage(String toOpenId, String taskTitle, LocalDateTime remindTime, String supervisorName) {
+        send(buildRemindMessage(toOpenId, taskTitle, remindTime, supervisorName));
+    }
+
+    /**
+     * 构建叮咚提醒消息
+     */
+    public WxMaSubscribeMessage buildRemindMessage(String toOpenId, String taskTitle, LocalDateTime remindTime,
+            String supervisorName) {
         String templateId = wxMaConfig.getSubscribeMessage().getRemindCheckin();
 
         // Template: 签到提醒 (Task Reminder)
@@ -96,7 +122,7 @@ public class SubscribeMessageService {
                 remindTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))));
         data.add(new WxMaSubscribeMessage.MsgData("thing8", "任务将在30分钟后开始，请做好准备"));
 
-        sendSubscribeMessage(toOpenId, templateId, data, "pages/home/index");
+        return buildMessage(toOpenId, templateId, data, "pages/home/index");
     }
 
     /**
@@ -111,6 +137,14 @@ public class SubscribeMessageService {
      */
     public void sendCheckInCompleteMessage(String toOpenId, String supervisedName, String taskTitle,
             LocalDateTime checkTime, boolean isOnTime) {
+        send(buildCheckInCompleteMessage(toOpenId, supervisedName, taskTitle, checkTime, isOnTime));
+    }
+
+    /**
+     * 构建打卡完成通知消息
+     */
+    public WxMaSubscribeMessage buildCheckInCompleteMessage(String toOpenId, String supervisedName, String taskTitle,
+            LocalDateTime checkTime, boolean isOnTime) {
         String templateId = wxMaConfig.getSubscribeMessage().getCheckinComplete();
 
         // Template: 签到提醒 (Check-in Success)
@@ -125,7 +159,7 @@ public class SubscribeMessageService {
                 checkTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))));
         data.add(new WxMaSubscribeMessage.MsgData("thing8", "用户 " + truncateValue(supervisedName) + " 已完成打卡"));
 
-        sendSubscribeMessage(toOpenId, templateId, data, "pages/supervisor/index");
+        return buildMessage(toOpenId, templateId, data, "pages/supervisor/index");
     }
 
     /**
@@ -139,6 +173,14 @@ public class SubscribeMessageService {
      */
     public void sendMissedCheckInMessage(String toOpenId, String supervisedName, String taskTitle,
             LocalDateTime remindTime) {
+        send(buildMissedCheckInMessage(toOpenId, supervisedName, taskTitle, remindTime));
+    }
+
+    /**
+     * 构建漏打卡通知消息
+     */
+    public WxMaSubscribeMessage buildMissedCheckInMessage(String toOpenId, String supervisedName, String taskTitle,
+            LocalDateTime remindTime) {
         String templateId = wxMaConfig.getSubscribeMessage().getMissedCheckin();
 
         // Template: 签到提醒 (Using same template for Missed Check-in)
@@ -153,7 +195,7 @@ public class SubscribeMessageService {
                 remindTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))));
         data.add(new WxMaSubscribeMessage.MsgData("thing8", "用户 " + truncateValue(supervisedName) + " 已超时30分钟未打卡"));
 
-        sendSubscribeMessage(toOpenId, templateId, data, "pages/supervisor/index");
+        return buildMessage(toOpenId, templateId, data, "pages/supervisor/index");
     }
 
     /**
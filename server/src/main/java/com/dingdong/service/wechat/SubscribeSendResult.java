@@ -0,0 +1,67 @@
+package com.dingdong.service.wechat;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 订阅消息发送结果
+ */
+@Data
+@AllArgsConstructor
+public class SubscribeSendResult {
+
+    /** 微信返回：用户未订阅该模板消息 */
+    public static final int ERR_NOT_SUBSCRIBED = 43101;
+
+    /** 微信返回：系统繁忙 */
+    public static final int ERR_SYSTEM_BUSY = -1;
+
+    /** 微信返回：openid 无效 */
+    public static final int ERR_INVALID_OPENID = 40003;
+
+    /** 微信返回：模板ID无效 */
+    public static final int ERR_INVALID_TEMPLATE_ID = 40037;
+
+    /** 微信返回：模板参数不准确 */
+    public static final int ERR_INVALID_TEMPLATE_DATA = 47003;
+
+    /** 本地错误码：模板ID未配置或无效（与微信错误码区分，使用 -1000 起） */
+    public static final int ERR_INVALID_TEMPLATE = -1001;
+
+    /** 本地错误码：发送异常（网络等非微信业务错误） */
+    public static final int ERR_EXCEPTION = -1002;
+
+    /** 本地错误码：发送队列已满 */
+    public static final int ERR_QUEUE_FULL = -1003;
+
+    /** 本地错误码：超出模板发送频率限制且延迟时间已达上限 */
+    public static final int ERR_RATE_LIMITED = -1004;
+
+    /** 是否发送成功 */
+    private boolean success;
+
+    /** 错误码（成功时为0） */
+    private int errCode;
+
+    /** 错误信息 */
+    private String errMsg;
+
+    public static SubscribeSendResult ok() {
+        return new SubscribeSendResult(true, 0, null);
+    }
+
+    public static SubscribeSendResult fail(int errCode, String errMsg) {
+        return new SubscribeSendResult(false, errCode, errMsg);
+    }
+
+    /**
+     * 是否为永久失败（重试也不会成功，如用户未订阅、openid 或模板无效）
+     */
+    public boolean isPermanentFailure() {
+        return !success && (errCode == ERR_NOT_SUBSCRIBED
+                || errCode == ERR_INVALID_OPENID
+                || errCode == ERR_INVALID_TEMPLATE_ID
+                || errCode == ERR_INVALID_TEMPLATE_DATA
+                || errCode == ERR_INVALID_TEMPLATE);
+    }
+}
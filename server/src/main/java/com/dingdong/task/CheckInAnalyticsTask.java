@@ -0,0 +1,64 @@
+package com.dingdong.task;
+
+import com.dingdong.service.analytics.CheckInAnalyticsService;
+import com.dingdong.service.cluster.LeaderElectionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * 打卡用户集合压缩任务
+ * 每天凌晨把前一天的打卡用户 Set 压缩为 Roaring Bitmap，并补齐近期缺失的日期（从 check_in_log 重建）
+ * 仅主节点执行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CheckInAnalyticsTask {
+
+    private final CheckInAnalyticsService checkInAnalyticsService;
+    private final LeaderElectionService leaderElectionService;
+
+    /**
+     * 向前补齐的天数
+     */
+    private static final int BACKFILL_DAYS = 90;
+
+    /**
+     * 每天凌晨0点10分执行
+     */
+    @Scheduled(cron = "0 10 0 * * ?")
+    public void compactDailyUsers() {
+        if (leaderElectionService.tryAcquire(LeaderElectionService.SCHEDULER_LEASE) == null) {
+            return; // 非主节点
+        }
+
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        try {
+            long count = checkInAnalyticsService.compact(yesterday);
+            log.info("每日打卡用户压缩完成: date={}, users={}", yesterday, count);
+        } catch (Exception e) {
+            log.error("每日打卡用户压缩失败: date={}", yesterday, e);
+        }
+
+        // 补齐缺失的历史日期（首次部署或执行失败时）
+        int backfilled = 0;
+        for (int i = 2; i <= BACKFILL_DAYS; i++) {
+            LocalDate date = yesterday.minusDays(i - 1);
+            try {
+                if (!checkInAnalyticsService.isCompacted(date)) {
+                    checkInAnalyticsService.compact(date);
+                    backfilled++;
+                }
+            } catch (Exception e) {
+                log.error("补齐每日打卡用户失败: date={}", date, e);
+            }
+        }
+        if (backfilled > 0) {
+            log.info("每日打卡用户补齐完成: {} 天", backfilled);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.dingdong.task;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.dingdong.config.CheckInBitmapProperties;
+import com.dingdong.entity.user.SysUser;
+import com.dingdong.mapper.user.SysUserMapper;
+import com.dingdong.service.checkin.CheckInBitmapService;
+import com.dingdong.service.cluster.LeaderElectionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 打卡滚动位图迁移任务
+ * 开启 dingdong.bitmap.rolling-write-enabled 后，按用户ID分批把年度位图合并到滚动位图
+ *
+ * 进度（已处理的最大用户ID）保存在 Redis 中，中断后从断点继续；全部完成后标记为 done 不再执行。
+ * 删除进度 Key 可重新迁移（只置位，重复执行无副作用）
+ * 仅主节点执行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CheckInBitmapMigrationTask {
+
+    private final CheckInBitmapService checkInBitmapService;
+    private final CheckInBitmapProperties properties;
+    private final SysUserMapper sysUserMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final LeaderElectionService leaderElectionService;
+
+    /**
+     * 迁移进度 Key
+     */
+    private static final String CURSOR_KEY = "checkin:rolling:migration";
+
+    private static final String DONE = "done";
+
+    /**
+     * 单次执行最多处理的批数（避免长时间占用调度线程）
+     */
+    private static final int MAX_BATCHES_PER_RUN = 50;
+
+    /**
+     * 每5分钟执行一次，直到迁移完成
+     */
+    @Scheduled(fixedDelay = 300000, initialDelay = 60000)
+    public void migrate() {
+        if (!properties.isRollingWriteEnabled()) {
+            return;
+        }
+        if (leaderElectionService.tryAcquire(LeaderElectionService.SCHEDULER_LEASE) == null) {
+            return; // 非主节点
+        }
+
+        String cursor = stringRedisTemplate.opsForValue().get(CURSOR_KEY);
+        if (DONE.equals(cursor)) {
+            return;
+        }
+
+        long lastId = cursor != null ? Long.parseLong(cursor) : 0L;
+        int currentYear = LocalDate.now().getYear();
+        int users = 0;
+        int bits = 0;
+        try {
+            for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+                List<SysUser> batch = sysUserMapper.selectList(new LambdaQueryWrapper<SysUser>()
+                        .select(SysUser::getId, SysUser::getCreateTime)
+                        .gt(SysUser::getId, lastId)
+                        .orderByAsc(SysUser::getId)
+                        .last("LIMIT " + properties.getMigrationBatchSize()));
+                if (batch.isEmpty()) {
+                    stringRedisTemplate.opsForValue().set(CURSOR_KEY, DONE);
+                    log.info("打卡滚动位图迁移完成");
+                    break;
+                }
+
+                int fromYear = batch.stream()
+                        .filter(u -> u.getCreateTime() != null)
+                        .mapToInt(u -> u.getCreateTime().getYear())
+                        .min()
+                        .orElse(CheckInBitmapService.ROLLING_EPOCH.getYear());
+                List<Long> userIds = batch.stream().map(SysUser::getId).collect(Collectors.toList());
+                bits += checkInBitmapService.migrateToRolling(userIds, fromYear, currentYear);
+                users += batch.size();
+
+                lastId = batch.get(batch.size() - 1).getId();
+                stringRedisTemplate.opsForValue().set(CURSOR_KEY, String.valueOf(lastId));
+            }
+            if (users > 0) {
+                log.info("打卡滚动位图迁移进度: users={}, bits={}, lastId={}", users, bits, lastId);
+            }
+        } catch (Exception e) {
+            log.error("打卡滚动位图迁移失败: lastId={}", lastId, e);
+        }
+    }
+}
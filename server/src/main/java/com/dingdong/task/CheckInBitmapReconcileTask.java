@@ -0,0 +1,48 @@
+package com.dingdong.task;
+
+import com.dingdong.config.CheckInBitmapProperties;
+import com.dingdong.service.checkin.CheckInBitmapReconcileService;
+import com.dingdong.service.cluster.LeaderElectionService;
+import com.dingdong.service.cluster.LeaderLease;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * 打卡位图对账任务
+ * 以 check_in_log 为准修复异步写入丢失的位图数据（截至昨天），1月1日对账上一整年
+ * 仅主节点执行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CheckInBitmapReconcileTask {
+
+    private final CheckInBitmapReconcileService checkInBitmapReconcileService;
+    private final CheckInBitmapProperties properties;
+    private final LeaderElectionService leaderElectionService;
+
+    /**
+     * 每天凌晨4点30分执行（批次间限流，也可在白天执行）
+     */
+    @Scheduled(cron = "0 30 4 * * ?")
+    public void reconcile() {
+        if (!properties.isReconcileEnabled()) {
+            return;
+        }
+        LeaderLease lease = leaderElectionService.tryAcquire(LeaderElectionService.SCHEDULER_LEASE);
+        if (lease == null) {
+            return; // 非主节点
+        }
+
+        int year = LocalDate.now().minusDays(1).getYear();
+        try {
+            checkInBitmapReconcileService.reconcile(year, lease);
+        } catch (Exception e) {
+            log.error("打卡位图对账失败: year={}", year, e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.dingdong.task;
+
+import com.dingdong.service.checkin.CheckInDailyService;
+import com.dingdong.service.cluster.LeaderElectionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 每日打卡完成记录预热任务
+ * 从 MySQL 重建今天和昨天尚未就绪的完成记录，避免首个查询请求等待重建
+ * 仅主节点执行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CheckInDailyWarmUpTask {
+
+    private final CheckInDailyService checkInDailyService;
+    private final LeaderElectionService leaderElectionService;
+
+    /**
+     * 启动后预热（Redis 数据丢失或新部署时）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        warmUp();
+    }
+
+    /**
+     * 每天零点后执行，预热新的一天
+     */
+    @Scheduled(cron = "5 0 0 * * ?")
+    public void warmUp() {
+        if (leaderElectionService.tryAcquire(LeaderElectionService.SCHEDULER_LEASE) == null) {
+            return; // 非主节点
+        }
+
+        try {
+            checkInDailyService.warmUp();
+        } catch (Exception e) {
+            log.error("每日打卡完成记录预热失败", e);
+        }
+    }
+}
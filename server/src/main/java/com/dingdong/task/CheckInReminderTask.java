@@ -1,32 +1,59 @@
 package com.dingdong.task;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
 import com.dingdong.common.constant.NotifyType;
-import com.dingdong.common.constant.RepeatType;
 import com.dingdong.common.constant.TaskEnabled;
-import com.dingdong.entity.checkin.CheckInLog;
+import com.dingdong.common.util.TaskScheduleUtil;
+import com.dingdong.config.ReminderProperties;
 import com.dingdong.entity.checkin.CheckInTask;
 import com.dingdong.entity.user.SysUser;
-import com.dingdong.service.checkin.ICheckInLogService;
 import com.dingdong.service.checkin.ICheckInTaskService;
+import com.dingdong.service.cluster.ClusterNodeService;
+import com.dingdong.service.cluster.LeaderElectionService;
+import com.dingdong.service.cluster.ShardInfo;
 import com.dingdong.service.notification.INotificationLogService;
-import com.dingdong.service.user.ISysUserService;
+import com.dingdong.service.notification.INotificationOutboxService;
+import com.dingdong.service.reminder.ReminderLaneExecutor;
+import com.dingdong.service.reminder.ReminderQueueService;
+import com.dingdong.service.reminder.ReminderScheduleService;
+import com.dingdong.service.user.UserProfileCache;
 import com.dingdong.service.wechat.SubscribeMessageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
  * 叮咚提醒定时任务
  * 负责在指定时间发送订阅消息通知
  * 
+ * 基于 Redis ZSet 时间轮（{@link ReminderQueueService}）实现，每分钟只处理到期的任务，
+ * 不再全表扫描 check_in_task；触发时间持久化在 next_remind_at / next_missed_at 字段，
+ * Redis 不可用时按联合索引范围查询（{@link ReminderScheduleService}）
+ * 
+ * 漏打卡检测基于截止事件：每次打卡对应一个目标时间+30分钟的截止事件，打卡时同步取消，
+ * 到期未取消即为漏打卡，无需每分钟查询 check_in_log
+ * 
  * 使用 Redis + 数据库双保险机制防止重复推送
+ * 
+ * 多节点部署时按任务ID哈希在存活节点间分片处理，兜底重建仅由主节点执行；
+ * 单节点内按用户ID哈希分配到多个处理通道并行执行（{@link ReminderLaneExecutor}）
+ * 
+ * 定时任务线程只负责写入通知发件箱，消息由 {@link NotificationOutboxRelayTask} 投递并重试
  */
 @Slf4j
 @Component
@@ -34,13 +61,40 @@ import java.util.stream.Collectors;
 public class CheckInReminderTask {
 
     private final ICheckInTaskService checkInTaskService;
-    private final ICheckInLogService checkInLogService;
-    private final ISysUserService sysUserService;
+    private final UserProfileCache userProfileCache;
     private final SubscribeMessageService subscribeMessageService;
     private final INotificationLogService notificationLogService;
+    private final INotificationOutboxService notificationOutboxService;
+    private final ReminderQueueService reminderQueueService;
+    private final ReminderScheduleService reminderScheduleService;
+    private final ClusterNodeService clusterNodeService;
+    private final LeaderElectionService leaderElectionService;
+    private final ReminderLaneExecutor reminderLaneExecutor;
+    private final ReminderProperties reminderProperties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 单次提醒任务耗时指标
+     */
+    private static final String TICK_TIMER_NAME = "dingdong.reminder.tick.duration";
+
+    /**
+     * 处理事件数指标
+     */
+    private static final String EVENT_COUNTER_NAME = "dingdong.reminder.events";
+
+    /**
+     * 兜底重建时每批加载的任务数
+     */
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    /**
+     * 兜底重建时向后覆盖的时间窗口（小时），需大于重建周期
+     */
+    private static final int REBUILD_WINDOW_HOURS = 2;
 
     /**
-     * 每分钟执行一次，检查是否有需要发送的提醒
+     * 每分钟执行一次，处理时间轮中到期的提醒
      * - 到达叮咚时间：通知被叮咚者
      * - 超过30分钟未打卡：通知监督者（漏打卡）
      * - 完成打卡：在打卡时实时通知（不在此任务处理）
@@ -49,101 +103,278 @@ public class CheckInReminderTask {
     public void checkAndSendReminders() {
         log.debug("开始执行叮咚提醒检查任务...");
 
-        LocalDate today = LocalDate.now();
-        LocalDateTime now = LocalDateTime.now();
-        int dayOfWeek = today.getDayOfWeek().getValue();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            processDueEvents(LocalDateTime.now());
+        } finally {
+            long costNanos = sample.stop(meterRegistry.timer(TICK_TIMER_NAME));
+            log.debug("叮咚提醒检查任务结束: cost={}ms", TimeUnit.NANOSECONDS.toMillis(costNanos));
+        }
+    }
 
-        // 1. 获取今天所有启用的任务
-        List<CheckInTask> allTasks = checkInTaskService.list(
-                new LambdaQueryWrapper<CheckInTask>()
-                        .eq(CheckInTask::getStatus, TaskEnabled.ENABLED.getCode()));
+    /**
+     * 处理本分钟到期的提醒和漏打卡事件
+     */
+    private void processDueEvents(LocalDateTime now) {
 
-        // 2. 过滤出今天生效的任务
-        List<CheckInTask> activeTasks = allTasks.stream()
-                .filter(task -> isTaskActiveOnDate(task, today, dayOfWeek))
-                .toList();
+        ShardInfo shard = clusterNodeService.currentShard();
+        if (shard == null) {
+            // 无法确定分片时不处理，避免与其他节点重复发送（到期事件仍在队列中，下一分钟处理）
+            log.warn("无法获取集群分片信息，跳过本次叮咚提醒");
+            return;
+        }
+
+        // 1. 从时间轮获取本分钟到期的任务
+        Map<Long, LocalDateTime> dueReminds = reminderScheduleService.getDueTasks(NotifyType.REMIND, now);
+        Map<Long, LocalDateTime> dueMissed = reminderScheduleService.getDueTasks(NotifyType.MISSED, now);
+
+        // 只处理归属当前节点分片的任务（节点下线后其任务仍在队列中，由新的分片接管）
+        dueReminds.keySet().removeIf(taskId -> !shard.owns(taskId));
+        dueMissed.keySet().removeIf(taskId -> !shard.owns(taskId));
 
-        if (activeTasks.isEmpty()) {
-            log.debug("今天没有需要处理的任务");
+        if (dueReminds.isEmpty() && dueMissed.isEmpty()) {
+            log.debug("本分钟没有需要处理的任务");
             return;
         }
 
+        // 2. 按主键批量加载到期任务
+        Set<Long> taskIds = new HashSet<>(dueReminds.keySet());
+        taskIds.addAll(dueMissed.keySet());
+        Map<Long, CheckInTask> taskMap = checkInTaskService.listByIds(taskIds).stream()
+                .collect(Collectors.toMap(CheckInTask::getId, t -> t));
+
         // 3. 批量获取用户信息
         Set<Long> userIds = new HashSet<>();
-        activeTasks.forEach(task -> {
+        taskMap.values().forEach(task -> {
             userIds.add(task.getUserId());
             if (task.getCreatorId() != null) {
                 userIds.add(task.getCreatorId());
             }
         });
-        Map<Long, SysUser> userMap = sysUserService.listByIds(userIds).stream()
-                .collect(Collectors.toMap(SysUser::getId, u -> u));
+        Map<Long, SysUser> userMap = userIds.isEmpty() ? Collections.emptyMap()
+                : userProfileCache.getAll(userIds);
+
+        // 4. 一次性批量获取本分钟所有待发送通知的防重锁
+        Set<Long> remindLocks = notificationLogService.tryAcquireNotifyLocks(
+                collectRemindCandidates(dueReminds, now, taskMap), NotifyType.REMIND);
+        Set<Long> missedLocks = notificationLogService.tryAcquireNotifyLocks(
+                collectMissedCandidates(dueMissed, taskMap), NotifyType.MISSED);
+
+        // 5. 按用户分通道并行处理到期事件并写入发件箱
+        // 同一用户的事件在同一通道内按提交顺序执行（先提醒后漏打卡）
+        List<CompletableFuture<Void>> futures = new ArrayList<>(dueReminds.size() + dueMissed.size());
+        for (Map.Entry<Long, LocalDateTime> entry : dueReminds.entrySet()) {
+            Long taskId = entry.getKey();
+            futures.add(reminderLaneExecutor.submit(userIdOf(taskMap, taskId), () -> {
+                try {
+                    processRemind(taskId, entry.getValue(), now, taskMap, userMap, remindLocks);
+                } catch (Exception e) {
+                    log.error("处理叮咚提醒异常: taskId={}", taskId, e);
+                }
+            }));
+        }
+        for (Map.Entry<Long, LocalDateTime> entry : dueMissed.entrySet()) {
+            Long taskId = entry.getKey();
+            futures.add(reminderLaneExecutor.submit(userIdOf(taskMap, taskId), () -> {
+                try {
+                    processMissed(taskId, entry.getValue(), taskMap, userMap, missedLocks);
+                } catch (Exception e) {
+                    log.error("处理漏打卡检查异常: taskId={}", taskId, e);
+                }
+            }));
+        }
+        meterRegistry.counter(EVENT_COUNTER_NAME, "type", "remind").increment(dueReminds.size());
+        meterRegistry.counter(EVENT_COUNTER_NAME, "type", "missed").increment(dueMissed.size());
 
-        // 4. 获取今天的打卡记录
-        List<Long> taskIds = activeTasks.stream().map(CheckInTask::getId).toList();
-        List<CheckInLog> todayLogs = checkInLogService.list(
-                new LambdaQueryWrapper<CheckInLog>()
-                        .in(CheckInLog::getTaskId, taskIds)
-                        .ge(CheckInLog::getCheckTime, today.atStartOfDay())
-                        .lt(CheckInLog::getCheckTime, today.plusDays(1).atStartOfDay()));
+        // 6. 等待本批事件处理完成，避免与下一分钟的任务重叠
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(reminderProperties.getTickTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("叮咚提醒处理超时，剩余事件将在通道中继续执行: total={}", futures.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("叮咚提醒处理异常", e);
+        }
+    }
+
+    /**
+     * 获取任务所属用户ID（任务不存在时返回 null，统一分配到默认通道）
+     */
+    private Long userIdOf(Map<Long, CheckInTask> taskMap, Long taskId) {
+        CheckInTask task = taskMap.get(taskId);
+        return task != null ? task.getUserId() : null;
+    }
+
+    /**
+     * 启动后重建时间轮（Redis 数据丢失或新部署时）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuildSchedule();
+    }
+
+    /**
+     * 每小时执行一次，作为兜底机制
+     * 按 (status, next_xxx_at) 索引范围查询即将到期的任务，补充到时间轮
+     * （仅补充不存在的成员，不覆盖已有触发时间）
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    public void rebuildSchedule() {
+        if (leaderElectionService.tryAcquire(LeaderElectionService.SCHEDULER_LEASE) == null) {
+            return; // 非主节点
+        }
 
-        Set<Long> completedTaskIds = todayLogs.stream()
-                .map(CheckInLog::getTaskId)
-                .collect(Collectors.toSet());
+        LocalDateTime until = LocalDateTime.now().plusHours(REBUILD_WINDOW_HOURS);
+        try {
+            int remindCount = rebuildQueue(NotifyType.REMIND, until);
+            int missedCount = rebuildQueue(NotifyType.MISSED, until);
+            log.debug("提醒时间轮兜底重建完成: 提醒 {} 个, 漏打卡检查 {} 个", remindCount, missedCount);
+        } catch (Exception e) {
+            log.error("提醒时间轮兜底重建失败", e);
+        }
+    }
 
-        // 5. 处理每个任务
-        for (CheckInTask task : activeTasks) {
-            processTask(task, today, now, userMap, completedTaskIds);
+    /**
+     * 分批加载触发时间早于 until 的启用任务并补充到指定队列
+     *
+     * @return 检查的任务数
+     */
+    private int rebuildQueue(NotifyType notifyType, LocalDateTime until) {
+        SFunction<CheckInTask, LocalDateTime> column = reminderScheduleService.nextFireTimeColumn(notifyType);
+        long lastId = 0L;
+        int total = 0;
+        while (true) {
+            List<CheckInTask> batch = checkInTaskService.list(
+                    new LambdaQueryWrapper<CheckInTask>()
+                            .select(CheckInTask::getId, column)
+                            .eq(CheckInTask::getStatus, TaskEnabled.ENABLED.getCode())
+                            .le(column, until)
+                            .gt(CheckInTask::getId, lastId)
+                            .orderByAsc(CheckInTask::getId)
+                            .last("LIMIT " + REBUILD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (CheckInTask task : batch) {
+                reminderQueueService.putIfAbsent(task.getId(), notifyType, column.apply(task));
+            }
+            total += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
         }
+        return total;
     }
 
     /**
-     * 处理单个任务的提醒逻辑
+     * 处理到期的叮咚提醒
      */
-    private void processTask(CheckInTask task, LocalDate today, LocalDateTime now,
-            Map<Long, SysUser> userMap, Set<Long> completedTaskIds) {
-        if (task.getRemindTime() == null) {
+    private void processRemind(Long taskId, LocalDateTime triggerTime, LocalDateTime now,
+            Map<Long, CheckInTask> taskMap, Map<Long, SysUser> userMap, Set<Long> acquiredLocks) {
+        CheckInTask task = taskMap.get(taskId);
+        if (!isSchedulable(task)) {
+            reminderQueueService.remove(taskId, NotifyType.REMIND);
             return;
         }
 
-        // 计算今天的目标提醒时间
-        LocalDateTime targetTime;
-        if (RepeatType.ONCE.getCode().equals(task.getRepeatType())) {
-            targetTime = task.getRemindTime();
-        } else {
-            targetTime = LocalDateTime.of(today, task.getRemindTime().toLocalTime());
+        LocalDateTime targetTime = triggerTime.plusMinutes(TaskScheduleUtil.REMIND_ADVANCE_MINUTES);
+        // 停机积压的提醒超过打卡时限后不再补发
+        if (!now.isAfter(targetTime.plusMinutes(TaskScheduleUtil.CHECK_IN_LIMIT_MINUTES))) {
+            // 写入发件箱失败时抛出异常且不推进，事件留在时间轮中下一分钟重试
+            sendRemindNotificationWithCheck(task, targetTime.toLocalDate(), targetTime, userMap, acquiredLocks);
+        }
+        reminderScheduleService.advance(task, NotifyType.REMIND, triggerTime);
+    }
+
+    /**
+     * 处理到期的漏打卡截止事件
+     * 本次打卡时截止事件已被取消，到期事件即代表未打卡，无需再查询打卡记录
+     */
+    private void processMissed(Long taskId, LocalDateTime triggerTime, Map<Long, CheckInTask> taskMap,
+            Map<Long, SysUser> userMap, Set<Long> acquiredLocks) {
+        CheckInTask task = taskMap.get(taskId);
+        if (!isSchedulable(task)) {
+            reminderQueueService.remove(taskId, NotifyType.MISSED);
+            return;
         }
 
-        boolean isCompleted = completedTaskIds.contains(task.getId());
+        if (!isPendingDeadline(task, triggerTime)) {
+            // 已取消的旧事件，按数据库中的触发时间修正队列
+            reminderQueueService.put(taskId, NotifyType.MISSED, task.getNextMissedAt());
+            return;
+        }
 
-        // 情况1: 到达叮咚时间 (提前30分钟任务提醒) - 通知被叮咚者
-        LocalDateTime remindTriggerTime = targetTime.minusMinutes(30);
-        if (isTimeToRemind(now, remindTriggerTime)) {
-            sendRemindNotificationWithCheck(task, today, targetTime, userMap);
+        // 条件推进触发时间，与打卡取消并发时只有一方成功
+        if (!reminderScheduleService.tryAdvance(task, NotifyType.MISSED, triggerTime)) {
+            return;
         }
 
-        // 情况2: 超过30分钟未打卡 - 通知监督者（漏打卡）
-        LocalDateTime missedTime = targetTime.plusMinutes(30);
-        if (!isCompleted && now.isAfter(missedTime)) {
-            sendMissedNotificationWithCheck(task, today, targetTime, userMap);
+        LocalDateTime targetTime = triggerTime.minusMinutes(TaskScheduleUtil.CHECK_IN_LIMIT_MINUTES);
+        try {
+            sendMissedNotificationWithCheck(task, targetTime.toLocalDate(), targetTime, userMap, acquiredLocks);
+        } catch (RuntimeException e) {
+            // 写入发件箱失败，恢复本次截止事件，下一分钟重试
+            reminderScheduleService.undoAdvance(task, NotifyType.MISSED, triggerTime);
+            throw e;
         }
     }
 
     /**
-     * 判断是否到了提醒时间（在目标时间前后1分钟内）
+     * 收集需要发送叮咚提醒的任务（任务ID -> 通知日期）
      */
-    private boolean isTimeToRemind(LocalDateTime now, LocalDateTime targetTime) {
-        return !now.isBefore(targetTime) && now.isBefore(targetTime.plusMinutes(1));
+    private Map<Long, LocalDate> collectRemindCandidates(Map<Long, LocalDateTime> dueReminds, LocalDateTime now,
+            Map<Long, CheckInTask> taskMap) {
+        Map<Long, LocalDate> candidates = new HashMap<>();
+        dueReminds.forEach((taskId, triggerTime) -> {
+            LocalDateTime targetTime = triggerTime.plusMinutes(TaskScheduleUtil.REMIND_ADVANCE_MINUTES);
+            if (isSchedulable(taskMap.get(taskId))
+                    && !now.isAfter(targetTime.plusMinutes(TaskScheduleUtil.CHECK_IN_LIMIT_MINUTES))) {
+                candidates.put(taskId, targetTime.toLocalDate());
+            }
+        });
+        return candidates;
     }
 
     /**
-     * 发送叮咚提醒（带防重检查）
+     * 收集需要发送漏打卡通知的任务（任务ID -> 通知日期）
      */
-    private void sendRemindNotificationWithCheck(CheckInTask task, LocalDate today,
-            LocalDateTime remindTime, Map<Long, SysUser> userMap) {
-        // Redis + 数据库双保险防重
-        if (!notificationLogService.tryAcquireNotifyLock(task.getId(), today, NotifyType.REMIND)) {
-            log.debug("叮咚提醒已发送过: taskId={}, date={}", task.getId(), today);
+    private Map<Long, LocalDate> collectMissedCandidates(Map<Long, LocalDateTime> dueMissed,
+            Map<Long, CheckInTask> taskMap) {
+        Map<Long, LocalDate> candidates = new HashMap<>();
+        dueMissed.forEach((taskId, triggerTime) -> {
+            CheckInTask task = taskMap.get(taskId);
+            if (isSchedulable(task) && task.getCreatorId() != null && isPendingDeadline(task, triggerTime)) {
+                candidates.put(taskId,
+                        triggerTime.minusMinutes(TaskScheduleUtil.CHECK_IN_LIMIT_MINUTES).toLocalDate());
+            }
+        });
+        return candidates;
+    }
+
+    /**
+     * 漏打卡截止事件是否仍有效（与数据库中的触发时间一致）
+     * 打卡时会将截止事件推进到下一次，Redis 同步失败时队列中可能残留已取消的旧事件
+     */
+    private boolean isPendingDeadline(CheckInTask task, LocalDateTime triggerTime) {
+        return triggerTime.equals(task.getNextMissedAt());
+    }
+
+    /**
+     * 任务是否仍需要调度（存在且启用）
+     */
+    private boolean isSchedulable(CheckInTask task) {
+        return task != null && TaskEnabled.ENABLED.getCode().equals(task.getStatus())
+                && task.getRemindTime() != null;
+    }
+
+    /**
+     * 发送叮咚提醒（带防重检查，写入发件箱异步发送）
+     */
+    private void sendRemindNotificationWithCheck(CheckInTask task, LocalDate notifyDate,
+            LocalDateTime remindTime, Map<Long, SysUser> userMap, Set<Long> acquiredLocks) {
+        // 未获取到防重锁，说明已发送过
+        if (!acquiredLocks.contains(task.getId())) {
+            log.debug("叮咚提醒已发送过: taskId={}, date={}", task.getId(), notifyDate);
             return;
         }
 
@@ -152,7 +383,7 @@ public class CheckInReminderTask {
 
         if (targetUser == null || targetUser.getOpenid() == null) {
             log.warn("无法发送提醒：目标用户不存在或无openid, taskId={}", task.getId());
-            notificationLogService.record(task.getId(), today, NotifyType.REMIND,
+            notificationLogService.record(task.getId(), notifyDate, NotifyType.REMIND,
                     task.getUserId(), false, "目标用户不存在或无openid");
             return;
         }
@@ -162,34 +393,32 @@ public class CheckInReminderTask {
         log.info("发送叮咚提醒: taskId={}, userId={}, title={}",
                 task.getId(), task.getUserId(), task.getTitle());
 
+        // 发送结果由发件箱投递完成后记录；写入失败时释放防重锁，由发件箱唯一索引防重
         try {
-            subscribeMessageService.sendRemindMessage(
-                    targetUser.getOpenid(),
-                    task.getTitle(),
-                    remindTime,
-                    supervisorName);
-            // 记录发送成功
-            notificationLogService.record(task.getId(), today, NotifyType.REMIND,
-                    task.getUserId(), true, null);
-        } catch (Exception e) {
-            log.error("叮咚提醒发送失败: taskId={}", task.getId(), e);
-            notificationLogService.record(task.getId(), today, NotifyType.REMIND,
-                    task.getUserId(), false, e.getMessage());
+            notificationOutboxService.enqueue(task.getId(), notifyDate, NotifyType.REMIND, task.getUserId(),
+                    subscribeMessageService.buildRemindMessage(
+                            targetUser.getOpenid(),
+                            task.getTitle(),
+                            remindTime,
+                            supervisorName));
+        } catch (RuntimeException e) {
+            notificationLogService.releaseNotifyLock(task.getId(), notifyDate, NotifyType.REMIND);
+            throw e;
         }
     }
 
     /**
-     * 发送漏打卡通知（带防重检查）
+     * 发送漏打卡通知（带防重检查，写入发件箱异步发送）
      */
-    private void sendMissedNotificationWithCheck(CheckInTask task, LocalDate today,
-            LocalDateTime remindTime, Map<Long, SysUser> userMap) {
+    private void sendMissedNotificationWithCheck(CheckInTask task, LocalDate notifyDate,
+            LocalDateTime remindTime, Map<Long, SysUser> userMap, Set<Long> acquiredLocks) {
         if (task.getCreatorId() == null) {
             return;
         }
 
-        // Redis + 数据库双保险防重
-        if (!notificationLogService.tryAcquireNotifyLock(task.getId(), today, NotifyType.MISSED)) {
-            log.debug("漏打卡通知已发送过: taskId={}, date={}", task.getId(), today);
+        // 未获取到防重锁，说明已发送过
+        if (!acquiredLocks.contains(task.getId())) {
+            log.debug("漏打卡通知已发送过: taskId={}, date={}", task.getId(), notifyDate);
             return;
         }
 
@@ -198,7 +427,7 @@ public class CheckInReminderTask {
 
         if (supervisor == null || supervisor.getOpenid() == null) {
             log.warn("无法发送漏打卡通知：监督者不存在或无openid, taskId={}", task.getId());
-            notificationLogService.record(task.getId(), today, NotifyType.MISSED,
+            notificationLogService.record(task.getId(), notifyDate, NotifyType.MISSED,
                     task.getCreatorId(), false, "监督者不存在或无openid");
             return;
         }
@@ -208,36 +437,17 @@ public class CheckInReminderTask {
         log.info("发送漏打卡通知: taskId={}, supervisorId={}, supervisedName={}",
                 task.getId(), task.getCreatorId(), supervisedName);
 
+        // 发送结果由发件箱投递完成后记录；写入失败时释放防重锁，由发件箱唯一索引防重
         try {
-            subscribeMessageService.sendMissedCheckInMessage(
-                    supervisor.getOpenid(),
-                    supervisedName,
-                    task.getTitle(),
-                    remindTime);
-            // 记录发送成功
-            notificationLogService.record(task.getId(), today, NotifyType.MISSED,
-                    task.getCreatorId(), true, null);
-        } catch (Exception e) {
-            log.error("漏打卡通知发送失败: taskId={}", task.getId(), e);
-            notificationLogService.record(task.getId(), today, NotifyType.MISSED,
-                    task.getCreatorId(), false, e.getMessage());
-        }
-    }
-
-    /**
-     * 判断任务在指定日期是否生效
-     */
-    private boolean isTaskActiveOnDate(CheckInTask task, LocalDate date, int dayOfWeek) {
-        RepeatType repeatType = RepeatType.fromCode(task.getRepeatType());
-        if (repeatType == null) {
-            return false;
-        }
-
-        if (repeatType == RepeatType.ONCE) {
-            LocalDateTime remindTime = task.getRemindTime();
-            return remindTime != null && remindTime.toLocalDate().equals(date);
-        } else {
-            return repeatType.matchesDayOfWeek(dayOfWeek);
+            notificationOutboxService.enqueue(task.getId(), notifyDate, NotifyType.MISSED, task.getCreatorId(),
+                    subscribeMessageService.buildMissedCheckInMessage(
+                            supervisor.getOpenid(),
+                            supervisedName,
+                            task.getTitle(),
+                            remindTime));
+        } catch (RuntimeException e) {
+            notificationLogService.releaseNotifyLock(task.getId(), notifyDate, NotifyType.MISSED);
+            throw e;
         }
     }
 }
@@ -0,0 +1,46 @@
+package com.dingdong.task;
+
+import com.dingdong.config.SubscribeMessageProperties;
+import com.dingdong.service.cluster.LeaderElectionService;
+import com.dingdong.service.cluster.LeaderLease;
+import com.dingdong.service.notification.INotificationOutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 通知发件箱清理任务
+ * 删除超过保留天数的已结束消息（已发送、永久失败、重试耗尽），投递结果已记录在 notification_log
+ * 仅主节点执行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationOutboxPurgeTask {
+
+    private final INotificationOutboxService notificationOutboxService;
+    private final SubscribeMessageProperties properties;
+    private final LeaderElectionService leaderElectionService;
+
+    /**
+     * 每天凌晨4点执行
+     */
+    @Scheduled(cron = "0 0 4 * * ?")
+    public void purge() {
+        LeaderLease lease = leaderElectionService.tryAcquire(LeaderElectionService.SCHEDULER_LEASE);
+        if (lease == null) {
+            return; // 非主节点
+        }
+
+        LocalDateTime before = LocalDateTime.now().minusDays(properties.getOutbox().getRetentionDays());
+        try {
+            int purged = notificationOutboxService.purgeFinished(before, lease);
+            log.info("通知发件箱清理完成: before={}, purged={}", before, purged);
+        } catch (Exception e) {
+            log.error("通知发件箱清理失败", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.dingdong.task;
+
+import com.dingdong.config.SubscribeMessageProperties;
+import com.dingdong.entity.notification.NotificationOutbox;
+import com.dingdong.service.notification.INotificationOutboxService;
+import com.dingdong.service.wechat.SubscribeMessageDispatcher;
+import com.dingdong.service.wechat.SubscribeSendResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 通知发件箱投递任务
+ * 定时从 notification_outbox 领取到期消息，交给 {@link SubscribeMessageDispatcher} 并发发送
+ *
+ * 优势：
+ * 1. 可靠性：消息先落库，应用重启不丢失，发送中的消息租约到期后自动重新领取
+ * 2. 可重试：临时错误按指数退避重试，永久错误（如用户未订阅）直接结束
+ * 3. 不阻塞：与每分钟的提醒任务解耦，提醒任务只负责写入发件箱
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationOutboxRelayTask {
+
+    private final INotificationOutboxService notificationOutboxService;
+    private final SubscribeMessageDispatcher subscribeMessageDispatcher;
+    private final SubscribeMessageProperties properties;
+
+    /**
+     * 每2秒执行一次（上一次执行结束后计时）
+     */
+    @Scheduled(fixedDelay = 2000, initialDelay = 10000)
+    public void relay() {
+        // 按发送队列剩余容量领取，避免领取后长时间排队导致租约过期被重复领取
+        int capacity = properties.getQueueCapacity() - subscribeMessageDispatcher.getQueueSize();
+        int limit = Math.min(properties.getOutbox().getBatchSize(), capacity);
+        if (limit <= 0) {
+            return;
+        }
+
+        List<NotificationOutbox> batch;
+        try {
+            batch = notificationOutboxService.claimBatch(limit);
+        } catch (Exception e) {
+            log.error("领取发件箱消息失败", e);
+            return;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        log.debug("领取发件箱消息 {} 条", batch.size());
+        List<CompletableFuture<SubscribeSendResult>> futures = new ArrayList<>(batch.size());
+        for (NotificationOutbox outbox : batch) {
+            try {
+                futures.add(subscribeMessageDispatcher.submit(notificationOutboxService.toMessage(outbox),
+                        result -> notificationOutboxService.handleResult(outbox, result)));
+            } catch (Exception e) {
+                // 消息数据无法还原，重试也无法成功
+                log.error("发件箱消息还原失败: id={}", outbox.getId(), e);
+                notificationOutboxService.handleResult(outbox,
+                        SubscribeSendResult.fail(SubscribeSendResult.ERR_INVALID_TEMPLATE, "消息数据无效"));
+            }
+        }
+        subscribeMessageDispatcher.reportBatch("通知发件箱", futures);
+    }
+}
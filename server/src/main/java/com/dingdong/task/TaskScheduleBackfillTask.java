@@ -0,0 +1,92 @@
+package com.dingdong.task;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.dingdong.common.constant.RepeatType;
+import com.dingdong.common.constant.TaskEnabled;
+import com.dingdong.common.util.TaskScheduleUtil;
+import com.dingdong.entity.checkin.CheckInTask;
+import com.dingdong.service.checkin.ICheckInTaskService;
+import com.dingdong.service.cluster.LeaderElectionService;
+import com.dingdong.service.reminder.ReminderScheduleService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 任务触发时间回填任务
+ * 为存量任务（或触发时间写入失败的任务）计算 next_remind_at / next_missed_at
+ *
+ * 启动时执行一次，之后每天凌晨执行一次兜底（仅主节点执行）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskScheduleBackfillTask {
+
+    private final ICheckInTaskService checkInTaskService;
+    private final ReminderScheduleService reminderScheduleService;
+    private final LeaderElectionService leaderElectionService;
+
+    /**
+     * 每批回填的任务数
+     */
+    private static final int BATCH_SIZE = 500;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        backfill();
+    }
+
+    /**
+     * 每天凌晨3点执行，回填缺失触发时间的启用任务
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void backfill() {
+        if (leaderElectionService.tryAcquire(LeaderElectionService.SCHEDULER_LEASE) == null) {
+            return; // 非主节点
+        }
+
+        // 已过期的单次任务触发时间本就为空，不再重复回填
+        LocalDateTime onceExpireBefore = LocalDateTime.now().minusMinutes(TaskScheduleUtil.CHECK_IN_LIMIT_MINUTES);
+        long lastId = 0L;
+        int total = 0;
+        try {
+            while (true) {
+                List<CheckInTask> batch = checkInTaskService.list(
+                        new LambdaQueryWrapper<CheckInTask>()
+                                .eq(CheckInTask::getStatus, TaskEnabled.ENABLED.getCode())
+                                .isNotNull(CheckInTask::getRemindTime)
+                                .isNull(CheckInTask::getNextRemindAt)
+                                .isNull(CheckInTask::getNextMissedAt)
+                                .and(w -> w.ne(CheckInTask::getRepeatType, RepeatType.ONCE.getCode())
+                                        .or().ge(CheckInTask::getRemindTime, onceExpireBefore))
+                                .gt(CheckInTask::getId, lastId)
+                                .orderByAsc(CheckInTask::getId)
+                                .last("LIMIT " + BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (CheckInTask task : batch) {
+                    try {
+                        reminderScheduleService.refresh(task);
+                    } catch (Exception e) {
+                        log.error("回填任务触发时间失败: taskId={}", task.getId(), e);
+                    }
+                }
+                total += batch.size();
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            if (total > 0) {
+                log.info("任务触发时间回填完成: 共 {} 个任务", total);
+            }
+        } catch (Exception e) {
+            log.error("任务触发时间回填失败", e);
+        }
+    }
+}
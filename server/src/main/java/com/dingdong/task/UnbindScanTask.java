@@ -1,11 +1,11 @@
 package com.dingdong.task;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.dingdong.common.constant.RelationActionType;
 import com.dingdong.common.constant.RelationStatus;
 import com.dingdong.entity.user.UserRelation;
+import com.dingdong.service.cluster.LeaderElectionService;
+import com.dingdong.service.cluster.LeaderLease;
 import com.dingdong.service.unbind.UnbindQueueService;
-import com.dingdong.service.user.IRelationHistoryService;
 import com.dingdong.service.user.IUserRelationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +24,7 @@ import java.util.Set;
  * 1. 精确度高：每分钟检查，最多延迟1分钟
  * 2. 性能好：只查询 Redis，不扫描数据库
  * 3. 可靠性：数据持久化在 Redis，应用重启不丢失
+ * 4. 集群安全：仅由持有主节点租约的节点执行，状态更新带条件防止旧主节点重复处理
  */
 @Slf4j
 @Component
@@ -32,13 +33,18 @@ public class UnbindScanTask {
 
     private final IUserRelationService userRelationService;
     private final UnbindQueueService unbindQueueService;
-    private final IRelationHistoryService relationHistoryService;
+    private final LeaderElectionService leaderElectionService;
 
     /**
      * 每分钟执行一次，检查到期的解绑任务
      */
     @Scheduled(cron = "0 * * * * ?")
     public void scanAndUnbind() {
+        LeaderLease lease = leaderElectionService.tryAcquire(LeaderElectionService.SCHEDULER_LEASE);
+        if (lease == null) {
+            return; // 非主节点
+        }
+
         // 获取所有到期的解绑任务
         Set<String> dueTasks = unbindQueueService.getDueUnbindTasks();
 
@@ -49,6 +55,10 @@ public class UnbindScanTask {
         log.info("发现 {} 条到期解绑申请，开始处理...", dueTasks.size());
 
         for (String relationIdStr : dueTasks) {
+            if (!lease.isValid()) {
+                log.warn("主节点租约已失效，停止处理剩余解绑任务: fencingToken={}", lease.getFencingToken());
+                break;
+            }
             Long relationId = Long.parseLong(relationIdStr);
             try {
                 // 获取关系记录，确认仍然存在且仍需解绑
@@ -69,26 +79,19 @@ public class UnbindScanTask {
                     continue;
                 }
 
-                // 执行解绑：将状态改为已解绑（不再逻辑删除，保留历史）
-                relation.setStatus(RelationStatus.UNBOUND.getCode());
-                relation.setUnbindExpireTime(null);
-                boolean success = userRelationService.updateById(relation);
+                // 执行解绑（仅当仍为解绑中时更新，并设置冷却期、记录历史）
+                boolean success = userRelationService.completeUnbind(relation);
 
                 if (success) {
-                    // 设置冷却期（24小时内不能重新绑定）
-                    unbindQueueService.setCooldown(relation.getInitiatorId(), relation.getPartnerId());
-
-                    // 记录历史
-                    relationHistoryService.recordHistory(relationId, RelationActionType.UNBIND_COMPLETED.getCode(),
-                            0L, "解绑自动生效");
-
                     // 从队列移除已完成的任务
                     unbindQueueService.markTaskCompleted(relationId);
 
                     log.info("关系解绑成功: id={}, initiator={}, partner={}",
                             relationId, relation.getInitiatorId(), relation.getPartnerId());
                 } else {
-                    log.error("关系解绑失败: id={}", relationId);
+                    // 已被其他节点处理或状态已变化
+                    unbindQueueService.markTaskCompleted(relationId);
+                    log.warn("关系解绑未生效（状态已变化）: id={}", relationId);
                 }
 
             } catch (Exception e) {
@@ -103,6 +106,10 @@ public class UnbindScanTask {
      */
     @Scheduled(cron = "0 0 * * * ?")
     public void fallbackScan() {
+        if (leaderElectionService.tryAcquire(LeaderElectionService.SCHEDULER_LEASE) == null) {
+            return; // 非主节点
+        }
+
         log.debug("执行兜底扫描...");
 
         // 查找数据库中状态为解绑中且 unbind_expire_time 已过期的记录
@@ -0,0 +1,104 @@
+package com.dingdong.task;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.dingdong.entity.checkin.CheckInLog;
+import com.dingdong.mapper.checkin.CheckInLogMapper;
+import com.dingdong.service.cluster.LeaderElectionService;
+import com.dingdong.service.user.IUserDailyStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 用户打卡统计汇总任务
+ * 每天凌晨重算前一天的日汇总和所在月份的月汇总；
+ * 首次部署时从前天开始逐日向前回填历史数据（每次最多 BACKFILL_DAYS_PER_RUN 天，进度保存在 Redis）
+ * 仅主节点执行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserDailyStatsTask {
+
+    private final IUserDailyStatsService userDailyStatsService;
+    private final CheckInLogMapper checkInLogMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final LeaderElectionService leaderElectionService;
+
+    /**
+     * 回填进度 Key（已回填的最早日期）
+     */
+    private static final String BACKFILL_CURSOR_KEY = "dingdong:stats:backfill:cursor";
+
+    private static final String DONE = "done";
+
+    /**
+     * 每次最多回填的天数
+     */
+    private static final int BACKFILL_DAYS_PER_RUN = 366;
+
+    /**
+     * 每天凌晨0点20分执行
+     */
+    @Scheduled(cron = "0 20 0 * * ?")
+    public void compact() {
+        if (leaderElectionService.tryAcquire(LeaderElectionService.SCHEDULER_LEASE) == null) {
+            return; // 非主节点
+        }
+
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        try {
+            userDailyStatsService.compact(yesterday);
+            userDailyStatsService.rollup(yesterday);
+        } catch (Exception e) {
+            log.error("用户打卡统计汇总失败: date={}", yesterday, e);
+        }
+
+        try {
+            backfill(yesterday);
+        } catch (Exception e) {
+            log.error("用户打卡统计回填失败", e);
+        }
+    }
+
+    /**
+     * 从上次回填到的日期继续向前回填，直到最早的打卡记录
+     */
+    private void backfill(LocalDate yesterday) {
+        String cursor = stringRedisTemplate.opsForValue().get(BACKFILL_CURSOR_KEY);
+        if (DONE.equals(cursor)) {
+            return;
+        }
+
+        CheckInLog first = checkInLogMapper.selectOne(new LambdaQueryWrapper<CheckInLog>()
+                .select(CheckInLog::getCheckTime)
+                .orderByAsc(CheckInLog::getCheckTime)
+                .last("LIMIT 1"));
+        LocalDate earliest = first != null ? first.getCheckTime().toLocalDate() : yesterday;
+
+        LocalDate date = cursor != null ? LocalDate.parse(cursor).minusDays(1) : yesterday.minusDays(1);
+        Set<LocalDate> months = new LinkedHashSet<>();
+        for (int i = 0; i < BACKFILL_DAYS_PER_RUN && !date.isBefore(earliest); i++) {
+            userDailyStatsService.compact(date);
+            months.add(date.withDayOfMonth(1));
+            date = date.minusDays(1);
+        }
+
+        // 每个涉及的月份只重算一次月汇总，完成后再保存进度（中断时下次从原进度重做，重算是幂等的）
+        if (!months.isEmpty()) {
+            months.forEach(userDailyStatsService::rollup);
+            stringRedisTemplate.opsForValue().set(BACKFILL_CURSOR_KEY, date.plusDays(1).toString());
+        }
+
+        if (date.isBefore(earliest)) {
+            stringRedisTemplate.opsForValue().set(BACKFILL_CURSOR_KEY, DONE);
+            log.info("用户打卡统计回填完成: earliest={}", earliest);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.dingdong.task;
+
+import com.dingdong.service.user.IUserLevelConfigService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户等级配置刷新任务
+ * 定时重新加载本节点的等级注册表，兜底丢失的刷新通知（每个节点都执行，不需要选主）
+ */
+@Component
+@RequiredArgsConstructor
+public class UserLevelConfigRefreshTask {
+
+    private final IUserLevelConfigService userLevelConfigService;
+
+    /**
+     * 刷新间隔由 dingdong.user-level.refresh-interval-millis 配置（上一次执行结束后计时）
+     */
+    @Scheduled(fixedDelayString = "${dingdong.user-level.refresh-interval-millis:300000}",
+            initialDelayString = "${dingdong.user-level.refresh-interval-millis:300000}")
+    public void refresh() {
+        userLevelConfigService.refresh();
+    }
+}
@@ -0,0 +1,45 @@
+package com.dingdong.task;
+
+import com.dingdong.config.RelationCacheProperties;
+import com.dingdong.service.cluster.LeaderElectionService;
+import com.dingdong.service.cluster.LeaderLease;
+import com.dingdong.service.user.UserRelationEdgeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 关系边表核对任务
+ * 以 user_relation 为准修复 user_relation_edge 中缺失、状态不一致和孤立的边
+ * 仅主节点执行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserRelationEdgeCheckTask {
+
+    private final UserRelationEdgeService userRelationEdgeService;
+    private final RelationCacheProperties properties;
+    private final LeaderElectionService leaderElectionService;
+
+    /**
+     * 每天凌晨5点执行
+     */
+    @Scheduled(cron = "0 0 5 * * ?")
+    public void check() {
+        if (!properties.isEdgeCheckEnabled()) {
+            return;
+        }
+        LeaderLease lease = leaderElectionService.tryAcquire(LeaderElectionService.SCHEDULER_LEASE);
+        if (lease == null) {
+            return; // 非主节点
+        }
+
+        try {
+            userRelationEdgeService.check(lease);
+        } catch (Exception e) {
+            log.error("关系边表核对失败", e);
+        }
+    }
+}
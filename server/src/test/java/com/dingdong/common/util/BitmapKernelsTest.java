@@ -0,0 +1,239 @@
+package com.dingdong.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * BitmapKernels 按字计算与逐位参考实现的对照
+ * 随机字节数组覆盖空数组、不足一个字的短数组、非 8 字节对齐的长度，以及不对齐的起止偏移量
+ */
+class BitmapKernelsTest {
+
+    private static final long SEED = 20261018L;
+
+    /**
+     * 随机数组的最大字节数（覆盖多个 64 位字和不足一个字的尾部）
+     */
+    private static final int MAX_BYTES = 40;
+
+    /**
+     * 每个数组随机抽取的区间数
+     */
+    private static final int RANGES_PER_ARRAY = 200;
+
+    /**
+     * 置位概率：稀疏、均匀、稠密（产生跨字的长连续段）和全 1
+     */
+    private static final double[] DENSITIES = {0.05, 0.5, 0.95, 1.0};
+
+    @Test
+    void getMatchesReference() {
+        forEachBitmap((bitmap, random) -> {
+            for (int offset = -8; offset < bitmap.length * 8 + 16; offset++) {
+                assertThat(BitmapKernels.get(bitmap, offset))
+                        .as("offset=%d, bitmap=%s", offset, Arrays.toString(bitmap))
+                        .isEqualTo(naiveGet(bitmap, offset));
+            }
+        });
+    }
+
+    @Test
+    void countMatchesReference() {
+        forEachBitmap((bitmap, random) -> assertThat(BitmapKernels.count(bitmap))
+                .as("bitmap=%s", Arrays.toString(bitmap))
+                .isEqualTo(naiveCount(bitmap, 0, bitmap.length * 8 - 1)));
+    }
+
+    @Test
+    void countRangeMatchesReference() {
+        forEachBitmap((bitmap, random) -> {
+            int bits = bitmap.length * 8;
+            for (int i = 0; i < RANGES_PER_ARRAY; i++) {
+                int from = random.nextInt(bits + 16) - 8;
+                int to = random.nextInt(bits + 16) - 8;
+                assertThat(BitmapKernels.countRange(bitmap, from, to))
+                        .as("from=%d, to=%d, bitmap=%s", from, to, Arrays.toString(bitmap))
+                        .isEqualTo(naiveCount(bitmap, from, to));
+            }
+        });
+    }
+
+    @Test
+    void countRangeOnWordBoundaries() {
+        forEachBitmap((bitmap, random) -> {
+            int bits = bitmap.length * 8;
+            for (int from = 0; from < bits; from += 32) {
+                for (int to : new int[]{from, from + 31, from + 62, from + 63, from + 64, from + 127, bits - 1}) {
+                    assertThat(BitmapKernels.countRange(bitmap, from, to))
+                            .as("from=%d, to=%d, bitmap=%s", from, to, Arrays.toString(bitmap))
+                            .isEqualTo(naiveCount(bitmap, from, to));
+                }
+            }
+        });
+    }
+
+    @Test
+    void countRangeCoversEveryMaskInWord() {
+        // 全 1 的单个字：每个 [lo, hi] 的计数都等于区间长度，间接覆盖 rangeMask 的所有组合
+        byte[] ones = new byte[8];
+        Arrays.fill(ones, (byte) 0xFF);
+        for (int lo = 0; lo < 64; lo++) {
+            for (int hi = lo; hi < 64; hi++) {
+                assertThat(BitmapKernels.countRange(ones, lo, hi)).as("lo=%d, hi=%d", lo, hi).isEqualTo(hi - lo + 1);
+            }
+        }
+
+        // 单个位：只有覆盖该位的区间计数为 1
+        for (int bit = 0; bit < 64; bit++) {
+            byte[] single = new byte[8];
+            single[bit >>> 3] = (byte) (0x80 >>> (bit & 7));
+            for (int lo = 0; lo < 64; lo++) {
+                for (int hi = lo; hi < 64; hi++) {
+                    int expected = lo <= bit && bit <= hi ? 1 : 0;
+                    assertThat(BitmapKernels.countRange(single, lo, hi))
+                            .as("bit=%d, lo=%d, hi=%d", bit, lo, hi).isEqualTo(expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    void trailingRunMatchesReference() {
+        forEachBitmap((bitmap, random) -> {
+            for (int end = -2; end < bitmap.length * 8 + 16; end++) {
+                assertThat(BitmapKernels.trailingRun(bitmap, end))
+                        .as("end=%d, bitmap=%s", end, Arrays.toString(bitmap))
+                        .isEqualTo(naiveTrailingRun(bitmap, end));
+            }
+        });
+    }
+
+    @Test
+    void longestRunMatchesReference() {
+        forEachBitmap((bitmap, random) -> {
+            int bits = bitmap.length * 8;
+            for (int i = 0; i < RANGES_PER_ARRAY; i++) {
+                int from = random.nextInt(bits + 16) - 8;
+                int to = random.nextInt(bits + 16) - 8;
+                assertThat(BitmapKernels.longestRun(bitmap, from, to))
+                        .as("from=%d, to=%d, bitmap=%s", from, to, Arrays.toString(bitmap))
+                        .isEqualTo(naiveLongestRun(bitmap, from, to));
+            }
+            assertThat(BitmapKernels.longestRun(bitmap, 0, bits - 1))
+                    .as("bitmap=%s", Arrays.toString(bitmap))
+                    .isEqualTo(naiveLongestRun(bitmap, 0, bits - 1));
+        });
+    }
+
+    @Test
+    void countAndNotMatchesReference() {
+        Random other = new Random(SEED + 1);
+        forEachBitmap((bitmap, random) -> {
+            // 被比较的位图长度随机（可能更短或更长），部分与原位图相同
+            byte[] compared = new byte[other.nextInt(MAX_BYTES + 1)];
+            other.nextBytes(compared);
+            System.arraycopy(bitmap, 0, compared, 0, Math.min(bitmap.length, compared.length) / 2);
+
+            int bits = Math.max(bitmap.length, compared.length) * 8;
+            for (int i = 0; i < RANGES_PER_ARRAY; i++) {
+                int from = random.nextInt(bits + 16) - 8;
+                int to = random.nextInt(bits + 16) - 8;
+                assertThat(BitmapKernels.countAndNot(bitmap, compared, from, to))
+                        .as("from=%d, to=%d, a=%s, b=%s", from, to, Arrays.toString(bitmap), Arrays.toString(compared))
+                        .isEqualTo(naiveCountAndNot(bitmap, compared, from, to));
+                assertThat(BitmapKernels.countAndNot(compared, bitmap, from, to))
+                        .as("from=%d, to=%d, a=%s, b=%s", from, to, Arrays.toString(compared), Arrays.toString(bitmap))
+                        .isEqualTo(naiveCountAndNot(compared, bitmap, from, to));
+            }
+            assertThat(BitmapKernels.countAndNot(bitmap, null, 0, bits))
+                    .isEqualTo(naiveCount(bitmap, 0, bits));
+            assertThat(BitmapKernels.countAndNot(bitmap, bitmap, 0, bits)).isZero();
+        });
+    }
+
+    @Test
+    void emptyAndNullBitmaps() {
+        for (byte[] bitmap : new byte[][]{null, new byte[0]}) {
+            assertThat(BitmapKernels.get(bitmap, 0)).isFalse();
+            assertThat(BitmapKernels.count(bitmap)).isZero();
+            assertThat(BitmapKernels.countRange(bitmap, 0, 100)).isZero();
+            assertThat(BitmapKernels.trailingRun(bitmap, 10)).isZero();
+            assertThat(BitmapKernels.longestRun(bitmap, 0, 100)).isZero();
+            assertThat(BitmapKernels.countAndNot(bitmap, new byte[]{-1}, 0, 100)).isZero();
+        }
+    }
+
+    /**
+     * 对每种长度、每种置位概率生成随机位图并执行校验
+     */
+    private static void forEachBitmap(BitmapCheck check) {
+        Random random = new Random(SEED);
+        for (int length = 0; length <= MAX_BYTES; length++) {
+            for (double density : DENSITIES) {
+                byte[] bitmap = new byte[length];
+                for (int bit = 0; bit < length * 8; bit++) {
+                    if (random.nextDouble() < density) {
+                        bitmap[bit >>> 3] |= (byte) (0x80 >>> (bit & 7));
+                    }
+                }
+                check.accept(bitmap, random);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface BitmapCheck {
+        void accept(byte[] bitmap, Random random);
+    }
+
+    // ==================== 逐位参考实现 ====================
+
+    private static boolean naiveGet(byte[] bitmap, int offset) {
+        if (offset < 0 || offset >= bitmap.length * 8) {
+            return false;
+        }
+        return ((bitmap[offset / 8] >> (7 - offset % 8)) & 1) == 1;
+    }
+
+    private static int naiveCount(byte[] bitmap, int from, int to) {
+        int count = 0;
+        for (int offset = from; offset <= to; offset++) {
+            if (naiveGet(bitmap, offset)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int naiveCountAndNot(byte[] a, byte[] b, int from, int to) {
+        int count = 0;
+        for (int offset = from; offset <= to; offset++) {
+            if (naiveGet(a, offset) && !naiveGet(b, offset)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int naiveTrailingRun(byte[] bitmap, int end) {
+        int run = 0;
+        for (int offset = end; offset >= 0 && naiveGet(bitmap, offset); offset--) {
+            run++;
+        }
+        return run;
+    }
+
+    private static int naiveLongestRun(byte[] bitmap, int from, int to) {
+        int max = 0;
+        int run = 0;
+        for (int offset = from; offset <= to; offset++) {
+            run = naiveGet(bitmap, offset) ? run + 1 : 0;
+            max = Math.max(max, run);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,110 @@
+package com.dingdong.common.util;
+
+import com.dingdong.common.constant.RepeatType;
+import com.dingdong.entity.checkin.CheckInTask;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TaskScheduleUtil.countOccurrences 按星期算术计算与逐天 isActiveOnDate 的对照
+ * 覆盖所有重复类型，以及跨月、跨年、闰年（2024、2000）和非闰世纪年（2100）的窗口
+ */
+class TaskScheduleUtilTest {
+
+    /**
+     * 每个区间内枚举所有 [start, end] 组合
+     */
+    private static final LocalDate[][] RANGES = {
+            {LocalDate.of(2023, 12, 1), LocalDate.of(2024, 3, 31)},
+            {LocalDate.of(2026, 9, 20), LocalDate.of(2027, 1, 15)},
+            {LocalDate.of(1999, 12, 20), LocalDate.of(2000, 3, 10)},
+            {LocalDate.of(2100, 2, 1), LocalDate.of(2100, 3, 15)},
+    };
+
+    @Test
+    void repeatingTasksMatchDailyLoop() {
+        for (RepeatType repeatType : new RepeatType[]{RepeatType.DAILY, RepeatType.WEEKDAYS, RepeatType.WEEKENDS}) {
+            CheckInTask task = task(repeatType, LocalDate.of(2020, 1, 1));
+            for (LocalDate[] range : RANGES) {
+                assertAllWindows(task, range[0], range[1]);
+            }
+        }
+    }
+
+    @Test
+    void onceTaskMatchesDailyLoop() {
+        LocalDate[] remindDates = {
+                LocalDate.of(2024, 2, 29), LocalDate.of(2023, 12, 31), LocalDate.of(2024, 1, 1),
+                LocalDate.of(2024, 3, 1), LocalDate.of(2000, 2, 29), LocalDate.of(2100, 2, 28),
+                LocalDate.of(2100, 3, 1), LocalDate.of(2026, 12, 31), LocalDate.of(2010, 6, 1),
+        };
+        for (LocalDate remindDate : remindDates) {
+            CheckInTask task = task(RepeatType.ONCE, remindDate);
+            for (LocalDate[] range : RANGES) {
+                assertAllWindows(task, range[0], range[1]);
+            }
+        }
+    }
+
+    @Test
+    void longWindowsMatchDailyLoop() {
+        // 多年窗口（包含多个闰年）
+        for (RepeatType repeatType : RepeatType.values()) {
+            CheckInTask task = task(repeatType, LocalDate.of(2024, 2, 29));
+            LocalDate start = LocalDate.of(1999, 12, 27);
+            for (int i = 0; i < 7; i++) {
+                LocalDate end = LocalDate.of(2104, 3, 1).plusDays(i);
+                assertThat(TaskScheduleUtil.countOccurrences(task, start.plusDays(i), end))
+                        .as("type=%s, start=%s, end=%s", repeatType, start.plusDays(i), end)
+                        .isEqualTo(naiveCount(task, start.plusDays(i), end));
+            }
+        }
+    }
+
+    @Test
+    void emptyOrUnscheduledWindowIsZero() {
+        CheckInTask task = task(RepeatType.DAILY, LocalDate.of(2024, 1, 1));
+        assertThat(TaskScheduleUtil.countOccurrences(task, LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 1)))
+                .isZero();
+
+        task.setRemindTime(null);
+        assertThat(TaskScheduleUtil.countOccurrences(task, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)))
+                .isZero();
+    }
+
+    private static void assertAllWindows(CheckInTask task, LocalDate first, LocalDate last) {
+        for (LocalDate start = first; !start.isAfter(last); start = start.plusDays(1)) {
+            int expected = 0;
+            for (LocalDate end = start; !end.isAfter(last); end = end.plusDays(1)) {
+                if (TaskScheduleUtil.isActiveOnDate(task, end)) {
+                    expected++;
+                }
+                assertThat(TaskScheduleUtil.countOccurrences(task, start, end))
+                        .as("type=%s, remind=%s, start=%s, end=%s",
+                                RepeatType.fromCode(task.getRepeatType()), task.getRemindTime(), start, end)
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    private static int naiveCount(CheckInTask task, LocalDate start, LocalDate end) {
+        int count = 0;
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            if (TaskScheduleUtil.isActiveOnDate(task, date)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static CheckInTask task(RepeatType repeatType, LocalDate remindDate) {
+        CheckInTask task = new CheckInTask();
+        task.setRepeatType(repeatType.getCode());
+        task.setRemindTime(remindDate.atTime(LocalTime.of(8, 0)));
+        return task;
+    }
+}
@@ -0,0 +1,361 @@
+package com.dingdong.mapper.checkin;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.dingdong.common.constant.RepeatType;
+import com.dingdong.common.util.RedisUtil;
+import com.dingdong.config.CheckInBitmapProperties;
+import com.dingdong.entity.checkin.CheckInTask;
+import com.dingdong.service.checkin.CheckInBitmapReconcileService;
+import com.dingdong.service.checkin.CheckInBitmapService;
+import com.dingdong.service.checkin.CheckInBitmapWriter;
+import com.dingdong.service.checkin.CheckInCompletionService;
+import com.dingdong.service.checkin.CheckInDailyService;
+import com.dingdong.service.checkin.impl.CheckInLogServiceImpl;
+import com.dingdong.service.cluster.LeaderLease;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * check_in_log 热点查询的索引核对
+ * 在嵌入式 MariaDB 中执行 sql/init.sql 与 sql/08_check_in_log_indexes.sql，写入测试数据并 ANALYZE 后，
+ * 调用实际的服务方法和 Mapper（真实的 MyBatis-Plus 条件构造器），由拦截器捕获发送的 SQL 和参数，
+ * 再逐条 EXPLAIN，确认走索引（key 不为空且 type 不为 ALL），按用户、按任务的查询走对应的联合索引
+ *
+ * 数据库无法启动时测试失败，不会跳过
+ */
+class CheckInLogIndexTest {
+
+    /**
+     * SQL 脚本目录（测试在 server 目录下执行）
+     */
+    private static final Path SQL_DIR = Path.of("..", "sql");
+
+    private static final String DATABASE = "dingdong";
+
+    private static final int USER_COUNT = 200;
+
+    private static final int TASKS_PER_USER = 3;
+
+    private static final int DAYS = 90;
+
+    /**
+     * 测试数据的第一天（截至昨天共 DAYS 天，对账任务按当前日期计算范围）
+     */
+    private static final LocalDate START_DATE = LocalDate.now().minusDays(DAYS);
+
+    /**
+     * 查询使用的日期（不是今天和昨天，每日完成记录服务直接查询数据库）
+     */
+    private static final LocalDate QUERY_DATE = START_DATE.plusDays(DAYS / 2);
+
+    private static final long USER_ID = 1L;
+
+    private static final StatementCapture CAPTURE = new StatementCapture();
+
+    private static DB db;
+
+    private static PooledDataSource dataSource;
+
+    private static SqlSession sqlSession;
+
+    private static CheckInLogMapper checkInLogMapper;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        db.createDB(DATABASE);
+
+        dataSource = new PooledDataSource("org.mariadb.jdbc.Driver", config.getURL(DATABASE), "root", "");
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new FileSystemResource(SQL_DIR.resolve("init.sql")));
+            ScriptUtils.executeSqlScript(connection,
+                    new FileSystemResource(SQL_DIR.resolve("08_check_in_log_indexes.sql")));
+            insertLogs(connection);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE TABLE check_in_log");
+            }
+        }
+
+        // 与 MybatisPlusConfig、application.yml 一致的 MyBatis-Plus 配置
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.setEnvironment(new Environment("index-test", new JdbcTransactionFactory(), dataSource));
+        MybatisPlusInterceptor mybatisPlusInterceptor = new MybatisPlusInterceptor();
+        mybatisPlusInterceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
+        configuration.addInterceptor(mybatisPlusInterceptor);
+        configuration.addInterceptor(CAPTURE);
+        configuration.addMapper(CheckInLogMapper.class);
+        // 注册任务表的实体信息，供服务中的 Lambda 条件解析列名（任务表查询由 Mock 代替）
+        configuration.addMapper(CheckInTaskMapper.class);
+        sqlSession = new MybatisSqlSessionFactoryBuilder().build(configuration).openSession(true);
+        checkInLogMapper = sqlSession.getMapper(CheckInLogMapper.class);
+    }
+
+    /**
+     * 每个用户 3 个任务，每个任务每天一条打卡记录，任务ID = 用户ID * 10 + 序号
+     */
+    private static void insertLogs(Connection connection) throws Exception {
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO check_in_log (id, user_id, task_id, check_time, status, create_time, deleted) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, b'0')")) {
+            long id = 0;
+            for (int day = 0; day < DAYS; day++) {
+                Timestamp checkTime = Timestamp.valueOf(START_DATE.plusDays(day).atTime(8, 0));
+                for (long userId = 1; userId <= USER_COUNT; userId++) {
+                    for (int task = 0; task < TASKS_PER_USER; task++) {
+                        statement.setLong(1, ++id);
+                        statement.setLong(2, userId);
+                        statement.setLong(3, userId * 10 + task);
+                        statement.setTimestamp(4, checkTime);
+                        statement.setInt(5, id % 10 == 0 ? 2 : 1);
+                        statement.setTimestamp(6, checkTime);
+                        statement.addBatch();
+                    }
+                }
+                statement.executeBatch();
+            }
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (sqlSession != null) {
+            sqlSession.close();
+        }
+        if (dataSource != null) {
+            dataSource.forceCloseAll();
+        }
+        if (db != null) {
+            db.stop();
+        }
+    }
+
+    @Test
+    void completionWindowUsesUserCheckTimeIndex() throws Exception {
+        // CheckInCompletionService.load：按用户加载窗口内的打卡记录（任务表查询不在本测试范围内）
+        CheckInTaskMapper checkInTaskMapper = mock(CheckInTaskMapper.class);
+        when(checkInTaskMapper.selectList(any())).thenReturn(List.of(task(USER_ID * 10)));
+        CheckInCompletionService service = new CheckInCompletionService(checkInTaskMapper, checkInLogMapper);
+
+        List<Plan> plans = explain(() -> service.load(USER_ID, QUERY_DATE.minusDays(30), QUERY_DATE));
+
+        assertThat(plans).hasSize(1);
+        assertThat(plans).allSatisfy(plan -> assertThat(plan.key).as(plan.sql).isEqualTo("idx_user_check_time"));
+    }
+
+    @Test
+    void dailyCompletionQueryUsesTaskCheckTimeIndex() throws Exception {
+        // CheckInDailyService.getCompletedLogs：缓存范围外的日期直接按 IN (taskIds) 查询
+        CheckInDailyService service = dailyService();
+
+        List<Plan> plans = explain(() -> service.getCompletedLogs(List.of(10L, 11L, 12L, 20L), QUERY_DATE));
+
+        assertThat(plans).hasSize(1);
+        assertThat(plans).allSatisfy(plan -> assertThat(plan.key).as(plan.sql).isEqualTo("idx_task_check_time"));
+    }
+
+    @Test
+    void dailyRebuildScanUsesCheckTimeIndex() throws Exception {
+        // CheckInDailyService.rebuild：按天 keyset 扫描
+        CheckInDailyService service = dailyService();
+
+        List<Plan> plans = explain(() -> service.rebuild(QUERY_DATE));
+
+        assertThat(plans).isNotEmpty();
+        assertThat(plans).allSatisfy(plan -> assertThat(plan.key).as(plan.sql).isEqualTo("idx_check_time"));
+    }
+
+    @Test
+    void userLogPageUsesUserCheckTimeIndex() throws Exception {
+        // CheckInLogServiceImpl.getLogsByUserId：分页查询及其 COUNT
+        CheckInLogServiceImpl service = mock(CheckInLogServiceImpl.class, CALLS_REAL_METHODS);
+        ReflectionTestUtils.setField(service, "baseMapper", checkInLogMapper);
+
+        List<Plan> plans = explain(() -> service.getLogsByUserId(new Page<>(1, 20), USER_ID));
+
+        assertThat(plans).hasSize(2);
+        assertThat(plans).allSatisfy(plan -> assertThat(plan.key).as(plan.sql).isEqualTo("idx_user_check_time"));
+    }
+
+    @Test
+    void dailyStatsAggregationUsesIndex() throws Exception {
+        // CheckInLogMapper.countByUser（UserDailyStatsServiceImpl 每日汇总），按 check_time 范围或按用户覆盖索引均可
+        List<Plan> plans = explain(() -> checkInLogMapper.countByUser(QUERY_DATE, QUERY_DATE.atStartOfDay(),
+                QUERY_DATE.plusDays(1).atStartOfDay()));
+
+        assertThat(plans).hasSize(1);
+        assertThat(plans).allSatisfy(CheckInLogIndexTest::assertUsesIndex);
+    }
+
+    @Test
+    void bitmapReconcileQueriesUseIndexes() throws Exception {
+        // CheckInBitmapReconcileService.reconcile：按用户分批加载，Redis 由 Mock 代替
+        RedisUtil redisUtil = mock(RedisUtil.class);
+        when(redisUtil.mGet(anyList())).thenAnswer(invocation ->
+                Collections.nCopies(invocation.<List<?>>getArgument(0).size(), null));
+        CheckInBitmapProperties properties = new CheckInBitmapProperties();
+        properties.setReconcileBatchSize(50);
+        properties.setReconcilePauseMillis(0);
+        CheckInBitmapReconcileService service = new CheckInBitmapReconcileService(
+                new CheckInBitmapService(redisUtil, mock(CheckInBitmapWriter.class), properties), properties,
+                checkInLogMapper, redisUtil, new SimpleMeterRegistry());
+        LeaderLease lease = new LeaderLease("index-test", 1L, "index-test:fencing", Long.MAX_VALUE);
+
+        List<Plan> plans = explain(() -> service.reconcile(LocalDate.now().minusDays(1).getYear(), lease));
+
+        // 用户分页、用户打卡记录、任务打卡记录
+        assertThat(plans).hasSize(3);
+        assertThat(plans).allSatisfy(CheckInLogIndexTest::assertUsesIndex);
+        assertThat(plans).filteredOn(plan -> plan.sql.contains("user_id IN"))
+                .singleElement().satisfies(plan -> assertThat(plan.key).isEqualTo("idx_user_check_time"));
+        assertThat(plans).filteredOn(plan -> plan.sql.contains("task_id IN"))
+                .singleElement().satisfies(plan -> assertThat(plan.key).isEqualTo("idx_task_check_time"));
+    }
+
+    private static void assertUsesIndex(Plan plan) {
+        assertThat(plan.key).as(plan.sql).isNotNull();
+        assertThat(plan.type).as(plan.sql).isNotEqualTo("ALL");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CheckInDailyService dailyService() {
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+        return new CheckInDailyService(stringRedisTemplate, checkInLogMapper, mock(RedisUtil.class), Runnable::run);
+    }
+
+    private static CheckInTask task(long taskId) {
+        CheckInTask task = new CheckInTask();
+        task.setId(taskId);
+        task.setUserId(USER_ID);
+        task.setRepeatType(RepeatType.DAILY.getCode());
+        task.setRemindTime(START_DATE.atTime(8, 0));
+        task.setCreateTime(START_DATE.atStartOfDay());
+        return task;
+    }
+
+    /**
+     * 执行调用，对其中发往 check_in_log 的每条不同 SQL 执行 EXPLAIN（使用捕获的参数）
+     */
+    private static List<Plan> explain(Runnable call) throws Exception {
+        CAPTURE.clear();
+        call.run();
+
+        Map<String, StatementHandler> statements = new LinkedHashMap<>();
+        for (StatementHandler handler : CAPTURE.handlers) {
+            String sql = handler.getBoundSql().getSql().replaceAll("\\s+", " ").trim();
+            if (sql.contains("check_in_log")) {
+                statements.putIfAbsent(sql, handler);
+            }
+        }
+
+        List<Plan> plans = new ArrayList<>(statements.size());
+        try (Connection connection = dataSource.getConnection()) {
+            for (Map.Entry<String, StatementHandler> entry : statements.entrySet()) {
+                try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + entry.getKey())) {
+                    entry.getValue().getParameterHandler().setParameters(statement);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        assertThat(resultSet.next()).as(entry.getKey()).isTrue();
+                        plans.add(new Plan(entry.getKey(), resultSet.getString("key"), resultSet.getString("type")));
+                    }
+                }
+            }
+        }
+        return plans;
+    }
+
+    /**
+     * 一条 SQL 的查询计划（check_in_log 所在行）
+     */
+    private static class Plan {
+
+        private final String sql;
+
+        private final String key;
+
+        private final String type;
+
+        Plan(String sql, String key, String type) {
+            this.sql = sql;
+            this.key = key;
+            this.type = type;
+        }
+    }
+
+    /**
+     * 捕获 MyBatis 实际发送的语句（分页插件改写后的 SQL 及参数）
+     */
+    @Intercepts(@Signature(type = StatementHandler.class, method = "prepare",
+            args = {Connection.class, Integer.class}))
+    private static class StatementCapture implements Interceptor {
+
+        private final List<StatementHandler> handlers = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            handlers.add((StatementHandler) invocation.getTarget());
+            return invocation.proceed();
+        }
+
+        void clear() {
+            handlers.clear();
+        }
+    }
+}
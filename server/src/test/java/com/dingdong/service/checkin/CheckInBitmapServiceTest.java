@@ -0,0 +1,218 @@
+package com.dingdong.service.checkin;
+
+import com.dingdong.common.util.RedisUtil;
+import com.dingdong.config.CheckInBitmapProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 年度位图区间统计（countCheckInsInRange 的查询计划）与逐位参考实现的对照
+ * 三个分支: 整 Key BITCOUNT、不超过 8 字节的 GETRANGE、管道 BITCOUNT + 首尾字节 GETRANGE
+ *
+ * RedisUtil 由内存中的字节数组模拟，按 Redis 语义处理超出 Key 长度的字节范围
+ */
+class CheckInBitmapServiceTest {
+
+    private static final long USER_ID = 1L;
+
+    private static final int YEAR = 2026;
+
+    private static final int LAST_DAY = LocalDate.of(YEAR, 12, 31).getDayOfYear() - 1;
+
+    private static final long SEED = 20261018L;
+
+    private RedisUtil redisUtil;
+
+    private CheckInBitmapService checkInBitmapService;
+
+    /**
+     * 模拟的年度位图（Redis 字符串值），长度只到最后一个置位的字节
+     */
+    private byte[] bitmap = new byte[0];
+
+    @BeforeEach
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        checkInBitmapService = new CheckInBitmapService(redisUtil, mock(CheckInBitmapWriter.class),
+                new CheckInBitmapProperties());
+
+        when(redisUtil.bitCount(anyString())).thenAnswer(invocation -> (long) countBytes(0, Long.MAX_VALUE));
+        when(redisUtil.getRange(anyString(), anyLong(), anyLong()))
+                .thenAnswer(invocation -> getRange(invocation.getArgument(1), invocation.getArgument(2)));
+        when(redisUtil.executePipelined(any())).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            List<Object> results = new ArrayList<>();
+            RedisConnection connection = mock(RedisConnection.class);
+            RedisStringCommands commands = mock(RedisStringCommands.class);
+            when(connection.stringCommands()).thenReturn(commands);
+            when(commands.bitCount(any(byte[].class), anyLong(), anyLong())).thenAnswer(call -> {
+                results.add((long) countBytes(call.getArgument(1), call.getArgument(2)));
+                return null;
+            });
+            when(commands.getRange(any(byte[].class), anyLong(), anyLong())).thenAnswer(call -> {
+                results.add(getRange(call.getArgument(1), call.getArgument(2)));
+                return null;
+            });
+            callback.doInRedis(connection);
+            return results;
+        });
+    }
+
+    @Test
+    void wholeYearUsesSingleBitCount() {
+        Random random = new Random(SEED);
+        for (int length = 0; length <= 46; length++) {
+            fillRandom(random, length);
+            clearInvocations(redisUtil);
+
+            assertThat(count(0, LAST_DAY)).as("length=%d", length).isEqualTo(naiveCount(0, LAST_DAY));
+            verify(redisUtil).bitCount(checkInBitmapService.getUserKey(USER_ID, YEAR));
+            verify(redisUtil, never()).getRange(anyString(), anyLong(), anyLong());
+            verify(redisUtil, never()).executePipelined(any());
+        }
+    }
+
+    @Test
+    void smallWindowUsesGetRange() {
+        Random random = new Random(SEED);
+        for (int length = 0; length <= 46; length++) {
+            fillRandom(random, length);
+            // 起止字节跨度不超过 8 字节，包括 [0, 63]、不对齐的起止和超出 Key 长度的窗口
+            for (int startDay = 0; startDay <= LAST_DAY; startDay += 5) {
+                int maxEnd = Math.min(((startDay >>> 3) + 8) * 8 - 1, LAST_DAY);
+                for (int endDay = startDay; endDay <= maxEnd; endDay += 3) {
+                    if (startDay == 0 && endDay == LAST_DAY) {
+                        continue;
+                    }
+                    clearInvocations(redisUtil);
+
+                    assertThat(count(startDay, endDay))
+                            .as("length=%d, startDay=%d, endDay=%d", length, startDay, endDay)
+                            .isEqualTo(naiveCount(startDay, endDay));
+                    verify(redisUtil).getRange(anyString(), anyLong(), anyLong());
+                    verify(redisUtil, never()).bitCount(anyString());
+                    verify(redisUtil, never()).executePipelined(any());
+                }
+            }
+        }
+    }
+
+    @Test
+    void largeWindowUsesPipelinedBitCountAndEdgeBytes() {
+        Random random = new Random(SEED);
+        for (int length = 0; length <= 46; length++) {
+            fillRandom(random, length);
+            for (int i = 0; i < 300; i++) {
+                int startDay = random.nextInt(LAST_DAY + 1);
+                int endDay = random.nextInt(LAST_DAY + 1);
+                if (startDay > endDay) {
+                    int swap = startDay;
+                    startDay = endDay;
+                    endDay = swap;
+                }
+                if ((endDay >>> 3) - (startDay >>> 3) + 1 <= 8 || (startDay == 0 && endDay == LAST_DAY)) {
+                    continue;
+                }
+                assertLargeWindow(startDay, endDay);
+            }
+
+            // 首尾字节对齐 / 不对齐的组合
+            assertLargeWindow(0, 71);
+            assertLargeWindow(8, 79);
+            assertLargeWindow(3, 79);
+            assertLargeWindow(8, 76);
+            assertLargeWindow(3, 76);
+            assertLargeWindow(1, LAST_DAY);
+            assertLargeWindow(0, LAST_DAY - 1);
+        }
+    }
+
+    @Test
+    void reversedWindowIsZero() {
+        fillRandom(new Random(SEED), 46);
+        clearInvocations(redisUtil);
+
+        assertThat(count(10, 9)).isZero();
+        verify(redisUtil, never()).bitCount(anyString());
+        verify(redisUtil, never()).getRange(anyString(), anyLong(), anyLong());
+        verify(redisUtil, never()).executePipelined(any());
+    }
+
+    private void assertLargeWindow(int startDay, int endDay) {
+        clearInvocations(redisUtil);
+        assertThat(count(startDay, endDay))
+                .as("startDay=%d, endDay=%d, bitmap=%s", startDay, endDay, Arrays.toString(bitmap))
+                .isEqualTo(naiveCount(startDay, endDay));
+        verify(redisUtil).executePipelined(any());
+        verify(redisUtil, never()).bitCount(anyString());
+        verify(redisUtil, never()).getRange(anyString(), anyLong(), anyLong());
+    }
+
+    private int count(int startDay, int endDay) {
+        LocalDate yearStart = LocalDate.of(YEAR, 1, 1);
+        return checkInBitmapService.countCheckInsInRange(USER_ID,
+                yearStart.plusDays(startDay), yearStart.plusDays(endDay));
+    }
+
+    private void fillRandom(Random random, int length) {
+        bitmap = new byte[length];
+        random.nextBytes(bitmap);
+        // 一年之后的位在真实数据中不会出现
+        for (int offset = LAST_DAY + 1; offset < length * 8; offset++) {
+            bitmap[offset >>> 3] &= (byte) ~(0x80 >>> (offset & 7));
+        }
+    }
+
+    // ==================== Redis 语义与逐位参考实现 ====================
+
+    /**
+     * GETRANGE：闭区间，截断到值的长度，超出时返回空数组
+     */
+    private byte[] getRange(long start, long end) {
+        long to = Math.min(end, bitmap.length - 1L);
+        if (start > to) {
+            return new byte[0];
+        }
+        return Arrays.copyOfRange(bitmap, (int) start, (int) to + 1);
+    }
+
+    /**
+     * BITCOUNT key start end：按字节闭区间统计，截断到值的长度
+     */
+    private int countBytes(long start, long end) {
+        int count = 0;
+        for (long i = start; i <= Math.min(end, bitmap.length - 1L); i++) {
+            count += Integer.bitCount(bitmap[(int) i] & 0xFF);
+        }
+        return count;
+    }
+
+    private int naiveCount(int startDay, int endDay) {
+        int count = 0;
+        for (int day = startDay; day <= endDay; day++) {
+            if (day / 8 < bitmap.length && ((bitmap[day / 8] >> (7 - day % 8)) & 1) == 1) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,107 @@
+package com.dingdong.service.checkin;
+
+import com.dingdong.common.constant.RepeatType;
+import com.dingdong.entity.checkin.CheckInTask;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 完成情况窗口对停用任务的统计: 停用前的应打卡、已打卡保留，停用后的不计
+ */
+class CheckInCompletionServiceTest {
+
+    private static final LocalDate WINDOW_START = LocalDate.of(2026, 10, 1);
+
+    private static final LocalDate WINDOW_END = LocalDate.of(2026, 10, 18);
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 20, 0);
+
+    @Test
+    void disabledAfterDeadlineCountsDisableDay() {
+        // 08:00 提醒（08:30 截止），10-10 12:00 停用：统计 10-01 至 10-10
+        CheckInTask task = dailyTask(1L, LocalTime.of(8, 0), LocalDateTime.of(2026, 10, 10, 12, 0));
+        CheckInCompletionService.CompletionWindow window = window(task, days(1, 2, 3, 4, 5, 15));
+
+        assertThat(window.expected(WINDOW_START, WINDOW_END)).isEqualTo(10);
+        assertThat(window.completed(WINDOW_START, WINDOW_END)).isEqualTo(5);
+        assertThat(window.missed(WINDOW_START, WINDOW_END, NOW)).isEqualTo(5);
+    }
+
+    @Test
+    void disabledBeforeDeadlineExcludesDisableDay() {
+        // 20:00 提醒（20:30 截止），10-10 12:00 停用：统计 10-01 至 10-09，停用当天的打卡不计
+        CheckInTask task = dailyTask(1L, LocalTime.of(20, 0), LocalDateTime.of(2026, 10, 10, 12, 0));
+        CheckInCompletionService.CompletionWindow window = window(task, days(1, 9, 10));
+
+        assertThat(window.expected(WINDOW_START, WINDOW_END)).isEqualTo(9);
+        assertThat(window.completed(WINDOW_START, WINDOW_END)).isEqualTo(2);
+        assertThat(window.missed(WINDOW_START, WINDOW_END, NOW)).isEqualTo(7);
+    }
+
+    @Test
+    void subRangesAfterDisableAreEmpty() {
+        CheckInTask task = dailyTask(1L, LocalTime.of(8, 0), LocalDateTime.of(2026, 10, 10, 12, 0));
+        CheckInCompletionService.CompletionWindow window = window(task, days(15, 16));
+        LocalDate from = LocalDate.of(2026, 10, 11);
+
+        assertThat(window.expected(from, WINDOW_END)).isZero();
+        assertThat(window.completed(from, WINDOW_END)).isZero();
+        assertThat(window.missed(from, WINDOW_END, NOW)).isZero();
+    }
+
+    @Test
+    void disabledTodayBeforeDeadlineIsNotPending() {
+        // 今天 20:00 提醒，今天 12:00 停用：今天不计入应打卡，也不算待完成
+        CheckInTask task = dailyTask(1L, LocalTime.of(20, 0), LocalDateTime.of(2026, 10, 18, 12, 0));
+        CheckInCompletionService.CompletionWindow window = window(task, new BitSet());
+        LocalDateTime beforeDeadline = LocalDateTime.of(2026, 10, 18, 13, 0);
+
+        assertThat(window.expected(WINDOW_END, WINDOW_END)).isZero();
+        assertThat(window.missed(WINDOW_END, WINDOW_END, beforeDeadline)).isZero();
+        assertThat(window.missed(WINDOW_START, WINDOW_END, beforeDeadline)).isEqualTo(17);
+    }
+
+    @Test
+    void enabledTaskCountsWholeWindow() {
+        CheckInTask task = dailyTask(1L, LocalTime.of(8, 0), null);
+        CheckInCompletionService.CompletionWindow window = window(task, days(1, 2, 18));
+
+        assertThat(window.expected(WINDOW_START, WINDOW_END)).isEqualTo(18);
+        assertThat(window.completed(WINDOW_START, WINDOW_END)).isEqualTo(3);
+        assertThat(window.missed(WINDOW_START, WINDOW_END, NOW)).isEqualTo(15);
+    }
+
+    private static CheckInCompletionService.CompletionWindow window(CheckInTask task, BitSet completions) {
+        return new CheckInCompletionService.CompletionWindow(WINDOW_START, List.of(task),
+                Map.of(task.getId(), completions));
+    }
+
+    /**
+     * 10 月的指定日期对应的窗口位集合
+     */
+    private static BitSet days(int... daysOfMonth) {
+        BitSet days = new BitSet();
+        for (int dayOfMonth : daysOfMonth) {
+            days.set(dayOfMonth - WINDOW_START.getDayOfMonth());
+        }
+        return days;
+    }
+
+    private static CheckInTask dailyTask(Long id, LocalTime remindTime, LocalDateTime disableTime) {
+        CheckInTask task = new CheckInTask();
+        task.setId(id);
+        task.setRepeatType(RepeatType.DAILY.getCode());
+        task.setRemindTime(LocalDate.of(2026, 9, 1).atTime(remindTime));
+        task.setCreateTime(LocalDateTime.of(2026, 9, 1, 0, 0));
+        task.setDisableTime(disableTime);
+        return task;
+    }
+}
@@ -0,0 +1,15 @@
+-- ==========================================================
+-- 叮咚任务表：预计算下一次触发时间
+-- 提醒调度改为按 next_remind_at / next_missed_at 范围查询，不再每分钟全表扫描启用任务
+-- 存量数据由应用启动后的 TaskScheduleBackfillTask 自动回填
+-- ==========================================================
+
+-- 1. 添加下一次触发时间字段
+ALTER TABLE `check_in_task`
+ADD COLUMN `next_remind_at` datetime(0) DEFAULT NULL COMMENT '下一次叮咚提醒触发时间（目标时间前30分钟）' AFTER `status`,
+ADD COLUMN `next_missed_at` datetime(0) DEFAULT NULL COMMENT '下一次漏打卡检查触发时间（目标时间后30分钟）' AFTER `next_remind_at`;
+
+-- 2. 添加状态 + 触发时间联合索引（支撑 status = 1 AND next_xxx_at <= ? 范围查询）
+ALTER TABLE `check_in_task`
+ADD INDEX `idx_status_next_remind`(`status`, `next_remind_at`) USING BTREE,
+ADD INDEX `idx_status_next_missed`(`status`, `next_missed_at`) USING BTREE;
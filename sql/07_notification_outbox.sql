@@ -0,0 +1,37 @@
+/*
+ 通知发件箱表
+ 待发送的订阅消息先落库，由投递任务批量领取（FOR UPDATE SKIP LOCKED，需 MySQL 8.0+）发送，
+ 临时错误按指数退避重试，永久错误（如 43101 用户未订阅）单独标记
+ Date: 18/10/2026
+*/
+
+SET NAMES utf8mb4;
+SET FOREIGN_KEY_CHECKS = 0;
+
+-- ----------------------------
+-- Table structure for notification_outbox
+-- ----------------------------
+DROP TABLE IF EXISTS `notification_outbox`;
+CREATE TABLE `notification_outbox` (
+  `id` bigint(20) NOT NULL COMMENT '主键ID',
+  `task_id` bigint(20) NOT NULL COMMENT '任务ID',
+  `notify_date` date NOT NULL COMMENT '通知日期',
+  `notify_type` tinyint(4) NOT NULL COMMENT '通知类型: 1-叮咚提醒, 2-打卡完成, 3-漏打卡, 4-补打卡',
+  `user_id` bigint(20) NOT NULL COMMENT '接收者用户ID',
+  `to_openid` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '接收者openid',
+  `template_id` varchar(128) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '订阅消息模板ID',
+  `page` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci DEFAULT NULL COMMENT '跳转页面',
+  `data` varchar(2048) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '模板数据(JSON)',
+  `status` tinyint(4) NOT NULL DEFAULT 0 COMMENT '状态: 0-待发送, 1-发送中, 2-已发送, 3-永久失败, 4-重试耗尽',
+  `attempts` int(11) NOT NULL DEFAULT 0 COMMENT '已尝试发送次数',
+  `next_attempt_at` datetime(0) NOT NULL COMMENT '下一次可发送时间（发送中为租约到期时间）',
+  `last_err_code` int(11) DEFAULT NULL COMMENT '最近一次失败错误码',
+  `last_error` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci DEFAULT NULL COMMENT '最近一次失败原因',
+  `create_time` datetime(0) NOT NULL COMMENT '创建时间',
+  `update_time` datetime(0) DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE KEY `uk_task_date_type` (`task_id`, `notify_date`, `notify_type`) USING BTREE COMMENT '防止重复入队',
+  INDEX `idx_status_next_attempt` (`status`, `next_attempt_at`) USING BTREE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci COMMENT='通知发件箱表' ROW_FORMAT=Dynamic;
+
+SET FOREIGN_KEY_CHECKS = 1;
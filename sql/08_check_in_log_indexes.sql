@@ -0,0 +1,30 @@
+-- ==========================================================
+-- 打卡日志表：联合索引
+-- 热点查询均为 用户/任务 + 打卡时间范围，原 idx_user_id 只能定位到用户后逐行过滤 check_time
+-- 执行后可通过 EXPLAIN 确认 key 列为对应索引、type 为 range/ref
+-- ==========================================================
+
+-- 1. 用户 + 打卡时间（用户统计：今日/本周/本月/近7天/总次数）
+--    附带 status、deleted 列，COUNT 统计和按状态过滤可直接在索引上完成（Using index）
+ALTER TABLE `check_in_log`
+ADD INDEX `idx_user_check_time`(`user_id`, `check_time`, `status`, `deleted`) USING BTREE;
+
+-- 2. 任务 + 打卡时间（任务当日打卡状态查询）
+ALTER TABLE `check_in_log`
+ADD INDEX `idx_task_check_time`(`task_id`, `check_time`) USING BTREE;
+
+-- 3. 打卡时间（按天重建每日完成记录、对账任务的范围扫描）
+ALTER TABLE `check_in_log`
+ADD INDEX `idx_check_time`(`check_time`) USING BTREE;
+
+-- 4. idx_user_id 为 idx_user_check_time 的前缀，删除冗余索引
+ALTER TABLE `check_in_log`
+DROP INDEX `idx_user_id`;
+
+-- ----------------------------------------------------------
+-- 查询计划核对（执行后 key 列应为注释中的索引）
+-- ----------------------------------------------------------
+-- EXPLAIN SELECT COUNT(*) FROM check_in_log WHERE deleted = 0 AND user_id = 1;                                                  -- idx_user_check_time
+-- EXPLAIN SELECT * FROM check_in_log WHERE deleted = 0 AND user_id = 1 AND check_time >= '2026-10-01' AND check_time < '2026-10-19';  -- idx_user_check_time
+-- EXPLAIN SELECT * FROM check_in_log WHERE deleted = 0 AND task_id IN (1, 2, 3) AND check_time >= '2026-10-18' AND check_time < '2026-10-19'; -- idx_task_check_time
+-- EXPLAIN SELECT id, task_id, status, check_time FROM check_in_log WHERE deleted = 0 AND check_time >= '2026-10-18' AND check_time < '2026-10-19' AND id > 0 ORDER BY id LIMIT 2000; -- idx_check_time
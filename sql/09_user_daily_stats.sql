@@ -0,0 +1,42 @@
+/*
+ 用户打卡统计汇总表
+ 按天、按月汇总每个用户的正常打卡、补打卡次数，用户统计直接读取汇总行，不再加载 check_in_log 明细
+ （漏打卡次数按任务重复规则实时计算，不在此汇总）
+ - user_daily_stats: 打卡时增量更新，每天凌晨按 check_in_log 重算前一天的打卡次数
+ - user_monthly_stats: 每天凌晨由日汇总重算前一天所在月份（回填时每个月份只重算一次）
+ Date: 18/10/2026
+*/
+
+SET NAMES utf8mb4;
+SET FOREIGN_KEY_CHECKS = 0;
+
+-- ----------------------------
+-- Table structure for user_daily_stats
+-- ----------------------------
+DROP TABLE IF EXISTS `user_daily_stats`;
+CREATE TABLE `user_daily_stats` (
+  `user_id` bigint(20) NOT NULL COMMENT '用户ID',
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `normal_count` int(11) NOT NULL DEFAULT 0 COMMENT '正常打卡次数',
+  `reissue_count` int(11) NOT NULL DEFAULT 0 COMMENT '补打卡次数',
+  `create_time` datetime(0) NOT NULL COMMENT '创建时间',
+  `update_time` datetime(0) DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`user_id`, `stat_date`) USING BTREE,
+  INDEX `idx_stat_date` (`stat_date`) USING BTREE COMMENT '按天重算、按月汇总'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci COMMENT='用户每日打卡统计表' ROW_FORMAT=Dynamic;
+
+-- ----------------------------
+-- Table structure for user_monthly_stats
+-- ----------------------------
+DROP TABLE IF EXISTS `user_monthly_stats`;
+CREATE TABLE `user_monthly_stats` (
+  `user_id` bigint(20) NOT NULL COMMENT '用户ID',
+  `stat_month` date NOT NULL COMMENT '统计月份（当月1日）',
+  `normal_count` int(11) NOT NULL DEFAULT 0 COMMENT '正常打卡次数',
+  `reissue_count` int(11) NOT NULL DEFAULT 0 COMMENT '补打卡次数',
+  `create_time` datetime(0) NOT NULL COMMENT '创建时间',
+  `update_time` datetime(0) DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`user_id`, `stat_month`) USING BTREE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci COMMENT='用户每月打卡统计表' ROW_FORMAT=Dynamic;
+
+SET FOREIGN_KEY_CHECKS = 1;
@@ -0,0 +1,63 @@
+/*
+ 用户关系边表
+ 每条 user_relation 对应两行边（双方各一行），按 user_id 查询关系只需主键范围扫描，
+ 不再使用 (initiator_id = ? OR partner_id = ?) 触发索引合并
+ - 关系写入时在同一事务内同步更新边表
+ - 每天凌晨由 UserRelationEdgeCheckTask 以 user_relation 为准核对并修复边表
+ 同时为 user_relation 增加规范化的 (较小ID, 较大ID) 唯一键，保证同一对用户最多只有一条进行中的关系
+ Date: 18/10/2026
+*/
+
+SET NAMES utf8mb4;
+SET FOREIGN_KEY_CHECKS = 0;
+
+-- ----------------------------
+-- Table structure for user_relation_edge
+-- ----------------------------
+DROP TABLE IF EXISTS `user_relation_edge`;
+CREATE TABLE `user_relation_edge` (
+  `user_id` bigint(20) NOT NULL COMMENT '用户ID',
+  `other_user_id` bigint(20) NOT NULL COMMENT '对方用户ID',
+  `relation_id` bigint(20) NOT NULL COMMENT '关系ID（user_relation.id）',
+  `status` tinyint(4) NOT NULL COMMENT '关系状态（与 user_relation.status 一致）',
+  `create_time` datetime(0) NOT NULL COMMENT '创建时间',
+  `update_time` datetime(0) DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`user_id`, `other_user_id`, `relation_id`) USING BTREE,
+  INDEX `idx_relation_id` (`relation_id`) USING BTREE COMMENT '按关系同步、核对'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci COMMENT='用户关系边表' ROW_FORMAT=Dynamic;
+
+-- ----------------------------
+-- 回填：每条未删除的关系写入双方两行（任一方用户ID为空的历史数据跳过，边表用户ID非空）
+-- ----------------------------
+INSERT INTO `user_relation_edge` (`user_id`, `other_user_id`, `relation_id`, `status`, `create_time`, `update_time`)
+SELECT `initiator_id`, `partner_id`, `id`, IFNULL(`status`, 0), NOW(), NOW()
+FROM `user_relation` WHERE `deleted` = 0 AND `initiator_id` IS NOT NULL AND `partner_id` IS NOT NULL
+ON DUPLICATE KEY UPDATE `status` = VALUES(`status`), `update_time` = NOW();
+
+INSERT INTO `user_relation_edge` (`user_id`, `other_user_id`, `relation_id`, `status`, `create_time`, `update_time`)
+SELECT `partner_id`, `initiator_id`, `id`, IFNULL(`status`, 0), NOW(), NOW()
+FROM `user_relation` WHERE `deleted` = 0 AND `initiator_id` IS NOT NULL AND `partner_id` IS NOT NULL
+ON DUPLICATE KEY UPDATE `status` = VALUES(`status`), `update_time` = NOW();
+
+-- ----------------------------
+-- user_relation 规范化唯一键
+-- 进行中（待确认、已接受、解绑中）的关系 active_pair 为 1，其余为 NULL（唯一索引允许多个 NULL），
+-- 已拒绝、已解绑的历史记录不受限制
+-- 执行前先确认没有重复的进行中关系（结果应为空）：
+-- SELECT LEAST(initiator_id, partner_id) AS a, GREATEST(initiator_id, partner_id) AS b, COUNT(*)
+-- FROM user_relation WHERE deleted = 0 AND status IN (0, 1, 3) GROUP BY a, b HAVING COUNT(*) > 1;
+-- ----------------------------
+ALTER TABLE `user_relation`
+ADD COLUMN `pair_min_id` bigint(20) GENERATED ALWAYS AS (LEAST(`initiator_id`, `partner_id`)) STORED COMMENT '双方中较小的用户ID',
+ADD COLUMN `pair_max_id` bigint(20) GENERATED ALWAYS AS (GREATEST(`initiator_id`, `partner_id`)) STORED COMMENT '双方中较大的用户ID',
+ADD COLUMN `active_pair` tinyint(4) GENERATED ALWAYS AS (IF(`deleted` = 0 AND `status` IN (0, 1, 3), 1, NULL)) STORED COMMENT '是否为进行中的关系（1 或 NULL）',
+ADD UNIQUE INDEX `uk_pair_active`(`pair_min_id`, `pair_max_id`, `active_pair`) USING BTREE;
+
+SET FOREIGN_KEY_CHECKS = 1;
+
+-- ----------------------------------------------------------
+-- 查询计划核对（执行后 key 列应为注释中的索引）
+-- ----------------------------------------------------------
+-- EXPLAIN SELECT other_user_id FROM user_relation_edge WHERE user_id = 1 AND status = 1;                        -- PRIMARY
+-- EXPLAIN SELECT COUNT(*) FROM user_relation_edge WHERE user_id = 1 AND other_user_id = 2 AND status IN (0, 1, 3); -- PRIMARY
+-- EXPLAIN SELECT * FROM user_relation_edge WHERE relation_id IN (1, 2, 3);                                     -- idx_relation_id
@@ -0,0 +1,13 @@
+-- ==========================================================
+-- 叮咚任务表：记录停用时间
+-- 完成情况统计需包含统计窗口内停用的任务（停用前的应打卡、已打卡仍计入），
+-- 按 disable_time 截止，停用的任务不再从历史统计中消失
+-- ==========================================================
+
+-- 1. 添加停用时间字段
+ALTER TABLE `check_in_task`
+ADD COLUMN `disable_time` datetime(0) DEFAULT NULL COMMENT '停用时间（启用中为空）' AFTER `status`;
+
+-- 2. 存量停用任务以最后更新时间作为停用时间
+UPDATE `check_in_task` SET `disable_time` = `update_time`
+WHERE `status` = 0 AND `disable_time` IS NULL;